@@ -0,0 +1,7 @@
+-- Exact decimals for the ledger; the P&L engine reads them into fixed point without a double in between.
+-- Binance amounts have at most 8 decimals, so rounding the stored doubles to 8 recovers the exact values.
+ALTER TABLE trades
+    ALTER COLUMN price TYPE NUMERIC(30, 8) USING round(price::numeric, 8),
+    ALTER COLUMN qty TYPE NUMERIC(30, 8) USING round(qty::numeric, 8),
+    ALTER COLUMN quote_qty TYPE NUMERIC(30, 8) USING round(quote_qty::numeric, 8),
+    ALTER COLUMN commission TYPE NUMERIC(30, 8) USING round(commission::numeric, 8);
@@ -0,0 +1,3 @@
+ALTER TABLE messages ADD COLUMN conversation_key VARCHAR(255);
+
+CREATE INDEX idx_messages_conversation_key_timestamp ON messages (conversation_key, "timestamp" DESC);
@@ -0,0 +1,20 @@
+CREATE SEQUENCE trades_seq START 1 INCREMENT BY 50;
+
+CREATE TABLE trades (
+    id BIGINT PRIMARY KEY DEFAULT nextval('trades_seq'),
+    symbol VARCHAR(32) NOT NULL,
+    trade_id BIGINT NOT NULL,
+    order_id BIGINT NOT NULL,
+    price DOUBLE PRECISION NOT NULL,
+    qty DOUBLE PRECISION NOT NULL,
+    quote_qty DOUBLE PRECISION NOT NULL,
+    commission DOUBLE PRECISION NOT NULL,
+    commission_asset VARCHAR(32),
+    trade_time BIGINT NOT NULL,
+    is_buyer BOOLEAN NOT NULL,
+    is_maker BOOLEAN NOT NULL,
+    CONSTRAINT uq_trades_symbol_trade_id UNIQUE (symbol, trade_id)
+);
+
+CREATE INDEX idx_trades_symbol_trade_time ON trades (symbol, trade_time DESC);
+CREATE INDEX idx_trades_trade_time ON trades (trade_time DESC);
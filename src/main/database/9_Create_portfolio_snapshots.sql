@@ -0,0 +1,11 @@
+CREATE SEQUENCE portfolio_snapshots_seq START 1 INCREMENT BY 50;
+
+CREATE TABLE portfolio_snapshots (
+    id BIGINT PRIMARY KEY DEFAULT nextval('portfolio_snapshots_seq'),
+    resolution VARCHAR(8) NOT NULL,
+    bucket_time BIGINT NOT NULL,
+    asset VARCHAR(32) NOT NULL,
+    amount DOUBLE PRECISION NOT NULL,
+    usd_value DOUBLE PRECISION NOT NULL,
+    CONSTRAINT uq_portfolio_snapshots_resolution_time_asset UNIQUE (resolution, bucket_time, asset)
+);
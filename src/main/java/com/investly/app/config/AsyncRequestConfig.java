@@ -0,0 +1,25 @@
+package com.investly.app.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Controllers return futures for assistant turns. The servlet container's default async timeout
+ * (30 s on Tomcat) is shorter than a streamed run with tool calls, so it is raised to cover a turn.
+ */
+@Configuration
+public class AsyncRequestConfig implements WebMvcConfigurer {
+
+    private final long requestTimeoutMillis;
+
+    public AsyncRequestConfig(@Value("${assistant.turns.request-timeout-ms:180000}") long requestTimeoutMillis) {
+        this.requestTimeoutMillis = requestTimeoutMillis;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(requestTimeoutMillis);
+    }
+}
@@ -0,0 +1,120 @@
+package com.investly.app.config;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps concurrent calls per host. OkHttp's Dispatcher limits only apply to async calls, and most of our
+ * calls are synchronous. A permit is held until the response body is closed, so a streamed body counts
+ * for as long as it is being read.
+ */
+public class HostConcurrencyInterceptor implements Interceptor {
+
+    private final int maxConcurrentPerHost;
+    private final Map<String, Semaphore> permitsByHost = new ConcurrentHashMap<>();
+
+    public HostConcurrencyInterceptor(int maxConcurrentPerHost) {
+        this.maxConcurrentPerHost = maxConcurrentPerHost;
+    }
+
+    public int inFlight() {
+        int inFlight = 0;
+        for (Semaphore permits : permitsByHost.values()) {
+            inFlight += maxConcurrentPerHost - permits.availablePermits();
+        }
+        return inFlight;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Semaphore permits = permitsByHost.computeIfAbsent(chain.request().url().host(),
+                host -> new Semaphore(maxConcurrentPerHost, true));
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a connection slot");
+        }
+
+        Response response;
+        try {
+            response = chain.proceed(chain.request());
+        } catch (IOException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+
+        ResponseBody body = response.body();
+        if (body == null) {
+            permits.release();
+            return response;
+        }
+        return response.newBuilder().body(new ReleasingBody(body, permits)).build();
+    }
+
+    private static final class ReleasingBody extends ResponseBody {
+        private final ResponseBody delegate;
+        private final Semaphore permits;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private BufferedSource source;
+
+        ReleasingBody(ResponseBody delegate, Semaphore permits) {
+            this.delegate = delegate;
+            this.permits = permits;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            if (source == null) {
+                source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            release();
+                        }
+                    }
+                });
+            }
+            return source;
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                release();
+            }
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.investly.app.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One OkHttp client per upstream, each with its own connection pool, dispatcher and per-host
+ * concurrency cap, so a slow OpenAI run cannot starve Binance calls (or the other way round).
+ * Pool usage is published as http.client.* gauges and call timings through {@link HttpClientMetrics}.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Bean
+    public OkHttpClient binanceHttpClient(MeterRegistry meterRegistry,
+                                          @Value("${binance.http.connect-timeout-ms:5000}") long connectTimeoutMillis,
+                                          @Value("${binance.http.read-timeout-ms:10000}") long readTimeoutMillis,
+                                          @Value("${binance.http.max-idle-connections:16}") int maxIdleConnections,
+                                          @Value("${binance.http.keep-alive-ms:300000}") long keepAliveMillis,
+                                          @Value("${binance.http.max-concurrent-per-host:32}") int maxConcurrentPerHost) {
+        return build("binance", meterRegistry, connectTimeoutMillis, readTimeoutMillis, maxIdleConnections,
+                keepAliveMillis, maxConcurrentPerHost);
+    }
+
+    @Bean
+    public OkHttpClient openAiHttpClient(MeterRegistry meterRegistry,
+                                         @Value("${openai.timeout.connection:30}") long connectTimeoutSeconds,
+                                         @Value("${openai.timeout.read:60}") long readTimeoutSeconds,
+                                         @Value("${openai.http.max-idle-connections:64}") int maxIdleConnections,
+                                         @Value("${openai.http.keep-alive-ms:300000}") long keepAliveMillis,
+                                         @Value("${openai.http.max-concurrent-per-host:256}") int maxConcurrentPerHost) {
+        return build("openai", meterRegistry, TimeUnit.SECONDS.toMillis(connectTimeoutSeconds),
+                TimeUnit.SECONDS.toMillis(readTimeoutSeconds), maxIdleConnections, keepAliveMillis, maxConcurrentPerHost);
+    }
+
+    static OkHttpClient build(String name, MeterRegistry meterRegistry, long connectTimeoutMillis, long readTimeoutMillis,
+                              int maxIdleConnections, long keepAliveMillis, int maxConcurrentPerHost) {
+        ConnectionPool connectionPool = new ConnectionPool(maxIdleConnections, keepAliveMillis, TimeUnit.MILLISECONDS);
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(Math.max(64, maxConcurrentPerHost * 2));
+        dispatcher.setMaxRequestsPerHost(maxConcurrentPerHost);
+        HostConcurrencyInterceptor hostConcurrency = new HostConcurrencyInterceptor(maxConcurrentPerHost);
+
+        Gauge.builder("http.client.pool.connections", connectionPool, ConnectionPool::connectionCount)
+                .tag("client", name).register(meterRegistry);
+        Gauge.builder("http.client.pool.idle", connectionPool, ConnectionPool::idleConnectionCount)
+                .tag("client", name).register(meterRegistry);
+        Gauge.builder("http.client.calls.running", dispatcher, Dispatcher::runningCallsCount)
+                .tag("client", name).register(meterRegistry);
+        Gauge.builder("http.client.calls.queued", dispatcher, Dispatcher::queuedCallsCount)
+                .tag("client", name).register(meterRegistry);
+        Gauge.builder("http.client.host.in-flight", hostConcurrency, HostConcurrencyInterceptor::inFlight)
+                .tag("client", name).register(meterRegistry);
+
+        return new OkHttpClient.Builder()
+                .connectionPool(connectionPool)
+                .dispatcher(dispatcher)
+                .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(connectTimeoutMillis, TimeUnit.MILLISECONDS)
+                .readTimeout(readTimeoutMillis, TimeUnit.MILLISECONDS)
+                .writeTimeout(readTimeoutMillis, TimeUnit.MILLISECONDS)
+                .retryOnConnectionFailure(true)
+                .addInterceptor(hostConcurrency)
+                .eventListenerFactory(new HttpClientMetrics(name, meterRegistry))
+                .build();
+    }
+}
@@ -0,0 +1,79 @@
+package com.investly.app.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import okhttp3.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records connect time, time to first byte and total call time for one named OkHttp client.
+ */
+public class HttpClientMetrics implements EventListener.Factory {
+
+    private final Timer connectTimer;
+    private final Timer ttfbTimer;
+    private final Timer successTimer;
+    private final Timer failureTimer;
+
+    public HttpClientMetrics(String clientName, MeterRegistry meterRegistry) {
+        this.connectTimer = Timer.builder("http.client.connect")
+                .description("TCP and TLS connection setup time")
+                .tag("client", clientName)
+                .register(meterRegistry);
+        this.ttfbTimer = Timer.builder("http.client.ttfb")
+                .description("Time from sending the request to the first response byte")
+                .tag("client", clientName)
+                .register(meterRegistry);
+        this.successTimer = Timer.builder("http.client.call")
+                .tag("client", clientName)
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        this.failureTimer = Timer.builder("http.client.call")
+                .tag("client", clientName)
+                .tag("outcome", "failure")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public EventListener create(Call call) {
+        return new EventListener() {
+            private final long callStart = System.nanoTime();
+            private long connectStart;
+            private long requestStart;
+
+            @Override
+            public void connectStart(Call call, InetSocketAddress address, Proxy proxy) {
+                connectStart = System.nanoTime();
+            }
+
+            @Override
+            public void connectEnd(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol) {
+                connectTimer.record(System.nanoTime() - connectStart, TimeUnit.NANOSECONDS);
+            }
+
+            @Override
+            public void requestHeadersStart(Call call) {
+                requestStart = System.nanoTime();
+            }
+
+            @Override
+            public void responseHeadersStart(Call call) {
+                ttfbTimer.record(System.nanoTime() - requestStart, TimeUnit.NANOSECONDS);
+            }
+
+            @Override
+            public void callEnd(Call call) {
+                successTimer.record(System.nanoTime() - callStart, TimeUnit.NANOSECONDS);
+            }
+
+            @Override
+            public void callFailed(Call call, IOException ioe) {
+                failureTimer.record(System.nanoTime() - callStart, TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+}
@@ -1,30 +1,49 @@
 package com.investly.app.controllers;
 
 import com.investly.app.services.AIService;
+import com.investly.app.services.AssistantBusyException;
+import com.investly.app.services.AssistantTurnExecutor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/ai")
 public class AIController {
 
     private final AIService aiService;
+    private final AssistantTurnExecutor turnExecutor;
 
     @Autowired
-    public AIController(AIService aiService) {
+    public AIController(AIService aiService, AssistantTurnExecutor turnExecutor) {
         this.aiService = aiService;
+        this.turnExecutor = turnExecutor;
     }
 
+    // The request thread is released while the turn runs; the response is written when the future completes.
+    // A request without a conversation starts a new one, and its id is returned for the follow-up messages.
     @PostMapping("/process")
-    public ResponseEntity<Map<String, String>> processMessage(@RequestBody Map<String, Object> request) {
+    public CompletableFuture<ResponseEntity<Map<String, String>>> processMessage(@RequestBody Map<String, Object> request) {
         Integer maskId = (Integer) request.get("maskId");
         String userMessage = (String) request.get("message");
+        Object requestedId = request.getOrDefault("conversationId", request.get("sessionId"));
+        String conversationId = requestedId == null || requestedId.toString().isBlank()
+                ? UUID.randomUUID().toString() : requestedId.toString();
 
-        String aiResponse = aiService.processUserMessage(userMessage);
+        return turnExecutor.submit(() -> aiService.processUserMessage(conversationId, userMessage, null))
+                .thenApply(aiResponse -> ResponseEntity.ok(Map.of("response", aiResponse, "conversationId", conversationId)));
+    }
 
-        return ResponseEntity.ok(Map.of("response", aiResponse));
+    @ExceptionHandler(AssistantBusyException.class)
+    public ResponseEntity<Map<String, String>> busy(AssistantBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(Map.of("error", e.getMessage()));
     }
 }
@@ -2,6 +2,8 @@ package com.investly.app.controllers;
 
 import com.investly.app.dao.MessageEntity;
 import com.investly.app.dto.MessageRequest;
+import com.investly.app.services.AssistantBusyException;
+import com.investly.app.services.AssistantTurnExecutor;
 import com.investly.app.services.MessageService;
 import com.investly.app.services.ResponseService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,34 +11,84 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.handler.annotation.SendTo;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.OffsetDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Controller
 @MessageMapping("/messages")
 @SendTo("/topic/messages")
 public class MessageController {
 
+    static final String CONVERSATION_TOPIC = "/topic/conversations/";
+
     private final MessageService messageService;
     private final ResponseService responseService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final AssistantTurnExecutor turnExecutor;
 
     @Autowired
-    public MessageController(MessageService messageService, ResponseService responseService) {
+    public MessageController(MessageService messageService, ResponseService responseService,
+                             SimpMessagingTemplate messagingTemplate, AssistantTurnExecutor turnExecutor) {
         this.messageService = messageService;
         this.responseService = responseService;
+        this.messagingTemplate = messagingTemplate;
+        this.turnExecutor = turnExecutor;
     }
 
+    /**
+     * Runs the turn on the {@link AssistantTurnExecutor}, so the clientInboundChannel thread is free as soon
+     * as the message is handed off; the result goes to /topic/messages when the future completes. When
+     * the assistant is at capacity the reply is an error frame instead.
+     */
     @MessageMapping("/new")
-    public Map<String, Object> createMessage(@Payload MessageRequest messageRequest) throws IOException {
+    public CompletableFuture<Map<String, Object>> createMessage(@Payload MessageRequest messageRequest,
+                                                                SimpMessageHeaderAccessor headerAccessor) {
+        String conversationKey = conversationKey(messageRequest, headerAccessor);
+        return turnExecutor.submit(() -> processTurn(conversationKey, messageRequest))
+                .exceptionally(failure -> {
+                    // A refused turn fails the future directly, a failed one wraps its exception
+                    if (!(failure instanceof AssistantBusyException)) {
+                        throw failure instanceof CompletionException completion ? completion : new CompletionException(failure);
+                    }
+                    Map<String, Object> error = new HashMap<>();
+                    error.put("type", "error");
+                    error.put("conversationKey", conversationKey);
+                    error.put("content", failure.getMessage());
+                    return error;
+                });
+    }
+
+    private Map<String, Object> processTurn(String conversationKey, MessageRequest messageRequest) {
         // Persist user message
-        MessageEntity savedMessage = messageService.createMessage(messageRequest.getTextPrompt());
+        MessageEntity savedMessage;
+        try {
+            savedMessage = messageService.createMessage(conversationKey, messageRequest.getTextPrompt());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // Keyed like the conversation, so the client can subscribe before the thread exists
+        String destination = CONVERSATION_TOPIC + conversationKey;
 
-        // Process AI response (pass only the user message)
-        String aiResponseText = messageService.processMessage(savedMessage.getTextPrompt());
+        // Process AI response (pass only the user message), publishing each generated chunk as it arrives
+        AtomicInteger sequence = new AtomicInteger();
+        String aiResponseText = messageService.processMessage(conversationKey, savedMessage.getTextPrompt(), delta -> {
+            Map<String, Object> frame = new HashMap<>();
+            frame.put("type", "delta");
+            frame.put("messageId", savedMessage.getId());
+            frame.put("sequence", sequence.getAndIncrement());
+            frame.put("content", delta);
+            messagingTemplate.convertAndSend(destination, frame);
+        });
 
         // Persist AI response
         com.investly.app.dao.ResponseEntity aiResponse = new com.investly.app.dao.ResponseEntity();
@@ -48,6 +100,14 @@ public class MessageController {
         // Save the AI response to the database
         responseService.saveResponse(aiResponse);
 
+        // Final frame closes the stream for this message and points at the persisted response
+        Map<String, Object> finalFrame = new HashMap<>();
+        finalFrame.put("type", "final");
+        finalFrame.put("messageId", savedMessage.getId());
+        finalFrame.put("responseId", aiResponse.getId());
+        finalFrame.put("content", aiResponseText);
+        messagingTemplate.convertAndSend(destination, finalFrame);
+
         // Return both user message and AI response
         Map<String, Object> response = new HashMap<>();
         response.put("userMessage", savedMessage);
@@ -55,4 +115,17 @@ public class MessageController {
 
         return response;
     }
+
+    /**
+     * Conversations are keyed by the client-supplied id when present, otherwise by the STOMP session,
+     * so separate browser tabs never share an assistant thread.
+     */
+    static String conversationKey(MessageRequest messageRequest, SimpMessageHeaderAccessor headerAccessor) {
+        String conversationId = messageRequest.getConversationId();
+        if (conversationId != null && !conversationId.isBlank()) {
+            return conversationId;
+        }
+        String sessionId = headerAccessor != null ? headerAccessor.getSessionId() : null;
+        return sessionId != null ? "session:" + sessionId : "default";
+    }
 }
@@ -2,24 +2,39 @@ package com.investly.app.controllers;
 
 import com.investly.app.dao.MessageEntity;
 import com.investly.app.dto.MessageRequest;
+import com.investly.app.services.AssistantTurnExecutor;
 import com.investly.app.services.MessageService;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.SendTo;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.stereotype.Controller;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
 
 @Controller
 public class WebSocketController {
     private final MessageService messageService;
+    private final AssistantTurnExecutor turnExecutor;
 
-    public WebSocketController(MessageService messageService) {
+    public WebSocketController(MessageService messageService, AssistantTurnExecutor turnExecutor) {
         this.messageService = messageService;
+        this.turnExecutor = turnExecutor;
     }
 
+    // A new conversation creates its assistant thread at OpenAI, so this runs off the inbound channel too
     @MessageMapping("/send")
     @SendTo("/topic/messages")
-    public MessageEntity processMessage(MessageRequest messageRequest) throws IOException {
-        return messageService.createMessage(messageRequest.getTextPrompt());
+    public CompletableFuture<MessageEntity> processMessage(MessageRequest messageRequest,
+                                                           SimpMessageHeaderAccessor headerAccessor) {
+        String conversationKey = MessageController.conversationKey(messageRequest, headerAccessor);
+        return turnExecutor.submit(() -> {
+            try {
+                return messageService.createMessage(conversationKey, messageRequest.getTextPrompt());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
     }
 }
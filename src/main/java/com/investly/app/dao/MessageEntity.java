@@ -26,4 +26,7 @@ public class MessageEntity {
 
     @Column(name = "thread_id")
     private String threadId;
+
+    @Column(name = "conversation_key")
+    private String conversationKey;
 }
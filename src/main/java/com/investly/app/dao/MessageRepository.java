@@ -9,4 +9,6 @@ import java.util.Optional;
 @Repository
 public interface MessageRepository extends JpaRepository<MessageEntity, Long> {
     Optional<MessageEntity> findFirstByOrderByTimestampDesc();
+
+    Optional<MessageEntity> findFirstByConversationKeyAndThreadIdIsNotNullOrderByTimestampDesc(String conversationKey);
 }
@@ -0,0 +1,57 @@
+package com.investly.app.dao;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+/**
+ * USD value of one asset, or of the whole portfolio under {@link #TOTAL_ASSET}, at the end of a minute,
+ * hour or day bucket.
+ */
+@Entity
+@Table(name = "portfolio_snapshots",
+        uniqueConstraints = @UniqueConstraint(name = "uq_portfolio_snapshots_resolution_time_asset",
+                columnNames = {"resolution", "bucket_time", "asset"}))
+@RequiredArgsConstructor
+@Getter
+@Setter
+public class PortfolioSnapshotEntity {
+
+    public static final String TOTAL_ASSET = "TOTAL";
+
+    public enum Resolution { MINUTE, HOUR, DAY }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "portfolio_snapshots_seq")
+    @SequenceGenerator(name = "portfolio_snapshots_seq", sequenceName = "portfolio_snapshots_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private Resolution resolution;
+
+    // Epoch milliseconds at the start of the bucket (UTC)
+    @Column(name = "bucket_time", nullable = false)
+    private long bucketTime;
+
+    @Column(nullable = false, length = 32)
+    private String asset;
+
+    @Column(nullable = false)
+    private double amount;
+
+    @Column(name = "usd_value", nullable = false)
+    private double usdValue;
+
+    public static PortfolioSnapshotEntity of(Resolution resolution, long bucketTime, String asset, double amount,
+                                             double usdValue) {
+        PortfolioSnapshotEntity entity = new PortfolioSnapshotEntity();
+        entity.setResolution(resolution);
+        entity.setBucketTime(bucketTime);
+        entity.setAsset(asset);
+        entity.setAmount(amount);
+        entity.setUsdValue(usdValue);
+        return entity;
+    }
+}
@@ -0,0 +1,35 @@
+package com.investly.app.dao;
+
+import com.investly.app.dao.PortfolioSnapshotEntity.Resolution;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PortfolioSnapshotRepository extends JpaRepository<PortfolioSnapshotEntity, Long> {
+
+    // Served by the (resolution, bucket_time, asset) unique index
+    List<PortfolioSnapshotEntity> findByResolutionAndBucketTimeBetweenOrderByBucketTimeAsc(
+            Resolution resolution, long from, long to);
+
+    List<PortfolioSnapshotEntity> findByResolutionAndBucketTimeGreaterThanEqualOrderByBucketTimeAsc(
+            Resolution resolution, long from);
+
+    boolean existsByResolutionAndBucketTime(Resolution resolution, long bucketTime);
+
+    @Query("select max(s.bucketTime) from PortfolioSnapshotEntity s where s.resolution = :resolution")
+    Optional<Long> findLastBucketTime(@Param("resolution") Resolution resolution);
+
+    @Modifying
+    @Query("delete from PortfolioSnapshotEntity s where s.resolution = :resolution and s.bucketTime >= :from")
+    int deleteFrom(@Param("resolution") Resolution resolution, @Param("from") long from);
+
+    @Modifying
+    @Query("delete from PortfolioSnapshotEntity s where s.resolution = :resolution and s.bucketTime < :before")
+    int deleteBefore(@Param("resolution") Resolution resolution, @Param("before") long before);
+}
@@ -0,0 +1,84 @@
+package com.investly.app.dao;
+
+import com.investly.app.dto.Trade;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@Entity
+@Table(name = "trades",
+        uniqueConstraints = @UniqueConstraint(name = "uq_trades_symbol_trade_id", columnNames = {"symbol", "trade_id"}),
+        indexes = {
+                @Index(name = "idx_trades_symbol_trade_time", columnList = "symbol, trade_time"),
+                @Index(name = "idx_trades_trade_time", columnList = "trade_time")
+        })
+@RequiredArgsConstructor
+@Getter
+@Setter
+public class TradeEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "trades_seq")
+    @SequenceGenerator(name = "trades_seq", sequenceName = "trades_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, length = 32)
+    private String symbol;
+
+    // Binance trade ids are unique per symbol and increase with time
+    @Column(name = "trade_id", nullable = false)
+    private long tradeId;
+
+    @Column(name = "order_id", nullable = false)
+    private long orderId;
+
+    // Exact decimals; the P&L engine converts them to fixed point without going through a double
+    @Column(nullable = false, precision = 30, scale = 8)
+    private BigDecimal price;
+
+    @Column(nullable = false, precision = 30, scale = 8)
+    private BigDecimal qty;
+
+    @Column(name = "quote_qty", nullable = false, precision = 30, scale = 8)
+    private BigDecimal quoteQty;
+
+    @Column(nullable = false, precision = 30, scale = 8)
+    private BigDecimal commission;
+
+    @Column(name = "commission_asset", length = 32)
+    private String commissionAsset;
+
+    // Epoch milliseconds, as reported by Binance
+    @Column(name = "trade_time", nullable = false)
+    private long tradeTime;
+
+    @Column(name = "is_buyer", nullable = false)
+    private boolean buyer;
+
+    @Column(name = "is_maker", nullable = false)
+    private boolean maker;
+
+    public static TradeEntity from(Trade trade) {
+        TradeEntity entity = new TradeEntity();
+        entity.setSymbol(trade.symbol());
+        entity.setTradeId(trade.id());
+        entity.setOrderId(trade.orderId());
+        entity.setPrice(trade.price());
+        entity.setQty(trade.qty());
+        entity.setQuoteQty(trade.quoteQty());
+        entity.setCommission(trade.commission());
+        entity.setCommissionAsset(trade.commissionAsset());
+        entity.setTradeTime(trade.time());
+        entity.setBuyer(trade.isBuyer());
+        entity.setMaker(trade.isMaker());
+        return entity;
+    }
+
+    public Trade toTrade() {
+        return new Trade(symbol, tradeId, orderId, price, qty, quoteQty, commission, commissionAsset, tradeTime,
+                buyer, maker);
+    }
+}
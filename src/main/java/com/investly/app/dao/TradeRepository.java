@@ -0,0 +1,24 @@
+package com.investly.app.dao;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TradeRepository extends JpaRepository<TradeEntity, Long> {
+
+    @Query("select max(t.tradeId) from TradeEntity t where t.symbol = :symbol")
+    Optional<Long> findLastTradeId(@Param("symbol") String symbol);
+
+    List<TradeEntity> findBySymbolOrderByTradeTimeDescTradeIdDesc(String symbol, Pageable pageable);
+
+    List<TradeEntity> findBySymbolInOrderByTradeTimeDescTradeIdDesc(Collection<String> symbols, Pageable pageable);
+
+    List<TradeEntity> findBySymbolOrderByTradeIdAsc(String symbol);
+}
@@ -0,0 +1,7 @@
+package com.investly.app.dto;
+
+/**
+ * Holding of one asset as reported by /api/v3/account.
+ */
+public record AccountBalance(String asset, double free, double locked) {
+}
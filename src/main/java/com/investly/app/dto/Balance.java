@@ -0,0 +1,11 @@
+package com.investly.app.dto;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * Free amount of one asset and its USD value at the current price. {@code asset} is the display name.
+ */
+public record Balance(String asset,
+                      double amount,
+                      @SerializedName("usd_value") double usdValue) {
+}
@@ -0,0 +1,22 @@
+package com.investly.app.dto;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * OHLCV candles of one symbol, oldest first, as parallel columns: entry {@code i} of every array
+ * belongs to the candle opening at {@code openTime[i]}. Serialized as-is so a chart can plot each
+ * column directly.
+ */
+public record CandleSeries(String symbol,
+                           String interval,
+                           @SerializedName("open_time") long[] openTime,
+                           double[] open,
+                           double[] high,
+                           double[] low,
+                           double[] close,
+                           double[] volume) {
+
+    public int size() {
+        return openTime.length;
+    }
+}
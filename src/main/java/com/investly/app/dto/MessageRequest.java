@@ -5,6 +5,7 @@ import lombok.Data;
 @Data
 public class MessageRequest {
     private String textPrompt;
+    private String conversationId;
 
     public String getTextPrompt() {
         return textPrompt;
@@ -13,5 +14,12 @@ public class MessageRequest {
     public void setTextPrompt(String textPrompt) {
         this.textPrompt = textPrompt;
     }
-}
 
+    public String getConversationId() {
+        return conversationId;
+    }
+
+    public void setConversationId(String conversationId) {
+        this.conversationId = conversationId;
+    }
+}
@@ -0,0 +1,17 @@
+package com.investly.app.dto;
+
+/**
+ * Lifecycle update of an order placed through the assistant, published on {@code /topic/orders}.
+ * Status is SUBMITTED, RETRYING or FAILED while the app handles the order, then the Binance order
+ * status (FILLED, NEW, EXPIRED, ...) once the exchange has answered.
+ */
+public record OrderEvent(String clientOrderId,
+                         String symbol,
+                         String side,
+                         String status,
+                         long orderId,
+                         double executedQty,
+                         int attempt,
+                         String message,
+                         long timestamp) {
+}
@@ -0,0 +1,16 @@
+package com.investly.app.dto;
+
+/**
+ * Outcome of placing or cancelling an order. Field names follow the Binance response.
+ */
+public record OrderResult(String symbol,
+                          long orderId,
+                          String clientOrderId,
+                          String side,
+                          String type,
+                          String status,
+                          double origQty,
+                          double executedQty,
+                          double cummulativeQuoteQty,
+                          long transactTime) {
+}
@@ -0,0 +1,15 @@
+package com.investly.app.dto;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Priced balances keyed by asset symbol, e.g. BTC. Held assets without a current price are listed in
+ * {@code unpricedAssets} instead, and are not part of the total.
+ */
+public record Portfolio(Map<String, Balance> balances,
+                        @SerializedName("total_value_usd") double totalValueUsd,
+                        @SerializedName("unpriced_assets") List<String> unpricedAssets) {
+}
@@ -0,0 +1,22 @@
+package com.investly.app.dto;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.Map;
+
+/**
+ * Portfolio value over time at one resolution, oldest first, as parallel columns aligned with
+ * {@code bucketTime}. Per-asset values are keyed by asset symbol and are 0 where the asset was not held.
+ * The change compares the last bucket with the first.
+ */
+public record PortfolioHistory(String resolution,
+                               @SerializedName("bucket_time") long[] bucketTime,
+                               @SerializedName("total_value_usd") double[] totalValueUsd,
+                               @SerializedName("asset_values_usd") Map<String, double[]> assetValuesUsd,
+                               @SerializedName("change_usd") double changeUsd,
+                               @SerializedName("change_percent") double changePercent) {
+
+    public int size() {
+        return bucketTime.length;
+    }
+}
@@ -0,0 +1,17 @@
+package com.investly.app.dto;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * Position in one symbol under the given cost method, in the quote currency. Unrealized P&L is marked
+ * to {@code marketPrice} and is 0 when no price is available.
+ */
+public record ProfitLoss(String symbol,
+                         @SerializedName("cost_method") String costMethod,
+                         double quantity,
+                         @SerializedName("cost_basis") double costBasis,
+                         @SerializedName("average_cost") double averageCost,
+                         @SerializedName("market_price") double marketPrice,
+                         @SerializedName("realized_pnl") double realizedPnl,
+                         @SerializedName("unrealized_pnl") double unrealizedPnl) {
+}
@@ -0,0 +1,28 @@
+package com.investly.app.dto;
+
+import com.investly.app.services.FixedPoint;
+
+/**
+ * Trading rules Binance publishes per symbol in /api/v3/exchangeInfo, as {@link FixedPoint} values.
+ * Values are 0 when the exchange does not define the corresponding filter.
+ */
+public record SymbolFilters(String symbol,
+                            long stepSize,
+                            long minQty,
+                            long tickSize,
+                            long minNotional) {
+
+    /**
+     * Decimals a quantity of this symbol is written with.
+     */
+    public int quantityDecimals() {
+        return FixedPoint.decimals(stepSize);
+    }
+
+    /**
+     * Decimals a price of this symbol is written with.
+     */
+    public int priceDecimals() {
+        return FixedPoint.decimals(tickSize);
+    }
+}
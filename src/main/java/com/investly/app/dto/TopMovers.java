@@ -0,0 +1,23 @@
+package com.investly.app.dto;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.List;
+
+/**
+ * Largest rises and falls over a timeframe among the tracked USDT pairs, largest move first.
+ * {@code windowComplete} is false while less history than the timeframe has been collected, in which
+ * case changes are measured from the oldest price seen.
+ */
+public record TopMovers(String timeframe,
+                        List<Mover> gainers,
+                        List<Mover> losers,
+                        @SerializedName("symbols_tracked") int symbolsTracked,
+                        @SerializedName("window_complete") boolean windowComplete,
+                        @SerializedName("as_of") long asOf) {
+
+    public record Mover(String symbol,
+                        double price,
+                        @SerializedName("change_percent") double changePercent) {
+    }
+}
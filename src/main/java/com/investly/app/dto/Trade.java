@@ -0,0 +1,20 @@
+package com.investly.app.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * An executed trade from /api/v3/myTrades. Field names follow the Binance response; amounts are kept
+ * exactly as the exchange reported them.
+ */
+public record Trade(String symbol,
+                    long id,
+                    long orderId,
+                    BigDecimal price,
+                    BigDecimal qty,
+                    BigDecimal quoteQty,
+                    BigDecimal commission,
+                    String commissionAsset,
+                    long time,
+                    boolean isBuyer,
+                    boolean isMaker) {
+}
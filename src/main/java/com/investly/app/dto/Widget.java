@@ -0,0 +1,35 @@
+package com.investly.app.dto;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Widget definition returned to the assistant. Fields that do not apply to a widget type are null and
+ * left out of the JSON. Chart widgets carry one candle series per asset, portfolio widgets the recorded
+ * portfolio value over their dates. A series covers the widget's whole date range; when the range is
+ * too long for the requested timeframe, it comes at a longer interval, given by its {@code interval}.
+ */
+public record Widget(String type,
+                     List<String> assets,
+                     String timeframe,
+                     String startDate,
+                     String endDate,
+                     Boolean isBuy,
+                     String response,
+                     Map<String, Balance> balances,
+                     @SerializedName("widget_config") Config widgetConfig,
+                     List<CandleSeries> series,
+                     @SerializedName("portfolio_history") PortfolioHistory portfolioHistory,
+                     String status,
+                     String message) {
+
+    public record Config(String type,
+                         List<String> assets,
+                         String timeframe,
+                         String startDate,
+                         String endDate,
+                         boolean isBuy) {
+    }
+}
@@ -3,15 +3,23 @@ package com.investly.app.services;
 import com.google.gson.*;
 import com.investly.app.dao.MessageRepository;
 import okhttp3.*;
+import okhttp3.sse.EventSource;
+import okhttp3.sse.EventSources;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 
 @Service
@@ -21,11 +29,32 @@ public class AIService {
     private MessageRepository messageRepository;
 
     @Autowired
-    private FunctionService functionService;
+    private ToolCallExecutor toolCallExecutor;
 
-    private static final String OPENAI_THREADS_URL = "https://api.openai.com/v1/threads";
+    @Autowired
+    private ToolRegistry toolRegistry;
+
+    @Autowired
+    private ConversationSessionManager conversationSessions;
+
+    @Autowired
+    private AssistantResponseCache responseCache;
+
+    static final String DEFAULT_CONVERSATION = "default";
     private static final Logger LOGGER = Logger.getLogger(AIService.class.getName());
-    private volatile String singleThreadId;
+
+    // Tools whose output is the same for every user; a reply that used any other tool is never shared
+    static final Set<String> SHARED_TOOLS = Set.of("get_top_movers", "general_investment_advice");
+
+    /**
+     * Outcome of one assistant turn: the reply text (an error message on failure) and whether every tool
+     * the run called is in {@link #SHARED_TOOLS}.
+     */
+    private record Turn(String text, boolean succeeded, boolean shared) {
+        static Turn failure(String text) {
+            return new Turn(text, false, false);
+        }
+    }
 
     @Value("${openai.api.key}")
     private String apiKey;
@@ -33,25 +62,81 @@ public class AIService {
     @Value("${openai.assistant.id}")
     private String assistantId;
 
-    private final OkHttpClient client = new OkHttpClient();
+    @Value("${openai.api.base-url:https://api.openai.com/v1}")
+    private String openAiBaseUrl;
 
-    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    @Value("${openai.stream.timeout-seconds:120}")
+    private long streamTimeoutSeconds = 120;
+
+    @Autowired
+    @Qualifier("openAiHttpClient")
+    private OkHttpClient client;
+
+    private static final MediaType JSON = MediaType.get("application/json");
 
     public String processUserMessage(String userMessage) {
+        return processUserMessage(DEFAULT_CONVERSATION, userMessage, null);
+    }
+
+    /**
+     * Runs the assistant on the user message in the conversation's own thread. If a delta consumer is
+     * given, it receives the reply text incrementally as the model generates it; the complete reply is
+     * still returned at the end.
+     */
+    public String processUserMessage(String conversationKey, String userMessage, Consumer<String> deltaConsumer) {
+        // General market and advice questions are answered from the shared cache without a run
+        Optional<String> cached = responseCache.get(userMessage);
+        if (cached.isPresent()) {
+            if (deltaConsumer != null) {
+                deltaConsumer.accept(cached.get());
+            }
+            appendCachedTurn(conversationKey, userMessage, cached.get());
+            return cached.get();
+        }
+
         try {
-            if (singleThreadId == null) {
-                singleThreadId = createThread();
-                LOGGER.info("Created single thread: " + singleThreadId);
+            String threadId = conversationSessions.threadIdFor(conversationKey, this::createThread);
+            Turn turn = conversationSessions.withThreadLock(threadId,
+                    () -> runConversationTurn(threadId, userMessage, deltaConsumer));
+            // Replies built from account data or after a side effect stay private to this conversation
+            if (turn.succeeded() && turn.shared()) {
+                responseCache.put(userMessage, turn.text());
             }
+            return turn.text();
+        } catch (IOException e) {
+            LOGGER.severe("Exception: " + e.getMessage());
+            return "Error: " + e.getMessage();
+        }
+    }
+
+    /**
+     * Adds a question answered from the cache and its answer to the conversation's thread, so follow-up
+     * questions in the thread still have them as context.
+     */
+    private void appendCachedTurn(String conversationKey, String userMessage, String response) {
+        try {
+            String threadId = conversationSessions.threadIdFor(conversationKey, this::createThread);
+            boolean appended = conversationSessions.withThreadLock(threadId, () ->
+                    addMessageToThread(threadId, "user", userMessage)
+                            && addMessageToThread(threadId, "assistant", response));
+            if (!appended) {
+                LOGGER.warning("Failed to add cached reply to thread: " + threadId);
+            }
+        } catch (IOException e) {
+            LOGGER.warning("Failed to add cached reply to conversation " + conversationKey + ": " + e.getMessage());
+        }
+    }
 
-            // Cancel any active run on this thread
-            String activeRunId = getActiveRunId(singleThreadId);
+    private Turn runConversationTurn(String threadId, String userMessage, Consumer<String> deltaConsumer) throws IOException {
+        try {
+            // Runs on a thread are serialized, so an active run here was left behind by a failed request
+            String activeRunId = getActiveRunId(threadId);
             if (activeRunId != null) {
                 LOGGER.info("Found active run: " + activeRunId + ". Attempting to cancel...");
-                boolean cancelled = cancelActiveRun(singleThreadId, activeRunId);
+                boolean cancelled = cancelActiveRun(threadId, activeRunId);
                 if (!cancelled) {
                     LOGGER.severe("Failed to cancel active run: " + activeRunId);
-                    return "Error: Failed to cancel active run.";
+                    return Turn.failure("Error: Failed to cancel active run.");
                 }
                 LOGGER.info("Successfully cancelled active run: " + activeRunId);
             }
@@ -59,197 +144,92 @@ public class AIService {
             // Capture the current timestamp for the user message
             long lastUserTimestamp = System.currentTimeMillis();
 
-            boolean messageAdded = addMessageToThread(singleThreadId, userMessage);
+            boolean messageAdded = addMessageToThread(threadId, "user", userMessage);
             if (!messageAdded) {
-                LOGGER.severe("Failed to add message to thread: " + singleThreadId);
-                return "Error: Failed to add message to thread.";
+                LOGGER.severe("Failed to add message to thread: " + threadId);
+                return Turn.failure("Error: Failed to add message to thread.");
             }
 
-            LOGGER.info("Attempting to start assistant run on thread: " + singleThreadId);
-            String runId = runAssistant(singleThreadId);
-            if (runId == null) {
+            LOGGER.info("Starting streamed assistant run on thread: " + threadId);
+            AssistantStreamListener run = runAssistant(threadId, deltaConsumer);
+            if (run.runId() == null) {
                 LOGGER.severe("Error: Failed to start assistant run.");
-                return "Error: Failed to start assistant run.";
+                return Turn.failure("Error: Failed to start assistant run.");
             }
 
-            LOGGER.info("Waiting for assistant completion on thread: " + singleThreadId + ", run ID: " + runId);
-            boolean completed = waitForCompletion(singleThreadId);
-            if (!completed) {
+            String runId = run.runId();
+            Set<String> calledTools = new HashSet<>();
+
+            // Tool calls arrive as requires_action events; each submission streams the rest of the run
+            while (run.status() == AssistantStreamListener.Status.REQUIRES_ACTION) {
+                LOGGER.info("assistant requires action on thread: " + threadId);
+                run = handleFunctionCall(threadId, run.run(), calledTools, deltaConsumer);
+            }
+
+            if (run.status() != AssistantStreamListener.Status.COMPLETED) {
                 LOGGER.severe("Error: Assistant did not complete.");
-                return "Error: Assistant did not complete.";
+                return Turn.failure("Error: Assistant did not complete.");
+            }
+
+            boolean shared = SHARED_TOOLS.containsAll(calledTools);
+            String streamedResponse = run.messageText();
+            if (streamedResponse != null) {
+                // Remove potential JSON string escaping
+                return new Turn(streamedResponse.replace("\\n", "\n").replace("\\\"", "\""), true, shared);
             }
 
-            LOGGER.info("Fetching assistant response for thread: " + singleThreadId);
+            LOGGER.info("No text in run stream, fetching assistant response for thread: " + threadId);
             // Now call fetchAssistantResponse with the threadId, current runId, and lastUserTimestamp.
-            return fetchAssistantResponse(singleThreadId, runId, lastUserTimestamp);
+            return fetchAssistantResponse(threadId, runId, lastUserTimestamp, shared);
 
-        } catch (IOException | InterruptedException e) {
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             LOGGER.severe("Exception: " + e.getMessage());
-            return "Error: " + e.getMessage();
+            return Turn.failure("Error: " + e.getMessage());
         }
     }
 
-    private String runAssistant(String threadId) throws IOException {
-        JsonObject runData = new JsonObject();
-        runData.addProperty("assistant_id", assistantId);
-        runData.addProperty("response_format", "auto");
-
-        // Define valid function schemas
-        JsonArray tools = new JsonArray();
-
-        // getBalance function
-        tools.add(createFunctionSchema("getBalance",
-                "Retrieve the user's Binance account balance",
-                new String[]{}, new String[]{}));
-
-        // place_order function
-        tools.add(createFunctionSchema("place_order",
-                "Execute a trade on Binance",
-                new String[]{"symbol", "side", "amount"},
-                new String[]{"symbol", "side", "amount"},
-                new String[]{"BUY", "SELL"}));
-
-        // get_profit_loss function
-        tools.add(createFunctionSchema("get_profit_loss",
-                "Check unrealized profit/loss for an asset",
-                new String[]{"symbol"},
-                new String[]{"symbol"}));
-
-        // fetch_trade_history function
-        tools.add(createFunctionSchema("fetch_trade_history",
-                "Retrieve past executed trades",
-                new String[]{"limit"},
-                new String[]{"limit"}));
-
-        // cancel_order function
-        tools.add(createFunctionSchema("cancel_order",
-                "Cancel an open Binance order",
-                new String[]{"orderId"},
-                new String[]{"orderId"}));
-
-        // get_top_movers function
-        tools.add(createFunctionSchema("get_top_movers",
-                "Retrieve the top moving cryptocurrencies by percentage change",
-                new String[]{"timeframe", "limit"},
-                new String[]{"timeframe", "limit"},
-                new String[]{"1h", "24h", "7d"}));
-
-        // create_widget function
-        tools.add(createFunctionSchema("create_widget",
-                "Generate a widget for the user based on their request",
-                new String[]{"type", "assets", "timeframe", "startDate", "endDate", "isBuy"},
-                new String[]{"type", "assets", "timeframe", "startDate", "endDate", "isBuy"},
-                new String[]{"PROFIT_LOSS", "QUICK_TRADE", "MARKET_OVERVIEW", "PORTFOLIO"}));
-
-        tools.add(createFunctionSchema("general_investment_advice",
-                "Provides general investment advice based on user input",
-                new String[]{"textPrompt"},
-                new String[]{"textPrompt"}));
-
-        runData.add("tools", tools);
-        runData.addProperty("tool_choice", "auto");
-        runData.addProperty("parallel_tool_calls", true);
-
+    private AssistantStreamListener runAssistant(String threadId, Consumer<String> deltaConsumer) throws IOException {
+        // Tool schemas are serialized once by the registry, the run body is the same for every run
         Request request = new Request.Builder()
-                .url(OPENAI_THREADS_URL + "/" + threadId + "/runs")
-                .post(RequestBody.create(MediaType.parse("application/json"), runData.toString()))
+                .url(threadsUrl() + "/" + threadId + "/runs")
+                .post(RequestBody.create(toolRegistry.runPayload(assistantId), JSON))
                 .addHeader("Authorization", "Bearer " + apiKey)
                 .addHeader("Content-Type", "application/json")
                 .addHeader("OpenAI-Beta", "assistants=v2")
                 .build();
 
-        Response response = client.newCall(request).execute();
-        if (!response.isSuccessful()) {
-            LOGGER.severe("error running assistant: " + response.body().string());
-            return null;
-        }
-
-        JsonObject responseBody = JsonParser.parseString(response.body().string()).getAsJsonObject();
-        return responseBody.get("id").getAsString();
+        return stream(request, deltaConsumer);
     }
 
-    private boolean waitForCompletion(String threadId) throws IOException, InterruptedException {
-        String url = OPENAI_THREADS_URL + "/" + threadId + "/runs";
-        LOGGER.info("waiting for assistant completion on thread: " + threadId);
-
-        int maxRetries = 10;
-        int retryCount = 0;
-
-        while (retryCount < maxRetries) {
-            Request request = new Request.Builder()
-                    .url(url)
-                    .get()
-                    .addHeader("Authorization", "Bearer " + apiKey)
-                    .addHeader("OpenAI-Beta", "assistants=v2")
-                    .build();
-
-            Response response = client.newCall(request).execute();
-            if (!response.isSuccessful()) {
-                LOGGER.severe("error polling assistant run: " + response.body().string());
-                return false;
-            }
-
-            String responseString = response.body().string();
-            LOGGER.info("assistant run status response: " + responseString);
+    /**
+     * Executes a streaming Assistants API call and waits until the run completes, fails or needs tool
+     * outputs. Events are consumed on the OkHttp dispatcher as they arrive.
+     */
+    private AssistantStreamListener stream(Request request, Consumer<String> deltaConsumer) throws IOException {
+        AssistantStreamListener listener = new AssistantStreamListener(deltaConsumer);
+        EventSource eventSource = EventSources.createFactory(client).newEventSource(request, listener);
 
-            JsonObject responseBody = JsonParser.parseString(responseString).getAsJsonObject();
-            JsonArray runs = responseBody.getAsJsonArray("data");
-
-            if (runs == null || runs.size() == 0) {
-                LOGGER.severe("no assistant run found for thread: " + threadId);
-                return false;
-            }
-
-            for (JsonElement runElement : runs) {
-                JsonObject run = runElement.getAsJsonObject();
-                String status = run.get("status").getAsString();
-
-                switch (status) {
-                    case "completed":
-                        return true;
-                    case "requires_action":
-                        LOGGER.info("assistant requires action on thread: " + threadId);
-                        return handleFunctionCall(threadId, run);
-                    case "failed":
-                        LOGGER.severe("Run failed: " + run.toString());
-                        return false;
-                    case "expired":
-                        LOGGER.severe("Run expired: " + run.toString());
-                        return false;
-                    case "cancelled":
-                        LOGGER.severe("Run was cancelled: " + run.toString());
-                        return false;
-                    default:
-                        // in_progress, queued, etc.
-                        LOGGER.info("Run status: " + status + ", waiting...");
-                        break;
-                }
+        try {
+            if (!listener.awaitClosed(streamTimeoutSeconds, TimeUnit.SECONDS)) {
+                eventSource.cancel();
+                listener.timedOut();
             }
-
-            retryCount++;
-            TimeUnit.SECONDS.sleep(5);
+        } catch (InterruptedException e) {
+            eventSource.cancel();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while streaming assistant run");
         }
-
-        LOGGER.severe("timeout: assistant did not complete within expected time.");
-        return false;
+        return listener;
     }
 
-    private String fetchAssistantResponse(String threadId, String currentRunId, long lastUserTimestamp) throws IOException, InterruptedException {
-        String url = OPENAI_THREADS_URL + "/" + threadId + "/messages";
+    private Turn fetchAssistantResponse(String threadId, String currentRunId, long lastUserTimestamp,
+                                        boolean shared) throws IOException, InterruptedException {
+        String url = threadsUrl() + "/" + threadId + "/messages";
         int maxRetries = 5; // Reduced from 10
         int retryCount = 0;
 
         while (retryCount < maxRetries) {
-            // Wait if there's an active run
-            String activeRunId = getActiveRunId(threadId);
-            if (activeRunId != null) {
-                LOGGER.info("Found active run while fetching response. Waiting for completion...");
-                boolean completed = waitForCompletion(threadId);
-                if (!completed) {
-                    return "{\"error\": \"Assistant run did not complete successfully.\"}";
-                }
-            }
-
             Request request = new Request.Builder()
                     .url(url)
                     .get()
@@ -260,7 +240,7 @@ public class AIService {
             try (Response response = client.newCall(request).execute()) {
                 if (!response.isSuccessful()) {
                     LOGGER.severe("Error fetching assistant response: " + response.body().string());
-                    return "{\"error\": \"Failed to retrieve response.\"}";
+                    return Turn.failure("{\"error\": \"Failed to retrieve response.\"}");
                 }
 
                 String responseBodyString = response.body().string();
@@ -310,7 +290,7 @@ public class AIService {
 
                     LOGGER.info("Parsed raw response: " + rawResponse);
 
-                    return rawResponse;
+                    return new Turn(rawResponse, true, shared);
                 }
 
                 // If no suitable message found
@@ -319,56 +299,34 @@ public class AIService {
                 retryCount++;
             } catch (Exception e) {
                 LOGGER.severe("Exception in fetchAssistantResponse: " + e.getMessage());
-                return "{\"error\": \"" + e.getMessage() + "\"}";
+                return Turn.failure("{\"error\": \"" + e.getMessage() + "\"}");
             }
         }
 
-        return "{\"error\": \"No valid assistant response found after multiple attempts.\"}";
+        return Turn.failure("{\"error\": \"No valid assistant response found after multiple attempts.\"}");
     }
 
-    private boolean submitFunctionOutputs(String threadId, String runId, List<JsonObject> toolOutputs) throws IOException {
+    private AssistantStreamListener submitFunctionOutputs(String threadId, String runId, List<JsonObject> toolOutputs,
+                                                          Consumer<String> deltaConsumer) throws IOException {
         JsonObject requestBody = new JsonObject();
         requestBody.add("tool_outputs", JsonParser.parseString(toolOutputs.toString()));
+        requestBody.addProperty("stream", true);
 
         Request request = new Request.Builder()
-                .url(OPENAI_THREADS_URL + "/" + threadId + "/runs/" + runId + "/submit_tool_outputs")
+                .url(threadsUrl() + "/" + threadId + "/runs/" + runId + "/submit_tool_outputs")
                 .post(RequestBody.create(MediaType.parse("application/json"), requestBody.toString()))
                 .addHeader("Authorization", "Bearer " + apiKey)
                 .addHeader("Content-Type", "application/json")
                 .addHeader("OpenAI-Beta", "assistants=v2")
                 .build();
 
-        try (Response response = client.newCall(request).execute()) {
-            String responseString = response.body().string();
-
-            if (!response.isSuccessful()) {
-                if (response.code() == 409) {
-                    LOGGER.warning("Conflict while submitting function outputs - run may have completed or been cancelled");
-                    return false;
-                }
-                LOGGER.severe("error submitting function outputs: " + responseString);
-                return false;
-            }
-
-            JsonObject responseBody = JsonParser.parseString(responseString).getAsJsonObject();
-            String status = responseBody.get("status").getAsString();
-
-            if ("failed".equals(status) || "cancelled".equals(status) || "expired".equals(status)) {
-                LOGGER.severe("Run entered terminal state: " + status);
-                return false;
-            }
-
-            LOGGER.info("successfully submitted function outputs. Run status: " + status);
-            return true;
-        } catch (Exception e) {
-            LOGGER.severe("Exception while submitting function outputs: " + e.getMessage());
-            return false;
-        }
+        LOGGER.info("submitting function outputs for run: " + runId);
+        return stream(request, deltaConsumer);
     }
 
     private boolean cancelActiveRun(String threadId, String runId) throws IOException {
         Request request = new Request.Builder()
-                .url(OPENAI_THREADS_URL + "/" + threadId + "/runs/" + runId + "/cancel")
+                .url(threadsUrl() + "/" + threadId + "/runs/" + runId + "/cancel")
                 .post(RequestBody.create(MediaType.parse("application/json"), "{}"))
                 .addHeader("Authorization", "Bearer " + apiKey)
                 .addHeader("Content-Type", "application/json")
@@ -385,7 +343,7 @@ public class AIService {
     }
 
     private String getActiveRunId(String threadId) throws IOException {
-        String url = OPENAI_THREADS_URL + "/" + threadId + "/runs";
+        String url = threadsUrl() + "/" + threadId + "/runs";
 
         Request request = new Request.Builder()
                 .url(url)
@@ -423,7 +381,7 @@ public class AIService {
 
     public String createThread() throws IOException {
         Request request = new Request.Builder()
-                .url(OPENAI_THREADS_URL)
+                .url(threadsUrl())
                 .post(RequestBody.create(MediaType.parse("application/json"), "{}"))
                 .addHeader("Authorization", "Bearer " + apiKey)
                 .addHeader("Content-Type", "application/json")
@@ -441,14 +399,14 @@ public class AIService {
         }
     }
 
-    private boolean addMessageToThread(String threadId, String userMessage) throws IOException {
+    private boolean addMessageToThread(String threadId, String role, String text) throws IOException {
         JsonObject messageData = new JsonObject();
-        messageData.addProperty("role", "user");
+        messageData.addProperty("role", role);
 
         JsonArray contentArray = new JsonArray();
         JsonObject contentObject = new JsonObject();
         contentObject.addProperty("type", "text");
-        contentObject.addProperty("text", userMessage);
+        contentObject.addProperty("text", text);
         contentArray.add(contentObject);
 
         messageData.add("content", contentArray);
@@ -456,7 +414,7 @@ public class AIService {
         LOGGER.info("Sending message to thread: " + threadId + " -> " + messageData);
 
         Request request = new Request.Builder()
-                .url(OPENAI_THREADS_URL + "/" + threadId + "/messages")
+                .url(threadsUrl() + "/" + threadId + "/messages")
                 .post(RequestBody.create(MediaType.parse("application/json"), messageData.toString()))
                 .addHeader("Authorization", "Bearer " + apiKey)
                 .addHeader("Content-Type", "application/json")
@@ -476,101 +434,39 @@ public class AIService {
         }
     }
 
-    private boolean handleFunctionCall(String threadId, JsonObject run) throws IOException {
+    private AssistantStreamListener handleFunctionCall(String threadId, JsonObject run, Set<String> calledTools,
+                                                       Consumer<String> deltaConsumer) throws IOException {
         JsonObject requiredAction = run.getAsJsonObject("required_action");
         if (requiredAction == null || !requiredAction.has("submit_tool_outputs")) {
             LOGGER.severe("unexpected action required by assistant");
-            return false;
+            return AssistantStreamListener.failed();
         }
 
         JsonArray toolCalls = requiredAction.getAsJsonObject("submit_tool_outputs").getAsJsonArray("tool_calls");
         if (toolCalls == null || toolCalls.size() == 0) {
             LOGGER.severe("no tool calls found in required action");
-            return false;
+            return AssistantStreamListener.failed();
         }
 
-        List<JsonObject> toolOutputs = new ArrayList<>();
+        List<ToolCallExecutor.ToolCall> calls = new ArrayList<>(toolCalls.size());
         for (JsonElement toolCallElement : toolCalls) {
             JsonObject toolCall = toolCallElement.getAsJsonObject();
             JsonObject functionData = toolCall.getAsJsonObject("function");
 
-            String functionName = functionData.get("name").getAsString();
-            JsonObject arguments = JsonParser.parseString(functionData.get("arguments").getAsString()).getAsJsonObject();
-
-            LOGGER.info("executing function: " + functionName + " with arguments: " + arguments.toString());
-
-            String functionResponse = functionService.handleFunctionCall(functionName, arguments);
-
-            JsonObject toolOutput = new JsonObject();
-            toolOutput.addProperty("tool_call_id", toolCall.get("id").getAsString());
-            toolOutput.addProperty("output", functionResponse);
-            toolOutputs.add(toolOutput);
-        }
-
-        String runId = getActiveRunId(threadId);
-        if (runId == null) {
-            LOGGER.severe("no active run found for thread: " + threadId);
-            return false;
+            // Arguments stay raw JSON, the dispatcher binds them straight to the handler's parameters
+            String name = functionData.get("name").getAsString();
+            calledTools.add(name);
+            calls.add(new ToolCallExecutor.ToolCall(toolCall.get("id").getAsString(), name,
+                    functionData.get("arguments").getAsString()));
         }
-        return submitFunctionOutputs(threadId, runId, toolOutputs);
-    }
-
-    private JsonObject createFunctionSchema(String name, String description, String[] requiredParams, String[] paramNames) {
-        return createFunctionSchema(name, description, requiredParams, paramNames, null);
-    }
-
-    private JsonObject createFunctionSchema(String name, String description, String[] requiredParams, String[] paramNames, String[] enumValues) {
-        JsonObject function = new JsonObject();
-        function.addProperty("type", "function");
 
-        JsonObject details = new JsonObject();
-        details.addProperty("name", name);
-        details.addProperty("description", description);
+        // Independent calls run concurrently; all outputs go back in a single submission
+        List<JsonObject> toolOutputs = toolCallExecutor.execute(calls);
 
-        JsonObject params = new JsonObject();
-        params.addProperty("type", "object");
-
-        JsonObject properties = new JsonObject();
-
-        if (paramNames != null) {
-            for (String paramName : paramNames) {
-                if (enumValues != null && paramName.equals("type")) {
-                    properties.add(paramName, createEnumProperty(enumValues));
-                } else {
-                    properties.add(paramName, createStringOrIntegerProperty(paramName));
-                }
-            }
-        }
-
-        params.add("properties", properties);
-
-        if (requiredParams != null) {
-            params.add("required", JsonParser.parseString(gson.toJson(requiredParams)));
-        } else {
-            params.add("required", new JsonArray());
-        }
-
-        params.addProperty("additionalProperties", false);
-
-        details.add("parameters", params);
-        function.add("function", details);
-        return function;
-    }
-
-    private JsonObject createStringOrIntegerProperty(String paramName) {
-        JsonObject property = new JsonObject();
-        if (paramName.equals("orderId") || paramName.equals("limit")) {
-            property.addProperty("type", "integer");
-        } else {
-            property.addProperty("type", "string");
-        }
-        return property;
+        return submitFunctionOutputs(threadId, run.get("id").getAsString(), toolOutputs, deltaConsumer);
     }
 
-    private JsonObject createEnumProperty(String[] values) {
-        JsonObject property = new JsonObject();
-        property.addProperty("type", "string");
-        property.add("enum", JsonParser.parseString(gson.toJson(values)));
-        return property;
+    private String threadsUrl() {
+        return openAiBaseUrl + "/threads";
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,56 @@
+package com.investly.app.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The assets the portfolio tracks, in display order, with their display names.
+ * <p>
+ * Configured as a comma-separated list of {@code ASSET:Name} entries; an entry without a name is shown
+ * by its ticker.
+ */
+@Component
+public class AssetUniverse {
+
+    static final String DEFAULT_ASSETS = "BTC:Bitcoin,ETH:Ethereum,XRP:Ripple,DOGE:Dogecoin,ADA:Cardano,"
+            + "BNB:Binance Coin,SOL:Solana,MATIC:Polygon,DOT:Polkadot,LTC:Litecoin";
+
+    private final Map<String, String> namesByAsset;
+
+    @Autowired
+    public AssetUniverse(@Value("${binance.portfolio.assets:" + DEFAULT_ASSETS + "}") String assets) {
+        Map<String, String> names = new LinkedHashMap<>();
+        for (String entry : assets.split(",")) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int separator = trimmed.indexOf(':');
+            String asset = (separator < 0 ? trimmed : trimmed.substring(0, separator)).trim().toUpperCase();
+            String name = separator < 0 ? asset : trimmed.substring(separator + 1).trim();
+            names.put(asset, name.isEmpty() ? asset : name);
+        }
+        if (names.isEmpty()) {
+            throw new IllegalStateException("binance.portfolio.assets must list at least one asset");
+        }
+        this.namesByAsset = Collections.unmodifiableMap(names);
+    }
+
+    public boolean contains(String asset) {
+        return namesByAsset.containsKey(asset);
+    }
+
+    public String displayName(String asset) {
+        return namesByAsset.getOrDefault(asset, asset);
+    }
+
+    public List<String> assets() {
+        return List.copyOf(namesByAsset.keySet());
+    }
+}
@@ -0,0 +1,12 @@
+package com.investly.app.services;
+
+/**
+ * Thrown when an assistant turn is refused because every turn slot and queue place is taken. Callers
+ * should retry later; the HTTP API answers 503 with Retry-After.
+ */
+public class AssistantBusyException extends RuntimeException {
+
+    public AssistantBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,215 @@
+package com.investly.app.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared cache of assistant answers to general questions, so "what are the top movers today" asked by
+ * many users pays for one Assistants API run.
+ * <p>
+ * Prompts are normalized (case, punctuation, filler words) and classified. Market questions are kept
+ * for a short TTL and also dropped as soon as a price they depend on has moved more than
+ * {@code max-price-move} since the answer was stored; advice questions are kept longer. Anything that
+ * mentions the user's own account or could place an order is never cached. Entries are bounded by
+ * Caffeine's W-TinyLFU eviction, and hits, misses and evictions are exported as
+ * {@code cache.*{cache=assistant.responses}} metrics.
+ */
+@Component
+public class AssistantResponseCache {
+
+    enum Category { MARKET, ADVICE }
+
+    private static final String QUOTE_ASSET = "USDT";
+
+    // Words that make an answer depend on the user's account or trigger a side effect
+    private static final Set<String> PERSONAL_WORDS = Set.of(
+            "my", "mine", "i", "our", "balance", "balances", "portfolio", "holdings",
+            "order", "orders", "buy", "sell", "cancel", "trade", "trades", "history", "pnl", "profit", "loss",
+            "position", "positions", "widget", "bought", "sold");
+    private static final Set<String> MARKET_WORDS = Set.of(
+            "price", "prices", "mover", "movers", "gainer", "gainers", "loser", "losers", "market", "markets",
+            "trending", "today", "now", "worth", "volume", "rally", "dump", "pump");
+    private static final Set<String> ADVICE_WORDS = Set.of(
+            "advice", "invest", "investing", "investment", "investments", "strategy", "strategies", "explain",
+            "diversify", "diversification", "risk", "risks", "beginner", "learn", "difference", "dca");
+    private static final Set<String> FILLER_WORDS = Set.of(
+            "please", "pls", "hey", "hi", "hello", "thanks", "thank", "you", "can", "could", "would", "kindly",
+            "give", "tell", "show", "me", "what", "whats", "is", "are", "the", "a", "an");
+
+    record Prompt(Category category, String key, List<String> symbols) {
+    }
+
+    private record Entry(Category category, String response, List<String> symbols, double[] prices) {
+    }
+
+    private final Cache<String, Entry> cache;
+    private final PriceBook priceBook;
+    private final AssetUniverse assetUniverse;
+    private final double maxPriceMove;
+    private final Counter bypassed;
+    private final Counter invalidated;
+
+    @Autowired
+    public AssistantResponseCache(@Value("${assistant.cache.max-size:1000}") long maxSize,
+                                  @Value("${assistant.cache.market-ttl-ms:60000}") long marketTtlMillis,
+                                  @Value("${assistant.cache.advice-ttl-ms:21600000}") long adviceTtlMillis,
+                                  @Value("${assistant.cache.max-price-move:0.005}") double maxPriceMove,
+                                  PriceBook priceBook,
+                                  AssetUniverse assetUniverse,
+                                  MeterRegistry meterRegistry) {
+        this.priceBook = priceBook;
+        this.assetUniverse = assetUniverse;
+        this.maxPriceMove = maxPriceMove;
+        long marketTtlNanos = TimeUnit.MILLISECONDS.toNanos(marketTtlMillis);
+        long adviceTtlNanos = TimeUnit.MILLISECONDS.toNanos(adviceTtlMillis);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return entry.category() == Category.MARKET ? marketTtlNanos : adviceTtlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, entry, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "assistant.responses");
+        this.bypassed = Counter.builder("assistant.cache.bypassed")
+                .description("Assistant prompts not eligible for the response cache")
+                .register(meterRegistry);
+        this.invalidated = Counter.builder("assistant.cache.invalidated")
+                .description("Cached market answers dropped because prices moved")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Classifies the prompt; empty if its answer must not be shared.
+     */
+    Optional<Prompt> classify(String userMessage) {
+        if (userMessage == null) {
+            return Optional.empty();
+        }
+        String[] words = userMessage.toLowerCase(Locale.ROOT).split("[^a-z0-9]+");
+        StringBuilder key = new StringBuilder(userMessage.length());
+        List<String> symbols = new ArrayList<>();
+        boolean market = false;
+        boolean advice = false;
+        for (String word : words) {
+            if (word.isEmpty() || FILLER_WORDS.contains(word)) {
+                continue;
+            }
+            if (PERSONAL_WORDS.contains(word)) {
+                return Optional.empty();
+            }
+            market |= MARKET_WORDS.contains(word);
+            advice |= ADVICE_WORDS.contains(word);
+            String asset = asset(word);
+            if (asset != null && !symbols.contains(asset + QUOTE_ASSET)) {
+                symbols.add(asset + QUOTE_ASSET);
+            }
+            if (key.length() > 0) {
+                key.append(' ');
+            }
+            // "bitcoin" and "btc" are the same question
+            key.append(asset != null ? asset.toLowerCase(Locale.ROOT) : word);
+        }
+        if (!market && !advice) {
+            return Optional.empty();
+        }
+        // A market answer without a named asset covers the whole tracked market
+        Category category = market ? Category.MARKET : Category.ADVICE;
+        if (category == Category.MARKET && symbols.isEmpty()) {
+            for (String asset : assetUniverse.assets()) {
+                symbols.add(asset + QUOTE_ASSET);
+            }
+        }
+        return Optional.of(new Prompt(category, category.name() + ':' + key, List.copyOf(symbols)));
+    }
+
+    /**
+     * Cached answer for the prompt, if any and still valid.
+     */
+    public Optional<String> get(String userMessage) {
+        Optional<Prompt> prompt = classify(userMessage);
+        if (prompt.isEmpty()) {
+            bypassed.increment();
+            return Optional.empty();
+        }
+        String key = prompt.get().key();
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.category() == Category.MARKET && pricesMoved(entry)) {
+            cache.asMap().remove(key, entry);
+            invalidated.increment();
+            return Optional.empty();
+        }
+        return Optional.of(entry.response());
+    }
+
+    /**
+     * Stores the answer if the prompt is cacheable, together with the prices it was given at.
+     */
+    public void put(String userMessage, String response) {
+        classify(userMessage).ifPresent(prompt -> {
+            List<String> symbols = prompt.category() == Category.MARKET ? prompt.symbols() : List.of();
+            double[] prices = new double[symbols.size()];
+            for (int i = 0; i < prices.length; i++) {
+                prices[i] = priceBook.lastPrice(symbols.get(i));
+            }
+            cache.put(prompt.key(), new Entry(prompt.category(), response, symbols, prices));
+        });
+    }
+
+    private boolean pricesMoved(Entry entry) {
+        for (int i = 0; i < entry.prices().length; i++) {
+            double then = entry.prices()[i];
+            if (then <= 0) {
+                continue; // No price when the answer was stored, the TTL bounds it
+            }
+            double now = priceBook.lastPrice(entry.symbols().get(i));
+            if (now > 0 && Math.abs(now - then) / then > maxPriceMove) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String asset(String word) {
+        String ticker = word.toUpperCase(Locale.ROOT);
+        if (assetUniverse.contains(ticker)) {
+            return ticker;
+        }
+        for (String asset : assetUniverse.assets()) {
+            if (assetUniverse.displayName(asset).equalsIgnoreCase(word)) {
+                return asset;
+            }
+        }
+        return null;
+    }
+}
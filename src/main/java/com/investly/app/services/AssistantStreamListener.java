@@ -0,0 +1,165 @@
+package com.investly.app.services;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import okhttp3.sse.EventSource;
+import okhttp3.sse.EventSourceListener;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Collects the outcome of one streamed Assistants API call (a run, or a tool output submission).
+ * <p>
+ * The stream ends after a terminal run event or after {@code thread.run.requires_action}; in the latter
+ * case the caller executes the tools and submits the outputs, which opens the next stream.
+ */
+class AssistantStreamListener extends EventSourceListener {
+
+    private static final Logger LOGGER = Logger.getLogger(AssistantStreamListener.class.getName());
+
+    enum Status { IN_PROGRESS, REQUIRES_ACTION, COMPLETED, FAILED }
+
+    private final Consumer<String> deltaConsumer;
+    private final StringBuilder streamedText = new StringBuilder();
+    private final CountDownLatch closed = new CountDownLatch(1);
+
+    private Status status = Status.IN_PROGRESS;
+    private String runId;
+    private JsonObject run;
+    private String messageText;
+
+    AssistantStreamListener(Consumer<String> deltaConsumer) {
+        this.deltaConsumer = deltaConsumer;
+    }
+
+    static AssistantStreamListener failed() {
+        AssistantStreamListener listener = new AssistantStreamListener(null);
+        listener.status = Status.FAILED;
+        return listener;
+    }
+
+    @Override
+    public void onEvent(EventSource eventSource, String id, String type, String data) {
+        if (type == null || "done".equals(type)) {
+            return;
+        }
+
+        switch (type) {
+            case "thread.run.created":
+            case "thread.run.queued":
+            case "thread.run.in_progress":
+                run = JsonParser.parseString(data).getAsJsonObject();
+                runId = run.get("id").getAsString();
+                break;
+            case "thread.run.requires_action":
+                run = JsonParser.parseString(data).getAsJsonObject();
+                runId = run.get("id").getAsString();
+                status = Status.REQUIRES_ACTION;
+                break;
+            case "thread.run.completed":
+                status = Status.COMPLETED;
+                break;
+            case "thread.run.failed":
+            case "thread.run.cancelled":
+            case "thread.run.expired":
+            case "thread.run.incomplete":
+                LOGGER.severe("Run ended with " + type + ": " + data);
+                status = Status.FAILED;
+                break;
+            case "thread.message.delta":
+                onMessageDelta(JsonParser.parseString(data).getAsJsonObject());
+                break;
+            case "thread.message.completed":
+                onMessageCompleted(JsonParser.parseString(data).getAsJsonObject());
+                break;
+            case "error":
+                LOGGER.severe("Assistant stream error: " + data);
+                status = Status.FAILED;
+                break;
+            default:
+                // run steps and other progress events carry nothing we need
+                break;
+        }
+    }
+
+    @Override
+    public void onClosed(EventSource eventSource) {
+        closed.countDown();
+    }
+
+    @Override
+    public void onFailure(EventSource eventSource, Throwable t, okhttp3.Response response) {
+        LOGGER.severe("Assistant stream failed: " + (t != null ? t.getMessage() : "HTTP " + response.code()));
+        status = Status.FAILED;
+        closed.countDown();
+    }
+
+    /**
+     * Blocks until the stream has ended. Returns false if it is still open after the timeout.
+     */
+    boolean awaitClosed(long timeout, TimeUnit unit) throws InterruptedException {
+        return closed.await(timeout, unit);
+    }
+
+    void timedOut() {
+        LOGGER.severe("Assistant stream timed out");
+        status = Status.FAILED;
+    }
+
+    private void onMessageDelta(JsonObject event) {
+        JsonArray content = event.getAsJsonObject("delta").getAsJsonArray("content");
+        if (content == null) {
+            return;
+        }
+        for (JsonElement part : content) {
+            JsonObject text = part.getAsJsonObject().getAsJsonObject("text");
+            if (text != null && text.has("value")) {
+                String delta = text.get("value").getAsString();
+                streamedText.append(delta);
+                if (deltaConsumer != null) {
+                    deltaConsumer.accept(delta);
+                }
+            }
+        }
+    }
+
+    private void onMessageCompleted(JsonObject message) {
+        if (!"assistant".equals(message.get("role").getAsString())) {
+            return;
+        }
+        JsonArray content = message.getAsJsonArray("content");
+        if (content != null && content.size() > 0) {
+            JsonObject first = content.get(0).getAsJsonObject();
+            if ("text".equals(first.get("type").getAsString())) {
+                messageText = first.getAsJsonObject("text").get("value").getAsString();
+            }
+        }
+    }
+
+    Status status() {
+        return status;
+    }
+
+    String runId() {
+        return runId;
+    }
+
+    JsonObject run() {
+        return run;
+    }
+
+    /**
+     * Final assistant text, falling back to the concatenated deltas if no completed message was seen.
+     */
+    String messageText() {
+        if (messageText != null) {
+            return messageText;
+        }
+        return streamedText.length() > 0 ? streamedText.toString() : null;
+    }
+}
@@ -0,0 +1,19 @@
+package com.investly.app.services;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Exposes a service method to the assistant as a function tool. The tool schema is derived from the
+ * method's {@link ToolParam} parameters by {@link ToolRegistry}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface AssistantTool {
+
+    String name();
+
+    String description();
+}
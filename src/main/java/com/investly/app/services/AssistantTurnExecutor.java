@@ -0,0 +1,79 @@
+package com.investly.app.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs assistant turns off the request threads.
+ * <p>
+ * A turn waits on OpenAI (and, through tools, Binance) for seconds, so the HTTP and STOMP handlers hand
+ * it to this executor and return a future; Tomcat and the clientInboundChannel threads are released
+ * immediately. At most {@code max-concurrency} turns run at once and {@code max-queued} wait; beyond
+ * that a turn is refused with {@link AssistantBusyException} instead of piling up, so a burst of chats
+ * degrades into fast 503s rather than exhausting memory or upstream limits.
+ */
+@Component
+public class AssistantTurnExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final Counter rejections;
+
+    @Autowired
+    public AssistantTurnExecutor(@Value("${assistant.turns.max-concurrency:64}") int maxConcurrency,
+                                 @Value("${assistant.turns.max-queued:256}") int maxQueued,
+                                 MeterRegistry meterRegistry) {
+        BlockingQueue<Runnable> queue = maxQueued > 0 ? new ArrayBlockingQueue<>(maxQueued) : new SynchronousQueue<>();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 60, TimeUnit.SECONDS, queue, runnable -> {
+            Thread thread = new Thread(runnable, "assistant-turn-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Idle turn threads are released, a quiet instance does not keep max-concurrency threads around
+        executor.allowCoreThreadTimeOut(true);
+
+        Gauge.builder("assistant.turns.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Assistant turns currently running")
+                .register(meterRegistry);
+        Gauge.builder("assistant.turns.queued", executor, pool -> pool.getQueue().size())
+                .description("Assistant turns waiting for a free slot")
+                .register(meterRegistry);
+        this.rejections = Counter.builder("assistant.turns.rejections")
+                .description("Assistant turns refused because the executor was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Schedules the turn. The future fails with {@link AssistantBusyException} if no slot or queue place
+     * is free, and with the turn's own exception if it throws.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> turn) {
+        try {
+            return CompletableFuture.supplyAsync(turn, executor);
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            return CompletableFuture.failedFuture(
+                    new AssistantBusyException("The assistant is handling too many conversations, try again shortly"));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,13 @@
+package com.investly.app.services;
+
+/**
+ * Priority classes for Binance requests, highest priority first. When the request-weight budget is
+ * exhausted, queued requests are released in this order.
+ */
+public enum BinanceRequestClass {
+    ORDER,
+    ACCOUNT,
+    MARKET_DATA,
+    HISTORY,
+    BACKGROUND
+}
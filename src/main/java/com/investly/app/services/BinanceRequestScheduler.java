@@ -0,0 +1,309 @@
+package com.investly.app.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Single entry point for Binance REST calls that keeps us inside the exchange's rate limits.
+ * <p>
+ * Binance counts request weight and order count in fixed windows (1 minute, 10 seconds, 1 day) and
+ * answers 429, then 418 with an IP ban, once a window is exceeded. Each window is mirrored by a bucket
+ * that is refilled when the window rolls over. Callers wait in a priority queue (orders first, then
+ * account, market data, history and background refreshes) until their weight fits or their deadline
+ * passes. The X-MBX-USED-WEIGHT / X-MBX-ORDER-COUNT response headers are the exchange's own count and
+ * correct the local accounting, and Retry-After on a 429/418 pauses every caller.
+ */
+@Service
+public class BinanceRequestScheduler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BinanceRequestScheduler.class);
+
+    static final String USED_WEIGHT_HEADER = "X-MBX-USED-WEIGHT-1M";
+    static final String ORDER_COUNT_10S_HEADER = "X-MBX-ORDER-COUNT-10S";
+    static final String ORDER_COUNT_1D_HEADER = "X-MBX-ORDER-COUNT-1D";
+
+    /**
+     * Fixed window aligned to epoch multiples of its length, like Binance's own windows.
+     */
+    static final class Window {
+        final long limit;
+        final long lengthMillis;
+        long start;
+        long used;
+
+        Window(long limit, long lengthMillis) {
+            this.limit = limit;
+            this.lengthMillis = lengthMillis;
+        }
+
+        boolean roll(long now) {
+            long currentStart = now - now % lengthMillis;
+            if (currentStart != start) {
+                start = currentStart;
+                used = 0;
+                return true;
+            }
+            return false;
+        }
+
+        boolean fits(long amount) {
+            return used + amount <= limit;
+        }
+
+        long millisUntilReset(long now) {
+            return start + lengthMillis - now;
+        }
+    }
+
+    private static final class Waiter {
+        final BinanceRequestClass requestClass;
+        final long sequence;
+        final int weight;
+        final boolean order;
+
+        Waiter(BinanceRequestClass requestClass, long sequence, int weight, boolean order) {
+            this.requestClass = requestClass;
+            this.sequence = sequence;
+            this.weight = weight;
+            this.order = order;
+        }
+    }
+
+    private final OkHttpClient httpClient;
+    private final long maxWaitMillis;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Waiter> queue = new PriorityQueue<>(
+            Comparator.<Waiter, BinanceRequestClass>comparing(waiter -> waiter.requestClass)
+                    .thenComparingLong(waiter -> waiter.sequence));
+    private final Window weightWindow;
+    private final Window orders10sWindow;
+    private final Window ordersDayWindow;
+    private long sequence;
+    private long blockedUntil;
+    private long inFlightWeight;
+
+    private final Map<BinanceRequestClass, Timer> throttleTimers = new EnumMap<>(BinanceRequestClass.class);
+    private final Counter rejections;
+
+    @Autowired
+    public BinanceRequestScheduler(@Qualifier("binanceHttpClient") OkHttpClient httpClient,
+                                   @Value("${binance.rate-limit.weight-per-window:6000}") long weightLimit,
+                                   @Value("${binance.rate-limit.weight-window-ms:60000}") long weightWindowMillis,
+                                   @Value("${binance.rate-limit.orders-per-10s:100}") long ordersPer10s,
+                                   @Value("${binance.rate-limit.orders-per-day:200000}") long ordersPerDay,
+                                   @Value("${binance.rate-limit.max-wait-ms:10000}") long maxWaitMillis,
+                                   MeterRegistry meterRegistry) {
+        this.httpClient = httpClient;
+        this.weightWindow = new Window(weightLimit, weightWindowMillis);
+        this.orders10sWindow = new Window(ordersPer10s, TimeUnit.SECONDS.toMillis(10));
+        this.ordersDayWindow = new Window(ordersPerDay, TimeUnit.DAYS.toMillis(1));
+        this.maxWaitMillis = maxWaitMillis;
+
+        Gauge.builder("binance.scheduler.queue.depth", this, BinanceRequestScheduler::queueDepth)
+                .description("Binance requests waiting for rate-limit budget")
+                .register(meterRegistry);
+        Gauge.builder("binance.scheduler.weight.used", this, scheduler -> scheduler.weightWindow.used)
+                .description("Request weight used in the current window")
+                .register(meterRegistry);
+        for (BinanceRequestClass requestClass : BinanceRequestClass.values()) {
+            throttleTimers.put(requestClass, Timer.builder("binance.scheduler.throttle")
+                    .description("Time Binance requests spent queued for rate-limit budget")
+                    .tag("class", requestClass.name())
+                    .register(meterRegistry));
+        }
+        this.rejections = Counter.builder("binance.scheduler.rejections")
+                .description("Responses with HTTP 429 or 418 from Binance")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Waits for rate-limit budget, then executes the request. The caller owns (and must close) the
+     * returned response. POSTs in the ORDER class also count against the order-count limits.
+     */
+    public Response execute(BinanceRequestClass requestClass, int weight, Request request) throws IOException {
+        boolean order = requestClass == BinanceRequestClass.ORDER && "POST".equals(request.method());
+        acquire(requestClass, weight, order);
+
+        Response response;
+        try {
+            response = httpClient.newCall(request).execute();
+        } catch (IOException | RuntimeException e) {
+            settle(weight);
+            throw e;
+        }
+        observe(response, weight);
+        return response;
+    }
+
+    public int queueDepth() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void acquire(BinanceRequestClass requestClass, int weight, boolean order) throws IOException {
+        long startNanos = System.nanoTime();
+        long deadlineNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+
+        lock.lock();
+        try {
+            Waiter waiter = new Waiter(requestClass, sequence++, weight, order);
+            queue.add(waiter);
+            try {
+                while (true) {
+                    long now = System.currentTimeMillis();
+                    long waitMillis = queue.peek() == waiter ? millisUntilAdmitted(waiter, now) : Long.MAX_VALUE;
+                    if (waitMillis == 0) {
+                        consume(waiter);
+                        break;
+                    }
+
+                    long remainingNanos = deadlineNanos - System.nanoTime();
+                    if (remainingNanos <= 0) {
+                        throw new RateLimitTimeoutException("Binance rate limit: " + requestClass
+                                + " request not admitted within " + maxWaitMillis + " ms");
+                    }
+                    changed.awaitNanos(Math.min(remainingNanos, TimeUnit.MILLISECONDS.toNanos(waitMillis)));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for Binance rate limit", e);
+            } finally {
+                queue.remove(waiter);
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        throttleTimers.get(requestClass).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Returns 0 if the waiter fits in every window right now, otherwise how long until that may change
+    private long millisUntilAdmitted(Waiter waiter, long now) {
+        if (now < blockedUntil) {
+            return blockedUntil - now;
+        }
+
+        rollWeightWindow(now);
+        orders10sWindow.roll(now);
+        ordersDayWindow.roll(now);
+
+        long wait = 0;
+        if (!weightWindow.fits(waiter.weight)) {
+            wait = weightWindow.millisUntilReset(now);
+        }
+        if (waiter.order) {
+            if (!orders10sWindow.fits(1)) {
+                wait = Math.max(wait, orders10sWindow.millisUntilReset(now));
+            }
+            if (!ordersDayWindow.fits(1)) {
+                wait = Math.max(wait, ordersDayWindow.millisUntilReset(now));
+            }
+        }
+        return wait == 0 ? 0 : Math.max(wait, 1);
+    }
+
+    // Requests admitted just before a window boundary can reach the exchange after it and count there,
+    // so weight still in flight is carried into the new window
+    private void rollWeightWindow(long now) {
+        if (weightWindow.roll(now)) {
+            weightWindow.used = inFlightWeight;
+        }
+    }
+
+    private void consume(Waiter waiter) {
+        inFlightWeight += waiter.weight;
+        weightWindow.used += waiter.weight;
+        if (waiter.order) {
+            orders10sWindow.used++;
+            ordersDayWindow.used++;
+        }
+    }
+
+    private void settle(int weight) {
+        lock.lock();
+        try {
+            inFlightWeight -= weight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void observe(Response response, int weight) {
+        lock.lock();
+        try {
+            inFlightWeight -= weight;
+            long now = System.currentTimeMillis();
+            rollWeightWindow(now);
+            long sentAt = response.sentRequestAtMillis();
+            correct(weightWindow, response.header(USED_WEIGHT_HEADER), sentAt, now);
+            correct(orders10sWindow, response.header(ORDER_COUNT_10S_HEADER), sentAt, now);
+            correct(ordersDayWindow, response.header(ORDER_COUNT_1D_HEADER), sentAt, now);
+
+            if (response.code() == 429 || response.code() == 418) {
+                rejections.increment();
+                long retryAfterMillis = parseRetryAfterMillis(response.header("Retry-After"), now);
+                blockedUntil = Math.max(blockedUntil, now + retryAfterMillis);
+                LOGGER.warn("Binance rate limit hit (HTTP " + response.code() + "), pausing requests for "
+                        + retryAfterMillis + " ms");
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The exchange's count is authoritative and also includes requests made outside this JVM. Counts for
+    // requests sent in an earlier window are ignored, they say nothing about the current one.
+    private static void correct(Window window, String header, long sentAt, long now) {
+        if (header == null) {
+            return;
+        }
+        try {
+            window.roll(now);
+            if (sentAt - sentAt % window.lengthMillis != window.start) {
+                return;
+            }
+            window.used = Math.max(window.used, Long.parseLong(header.trim()));
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Ignoring malformed rate limit header: " + header);
+        }
+    }
+
+    private long parseRetryAfterMillis(String retryAfter, long now) {
+        if (retryAfter != null) {
+            try {
+                return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+            } catch (NumberFormatException e) {
+                LOGGER.warn("Ignoring malformed Retry-After header: " + retryAfter);
+            }
+        }
+        return weightWindow.millisUntilReset(now);
+    }
+}
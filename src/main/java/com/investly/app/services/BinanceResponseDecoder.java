@@ -0,0 +1,301 @@
+package com.investly.app.services;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.investly.app.dto.AccountBalance;
+import com.investly.app.dto.OrderResult;
+import com.investly.app.dto.SymbolFilters;
+import com.investly.app.dto.Trade;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming decoders for the large Binance REST payloads.
+ * <p>
+ * Each decoder reads the response body once with a {@link JsonReader}, keeps only the fields it needs
+ * and skips the rest without materializing them, so neither the raw body nor a JSON tree of it is ever
+ * held in memory. Binance encodes decimals as strings; they are parsed directly to doubles, or exactly to
+ * {@link FixedPoint} for the exchange filters the order path rounds with.
+ */
+public final class BinanceResponseDecoder {
+
+    private BinanceResponseDecoder() {
+    }
+
+    /**
+     * Filters per symbol from /api/v3/exchangeInfo.
+     */
+    public static Map<String, SymbolFilters> exchangeInfo(Reader body) throws IOException {
+        Map<String, SymbolFilters> filtersBySymbol = new HashMap<>();
+        try (JsonReader reader = new JsonReader(body)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!"symbols".equals(reader.nextName())) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    SymbolFilters filters = symbolFilters(reader);
+                    filtersBySymbol.put(filters.symbol(), filters);
+                }
+                reader.endArray();
+            }
+            reader.endObject();
+        }
+        return filtersBySymbol;
+    }
+
+    /**
+     * Balances from /api/v3/account, without the assets the account holds none of.
+     */
+    public static List<AccountBalance> nonZeroBalances(Reader body) throws IOException {
+        List<AccountBalance> balances = new ArrayList<>();
+        try (JsonReader reader = new JsonReader(body)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!"balances".equals(reader.nextName())) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    String asset = null;
+                    double free = 0;
+                    double locked = 0;
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        switch (reader.nextName()) {
+                            case "asset" -> asset = reader.nextString();
+                            case "free" -> free = reader.nextDouble();
+                            case "locked" -> locked = reader.nextDouble();
+                            default -> reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                    if (asset != null && (free > 0 || locked > 0)) {
+                        balances.add(new AccountBalance(asset, free, locked));
+                    }
+                }
+                reader.endArray();
+            }
+            reader.endObject();
+        }
+        return balances;
+    }
+
+    /**
+     * Feeds every entry of the bulk /api/v3/ticker/price array to the listener and returns the count.
+     */
+    public static int tickerPrices(Reader body, PriceStream.PriceListener listener) throws IOException {
+        int count = 0;
+        try (JsonReader reader = new JsonReader(body)) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                String symbol = null;
+                double price = 0;
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    switch (reader.nextName()) {
+                        case "symbol" -> symbol = reader.nextString();
+                        case "price" -> price = reader.nextDouble();
+                        default -> reader.skipValue();
+                    }
+                }
+                reader.endObject();
+                if (symbol != null) {
+                    listener.onPrice(symbol, price);
+                    count++;
+                }
+            }
+            reader.endArray();
+        }
+        return count;
+    }
+
+    /**
+     * Feeds the open and last price of every entry of the bulk /api/v3/ticker/24hr array to the listener
+     * and returns the count.
+     */
+    public static int dailyTickers(Reader body, MarketStatsEngine.DailyTickerListener listener) throws IOException {
+        int count = 0;
+        try (JsonReader reader = new JsonReader(body)) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                String symbol = null;
+                double openPrice = 0;
+                double lastPrice = 0;
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    switch (reader.nextName()) {
+                        case "symbol" -> symbol = reader.nextString();
+                        case "openPrice" -> openPrice = reader.nextDouble();
+                        case "lastPrice" -> lastPrice = reader.nextDouble();
+                        default -> reader.skipValue();
+                    }
+                }
+                reader.endObject();
+                if (symbol != null) {
+                    listener.onTicker(symbol, openPrice, lastPrice);
+                    count++;
+                }
+            }
+            reader.endArray();
+        }
+        return count;
+    }
+
+    /**
+     * Feeds every candle of an /api/v3/klines array to the listener and returns the count. Each candle is
+     * a positional array; only open time and OHLCV are read.
+     */
+    public static int klines(Reader body, KlineStore.KlineListener listener) throws IOException {
+        int count = 0;
+        try (JsonReader reader = new JsonReader(body)) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                reader.beginArray();
+                long openTime = reader.nextLong();
+                double open = reader.nextDouble();
+                double high = reader.nextDouble();
+                double low = reader.nextDouble();
+                double close = reader.nextDouble();
+                double volume = reader.nextDouble();
+                while (reader.hasNext()) {
+                    reader.skipValue();
+                }
+                reader.endArray();
+                listener.onKline(openTime, open, high, low, close, volume);
+                count++;
+            }
+            reader.endArray();
+        }
+        return count;
+    }
+
+    /**
+     * Trades from /api/v3/myTrades, oldest first as Binance returns them.
+     */
+    public static List<Trade> trades(Reader body) throws IOException {
+        List<Trade> trades = new ArrayList<>();
+        try (JsonReader reader = new JsonReader(body)) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                String symbol = null, commissionAsset = null;
+                long id = 0, orderId = 0, time = 0;
+                BigDecimal price = BigDecimal.ZERO, qty = BigDecimal.ZERO, quoteQty = BigDecimal.ZERO;
+                BigDecimal commission = BigDecimal.ZERO;
+                boolean isBuyer = false, isMaker = false;
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    switch (reader.nextName()) {
+                        case "symbol" -> symbol = reader.nextString();
+                        case "id" -> id = reader.nextLong();
+                        case "orderId" -> orderId = reader.nextLong();
+                        // Decimal strings, kept exact for the ledger
+                        case "price" -> price = new BigDecimal(reader.nextString());
+                        case "qty" -> qty = new BigDecimal(reader.nextString());
+                        case "quoteQty" -> quoteQty = new BigDecimal(reader.nextString());
+                        case "commission" -> commission = new BigDecimal(reader.nextString());
+                        case "commissionAsset" -> commissionAsset = reader.nextString();
+                        case "time" -> time = reader.nextLong();
+                        case "isBuyer" -> isBuyer = reader.nextBoolean();
+                        case "isMaker" -> isMaker = reader.nextBoolean();
+                        default -> reader.skipValue();
+                    }
+                }
+                reader.endObject();
+                trades.add(new Trade(symbol, id, orderId, price, qty, quoteQty, commission, commissionAsset,
+                        time, isBuyer, isMaker));
+            }
+            reader.endArray();
+        }
+        return trades;
+    }
+
+    /**
+     * Order from the /api/v3/order response, for both placing and cancelling. Fills are skipped.
+     */
+    public static OrderResult order(Reader body) throws IOException {
+        String symbol = null, clientOrderId = null, side = null, type = null, status = null;
+        long orderId = 0, transactTime = 0;
+        double origQty = 0, executedQty = 0, cummulativeQuoteQty = 0;
+        try (JsonReader reader = new JsonReader(body)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "symbol" -> symbol = reader.nextString();
+                    case "orderId" -> orderId = reader.nextLong();
+                    case "clientOrderId" -> clientOrderId = reader.nextString();
+                    case "side" -> side = reader.nextString();
+                    case "type" -> type = reader.nextString();
+                    case "status" -> status = reader.nextString();
+                    case "origQty" -> origQty = reader.nextDouble();
+                    case "executedQty" -> executedQty = reader.nextDouble();
+                    case "cummulativeQuoteQty" -> cummulativeQuoteQty = reader.nextDouble();
+                    case "transactTime" -> transactTime = reader.nextLong();
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        return new OrderResult(symbol, orderId, clientOrderId, side, type, status, origQty, executedQty,
+                cummulativeQuoteQty, transactTime);
+    }
+
+    private static SymbolFilters symbolFilters(JsonReader reader) throws IOException {
+        String symbol = null;
+        long stepSize = 0, minQty = 0, tickSize = 0, minNotional = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("symbol".equals(name)) {
+                symbol = reader.nextString();
+            } else if ("filters".equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    // filterType is not guaranteed to come first, so values are kept until the object ends
+                    String filterType = null;
+                    long step = 0, min = 0, tick = 0, notional = 0;
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        switch (reader.nextName()) {
+                            case "filterType" -> filterType = reader.nextString();
+                            case "stepSize" -> step = FixedPoint.parse(reader.nextString());
+                            case "minQty" -> min = FixedPoint.parse(reader.nextString());
+                            case "tickSize" -> tick = FixedPoint.parse(reader.nextString());
+                            case "minNotional" -> notional = FixedPoint.parse(reader.nextString());
+                            default -> reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+
+                    if ("LOT_SIZE".equals(filterType)) {
+                        stepSize = step;
+                        minQty = min;
+                    } else if ("PRICE_FILTER".equals(filterType)) {
+                        tickSize = tick;
+                    } else if ("NOTIONAL".equals(filterType) || "MIN_NOTIONAL".equals(filterType)) {
+                        minNotional = notional;
+                    }
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (symbol == null) {
+            throw new IOException("exchangeInfo symbol entry without a symbol");
+        }
+        return new SymbolFilters(symbol, stepSize, minQty, tickSize, minNotional);
+    }
+}
@@ -0,0 +1,180 @@
+package com.investly.app.services;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Tracks the offset between the local clock and Binance server time so signed requests can be
+ * timestamped without an extra /api/v3/time round trip.
+ * <p>
+ * /api/v3/time is sampled in the background. Each sample is RTT-compensated (the server is assumed to
+ * have read its clock half way through the round trip). The offset comes from the lowest-RTT sample in
+ * the window, which has the smallest error bound, and drift is the least-squares slope of offset over
+ * time, so the estimate keeps tracking the server between samples. The drift correction is capped at a
+ * few jitters, so a noisy slope cannot run away while sampling is failing.
+ */
+@Service
+public class BinanceServerClock {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BinanceServerClock.class);
+    private static final int WINDOW_SIZE = 8;
+    // Largest drift correction, in multiples of the jitter (at least 1 ms)
+    private static final double MAX_DRIFT_JITTERS = 3;
+
+    private record Sample(long takenAt, long offset, long rtt) {
+    }
+
+    private record Estimate(long baseTakenAt, double baseOffset, double driftPerMilli, double jitter, long lastSampleAt) {
+        static final Estimate NONE = new Estimate(0, 0, 0, 0, 0);
+    }
+
+    private final BinanceRequestScheduler requestScheduler;
+    private final String binanceBaseUrl;
+    private final Deque<Sample> samples = new ArrayDeque<>();
+    private volatile Estimate estimate = Estimate.NONE;
+
+    @Value("${binance.clock.sampling-enabled:true}")
+    private boolean samplingEnabled = true;
+
+    @Autowired
+    public BinanceServerClock(@Value("${binance.api.baseurl}") String binanceBaseUrl,
+                              BinanceRequestScheduler requestScheduler,
+                              MeterRegistry meterRegistry) {
+        this.requestScheduler = requestScheduler;
+        this.binanceBaseUrl = binanceBaseUrl;
+
+        // Reads the estimate only; a scrape before the first sample must not call the exchange
+        Gauge.builder("binance.clock.offset", this, clock -> clock.estimate == Estimate.NONE ? Double.NaN
+                        : offsetAt(clock.estimate, System.currentTimeMillis()))
+                .description("Estimated Binance server time minus local time")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("binance.clock.jitter", this, clock -> clock.estimate.jitter())
+                .description("Standard deviation of the sampled offsets")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("binance.clock.sample.age", this, BinanceServerClock::lastSampleAgeMillis)
+                .description("Time since the last successful server time sample")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Current estimate of server time minus local time, in milliseconds. Falls back to a blocking sample
+     * only if no sample has succeeded yet.
+     */
+    public long currentOffsetMillis() {
+        Estimate current = estimate;
+        if (current == Estimate.NONE) {
+            sample();
+            current = estimate;
+        }
+        return offsetAt(current, System.currentTimeMillis());
+    }
+
+    private static long offsetAt(Estimate estimate, long now) {
+        return extrapolate(estimate.baseOffset(), estimate.driftPerMilli(), estimate.jitter(),
+                now - estimate.baseTakenAt());
+    }
+
+    static long extrapolate(double baseOffset, double driftPerMilli, double jitter, long elapsedMillis) {
+        double maxCorrection = MAX_DRIFT_JITTERS * Math.max(jitter, 1);
+        double correction = Math.max(-maxCorrection, Math.min(maxCorrection, driftPerMilli * elapsedMillis));
+        return Math.round(baseOffset + correction);
+    }
+
+    public long serverTimeMillis() {
+        return System.currentTimeMillis() + currentOffsetMillis();
+    }
+
+    public long lastSampleAgeMillis() {
+        long lastSampleAt = estimate.lastSampleAt();
+        return lastSampleAt == 0 ? -1 : System.currentTimeMillis() - lastSampleAt;
+    }
+
+    /**
+     * Asks for an out-of-band sample, e.g. after Binance rejected a request with -1021.
+     */
+    public void resync() {
+        CompletableFuture.runAsync(this::sample);
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${binance.clock.sample-interval-ms:30000}")
+    public void scheduledSample() {
+        if (samplingEnabled) {
+            sample();
+        }
+    }
+
+    public synchronized boolean sample() {
+        Request request = new Request.Builder()
+                .url(binanceBaseUrl + "/api/v3/time")
+                .get()
+                .build();
+
+        try (Response response = requestScheduler.execute(BinanceRequestClass.BACKGROUND, 1, request)) {
+            if (!response.isSuccessful()) {
+                LOGGER.error("Failed to fetch Binance server time. HTTP Code: " + response.code());
+                return false;
+            }
+
+            JsonObject json = JsonParser.parseString(response.body().string()).getAsJsonObject();
+            // Timestamps of the exchange itself, so time spent queued for rate-limit budget is excluded
+            long rtt = response.receivedResponseAtMillis() - response.sentRequestAtMillis();
+            long localMidpoint = response.sentRequestAtMillis() + rtt / 2;
+            long offset = json.get("serverTime").getAsLong() - localMidpoint;
+
+            samples.addLast(new Sample(localMidpoint, offset, rtt));
+            if (samples.size() > WINDOW_SIZE) {
+                samples.removeFirst();
+            }
+            estimate = estimate();
+            return true;
+        } catch (Exception e) {
+            LOGGER.error("Exception in sample: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private Estimate estimate() {
+        Sample best = null;
+        double meanT = 0, meanOffset = 0;
+        for (Sample sample : samples) {
+            if (best == null || sample.rtt() < best.rtt()) {
+                best = sample;
+            }
+            meanT += sample.takenAt();
+            meanOffset += sample.offset();
+        }
+        int n = samples.size();
+        meanT /= n;
+        meanOffset /= n;
+
+        double covariance = 0, varianceT = 0, varianceOffset = 0;
+        for (Sample sample : samples) {
+            double dt = sample.takenAt() - meanT;
+            double dOffset = sample.offset() - meanOffset;
+            covariance += dt * dOffset;
+            varianceT += dt * dt;
+            varianceOffset += dOffset * dOffset;
+        }
+        double drift = varianceT > 0 ? covariance / varianceT : 0;
+        double jitter = Math.sqrt(varianceOffset / n);
+
+        return new Estimate(best.takenAt(), best.offset(), drift, jitter, samples.getLast().takenAt());
+    }
+}
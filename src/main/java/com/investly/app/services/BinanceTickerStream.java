@@ -0,0 +1,108 @@
+package com.investly.app.services;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import okhttp3.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Subscribes to the all-market mini ticker stream ({@code !miniTicker@arr}), which pushes the last
+ * price of every symbol that changed roughly once per second. Reconnects with backoff when the
+ * socket drops; the {@link PriceBook} falls back to REST snapshots while it is down.
+ */
+@Component
+@ConditionalOnProperty(name = "binance.stream.enabled", havingValue = "true", matchIfMissing = true)
+public class BinanceTickerStream implements PriceStream {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BinanceTickerStream.class);
+    private static final long MAX_RECONNECT_DELAY_MS = 60_000;
+
+    private final OkHttpClient httpClient;
+    private final String streamUrl;
+    private final ScheduledExecutorService reconnectScheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private volatile PriceListener listener;
+    private volatile WebSocket webSocket;
+    private volatile boolean running;
+    private long reconnectDelayMs = 1_000;
+
+    public BinanceTickerStream(@Qualifier("binanceHttpClient") OkHttpClient binanceHttpClient,
+                               @Value("${binance.stream.url:wss://stream.binance.com:9443/ws/!miniTicker@arr}") String streamUrl) {
+        // Shares the Binance connection pool, but a long-lived socket must not hold a per-host call slot
+        OkHttpClient.Builder builder = binanceHttpClient.newBuilder()
+                .pingInterval(3, TimeUnit.MINUTES)
+                .readTimeout(0, TimeUnit.MILLISECONDS);
+        builder.interceptors().clear();
+        this.httpClient = builder.build();
+        this.streamUrl = streamUrl;
+    }
+
+    @Override
+    public void start(PriceListener listener) {
+        this.listener = listener;
+        this.running = true;
+        connect();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        reconnectScheduler.shutdownNow();
+        if (webSocket != null) {
+            webSocket.close(1000, "shutdown");
+        }
+    }
+
+    private void connect() {
+        Request request = new Request.Builder().url(streamUrl).build();
+        webSocket = httpClient.newWebSocket(request, new WebSocketListener() {
+            @Override
+            public void onOpen(WebSocket socket, Response response) {
+                LOGGER.info("Connected to Binance ticker stream");
+                reconnectDelayMs = 1_000;
+            }
+
+            @Override
+            public void onMessage(WebSocket socket, String text) {
+                try {
+                    for (JsonElement element : JsonParser.parseString(text).getAsJsonArray()) {
+                        JsonObject ticker = element.getAsJsonObject();
+                        listener.onPrice(ticker.get("s").getAsString(), ticker.get("c").getAsDouble());
+                    }
+                } catch (Exception e) {
+                    LOGGER.warn("Ignoring malformed ticker message: " + e.getMessage());
+                }
+            }
+
+            @Override
+            public void onClosed(WebSocket socket, int code, String reason) {
+                scheduleReconnect();
+            }
+
+            @Override
+            public void onFailure(WebSocket socket, Throwable t, Response response) {
+                LOGGER.error("Binance ticker stream failed: " + t.getMessage());
+                scheduleReconnect();
+            }
+        });
+    }
+
+    private synchronized void scheduleReconnect() {
+        if (!running) {
+            return;
+        }
+        long delay = reconnectDelayMs;
+        reconnectDelayMs = Math.min(reconnectDelayMs * 2, MAX_RECONNECT_DELAY_MS);
+        reconnectScheduler.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,123 @@
+package com.investly.app.services;
+
+import com.investly.app.dao.MessageEntity;
+import com.investly.app.dao.MessageRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * Maps a conversation key (a client conversation id or WebSocket session) to its own OpenAI thread.
+ * <p>
+ * Recently used mappings live in a bounded LRU map; on a miss the latest message of the conversation in
+ * the database is consulted before a new thread is created. Runs are serialized per thread only, since
+ * the Assistants API allows one active run per thread, so different conversations never wait on each other.
+ */
+@Service
+public class ConversationSessionManager {
+
+    private static final Logger LOGGER = Logger.getLogger(ConversationSessionManager.class.getName());
+
+    @FunctionalInterface
+    public interface ThreadCreator {
+        String createThread() throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface ThreadTask<T> {
+        T run() throws IOException;
+    }
+
+    private static final class ThreadLock {
+        final ReentrantLock lock = new ReentrantLock(true);
+        int holders;
+    }
+
+    private final MessageRepository messageRepository;
+    private final Map<String, String> threadIdsByKey;
+    private final Map<String, ThreadLock> locks = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ConversationSessionManager(MessageRepository messageRepository,
+                                      @Value("${conversations.cache.max-size:10000}") int maxCachedConversations) {
+        this.messageRepository = messageRepository;
+        this.threadIdsByKey = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxCachedConversations;
+            }
+        };
+    }
+
+    /**
+     * Returns the thread of the conversation, creating one if it has none yet. Creation for a key is
+     * serialized, so concurrent first messages of one conversation end up in the same thread.
+     */
+    public String threadIdFor(String conversationKey, ThreadCreator threadCreator) throws IOException {
+        String threadId = cached(conversationKey);
+        if (threadId != null) {
+            return threadId;
+        }
+
+        return withLock("key:" + conversationKey, () -> {
+            String existing = cached(conversationKey);
+            if (existing != null) {
+                return existing;
+            }
+
+            String resolved = messageRepository
+                    .findFirstByConversationKeyAndThreadIdIsNotNullOrderByTimestampDesc(conversationKey)
+                    .map(MessageEntity::getThreadId)
+                    .orElse(null);
+            if (resolved == null) {
+                resolved = threadCreator.createThread();
+                if (resolved == null) {
+                    throw new IOException("Failed to create thread for conversation " + conversationKey);
+                }
+                LOGGER.info("Created thread " + resolved + " for conversation " + conversationKey);
+            }
+
+            synchronized (threadIdsByKey) {
+                threadIdsByKey.put(conversationKey, resolved);
+            }
+            return resolved;
+        });
+    }
+
+    /**
+     * Runs the task while holding the thread's lock, so at most one assistant run per thread is active.
+     */
+    public <T> T withThreadLock(String threadId, ThreadTask<T> task) throws IOException {
+        return withLock("thread:" + threadId, task);
+    }
+
+    private String cached(String conversationKey) {
+        synchronized (threadIdsByKey) {
+            return threadIdsByKey.get(conversationKey);
+        }
+    }
+
+    // Locks are reference counted and dropped when nobody holds or waits for them
+    private <T> T withLock(String name, ThreadTask<T> task) throws IOException {
+        ThreadLock threadLock = locks.compute(name, (key, existing) -> {
+            ThreadLock lock = existing != null ? existing : new ThreadLock();
+            lock.holders++;
+            return lock;
+        });
+
+        threadLock.lock.lock();
+        try {
+            return task.run();
+        } finally {
+            threadLock.lock.unlock();
+            locks.computeIfPresent(name, (key, lock) -> --lock.holders == 0 ? null : lock);
+        }
+    }
+}
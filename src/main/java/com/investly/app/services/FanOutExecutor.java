@@ -0,0 +1,63 @@
+package com.investly.app.services;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs independent exchange requests in parallel with a hard cap on how many are in flight, so a
+ * fan-out over many assets cannot burst past Binance's request-weight limits.
+ */
+@Component
+public class FanOutExecutor {
+
+    private final ExecutorService executor;
+    private final long timeoutMillis;
+
+    @Autowired
+    public FanOutExecutor(@Value("${binance.fan-out.max-concurrency:4}") int maxConcurrency,
+                          @Value("${binance.fan-out.timeout-ms:15000}") long timeoutMillis) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(maxConcurrency, runnable -> {
+            Thread thread = new Thread(runnable, "binance-fan-out-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Applies the task to every input concurrently and returns the results in input order.
+     */
+    public <T, R> List<R> map(List<T> inputs, Function<T, R> task) throws InterruptedException, TimeoutException {
+        List<Future<R>> futures = new ArrayList<>(inputs.size());
+        for (T input : inputs) {
+            futures.add(executor.submit(() -> task.apply(input)));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        List<R> results = new ArrayList<>(inputs.size());
+        try {
+            for (Future<R> future : futures) {
+                results.add(future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+            }
+        } catch (ExecutionException e) {
+            throw new CompletionException(e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        return results;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
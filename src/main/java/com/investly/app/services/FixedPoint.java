@@ -0,0 +1,211 @@
+package com.investly.app.services;
+
+import java.math.BigDecimal;
+
+/**
+ * Arithmetic on amounts held as longs scaled by 10^8, the precision Binance reports quantities,
+ * prices and commissions in. 1 BTC is {@code 100_000_000}, 60000.5 USDT is {@code 6_000_050_000_000}.
+ * <p>
+ * A symbol's own precision is a number of decimals (0 to 8) derived from its exchange filters, e.g. 5
+ * for a step size of 0.00001; {@link #append} writes a value with exactly that many decimals.
+ */
+public final class FixedPoint {
+
+    public static final long SCALE = 100_000_000L;
+    public static final int DECIMALS = 8;
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L};
+
+    private FixedPoint() {
+    }
+
+    /**
+     * Converts an exchange value to fixed point. Exact for values that came from an 8-decimal string
+     * with up to 15 significant digits, which covers every Binance spot price and quantity.
+     */
+    public static long of(double value) {
+        return Math.round(value * SCALE);
+    }
+
+    /**
+     * Converts an exact decimal, such as an amount from the trade ledger, to fixed point.
+     *
+     * @throws ArithmeticException if the value has more than 8 decimals or does not fit
+     */
+    public static long of(BigDecimal value) {
+        return value.movePointRight(DECIMALS).longValueExact();
+    }
+
+    /**
+     * Parses a plain decimal string such as Binance's {@code "0.00001000"} exactly, without going
+     * through a double.
+     *
+     * @throws NumberFormatException if the value is not a plain decimal or has more than 8 decimals
+     */
+    public static long parse(CharSequence value) {
+        int length = value.length();
+        int i = 0;
+        boolean negative = length > 0 && value.charAt(0) == '-';
+        if (negative) {
+            i++;
+        }
+        long mantissa = 0;
+        int decimals = -1;
+        boolean digits = false;
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == '.' && decimals < 0) {
+                decimals = 0;
+            } else if (c >= '0' && c <= '9') {
+                if (decimals >= 0 && ++decimals > DECIMALS) {
+                    throw new NumberFormatException("More than " + DECIMALS + " decimals: " + value);
+                }
+                mantissa = Math.addExact(Math.multiplyExact(mantissa, 10), c - '0');
+                digits = true;
+            } else {
+                throw new NumberFormatException("Not a plain decimal: " + value);
+            }
+        }
+        if (!digits) {
+            throw new NumberFormatException("Not a plain decimal: " + value);
+        }
+        long scaled = Math.multiplyExact(mantissa, POWERS_OF_TEN[DECIMALS - Math.max(decimals, 0)]);
+        return negative ? -scaled : scaled;
+    }
+
+    public static double toDouble(long value) {
+        return (double) value / SCALE;
+    }
+
+    /**
+     * Number of decimals a step (lot size, tick size) allows, 0 for whole units; 8 for a zero step.
+     */
+    public static int decimals(long step) {
+        if (step <= 0) {
+            return DECIMALS;
+        }
+        int decimals = DECIMALS;
+        while (decimals > 0 && step % 10 == 0) {
+            step /= 10;
+            decimals--;
+        }
+        return decimals;
+    }
+
+    /**
+     * Rounds a non-negative value down to a multiple of the step; values are returned as is for a zero step.
+     */
+    public static long floorToStep(long value, long step) {
+        return step <= 0 ? value : value - value % step;
+    }
+
+    /**
+     * Quotient of two fixed-point values, e.g. a quote amount divided by a price, rounded toward zero.
+     */
+    public static long divide(long dividend, long divisor) {
+        return mulDiv(dividend, SCALE, divisor);
+    }
+
+    /**
+     * Writes the value as a plain decimal with exactly {@code decimals} digits after the point (none for
+     * 0), truncating finer digits. Never uses exponent notation and does not allocate.
+     */
+    public static StringBuilder append(StringBuilder out, long value, int decimals) {
+        if (decimals < 0 || decimals > DECIMALS) {
+            throw new IllegalArgumentException("Decimals must be between 0 and " + DECIMALS + ": " + decimals);
+        }
+        if (value < 0) {
+            out.append('-');
+            value = -value;
+        }
+        out.append(value / SCALE);
+        if (decimals > 0) {
+            out.append('.');
+            long fraction = value % SCALE / POWERS_OF_TEN[DECIMALS - decimals];
+            for (int digit = decimals - 1; digit >= 0; digit--) {
+                out.append((char) ('0' + fraction / POWERS_OF_TEN[digit] % 10));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Product of two fixed-point values, e.g. quantity times price.
+     */
+    public static long multiply(long a, long b) {
+        return mulDiv(a, b, SCALE);
+    }
+
+    /**
+     * {@code a * b / c} rounded toward zero, without overflowing on the intermediate product. Quantity
+     * times price alone exceeds a long for a single BTC at 60000 USDT, so the product is kept in 128 bits.
+     *
+     * @throws ArithmeticException if c is not positive or the result does not fit in a long
+     */
+    public static long mulDiv(long a, long b, long c) {
+        if (c <= 0) {
+            throw new ArithmeticException("Divisor must be positive: " + c);
+        }
+        boolean negative = (a < 0) != (b < 0);
+        long x = Math.abs(a);
+        long y = Math.abs(b);
+
+        long high = Math.multiplyHigh(x, y);
+        long low = x * y;
+        long quotient;
+        if (high == 0 && low >= 0) {
+            quotient = low / c;
+        } else {
+            quotient = divide128(high, low, c);
+        }
+        return negative ? -quotient : quotient;
+    }
+
+    // Unsigned 128-by-64 bit division (Knuth's algorithm D with 32-bit digits, as in Hacker's Delight
+    // divlu); only reached when the product overflows 63 bits
+    private static long divide128(long high, long low, long divisor) {
+        if (Long.compareUnsigned(high, divisor) >= 0) {
+            throw new ArithmeticException("Fixed-point result overflows a long");
+        }
+        final long base = 1L << 32;
+        final long digitMask = base - 1;
+
+        // Normalize so the divisor's top bit is set
+        int shift = Long.numberOfLeadingZeros(divisor);
+        long v = divisor << shift;
+        long vHigh = v >>> 32;
+        long vLow = v & digitMask;
+        long u32 = shift == 0 ? high : (high << shift) | (low >>> (64 - shift));
+        long u10 = low << shift;
+        long u1 = u10 >>> 32;
+        long u0 = u10 & digitMask;
+
+        long q1 = Long.divideUnsigned(u32, vHigh);
+        long remainder = u32 - q1 * vHigh;
+        while (Long.compareUnsigned(q1, base) >= 0 || Long.compareUnsigned(q1 * vLow, (remainder << 32) | u1) > 0) {
+            q1--;
+            remainder += vHigh;
+            if (Long.compareUnsigned(remainder, base) >= 0) {
+                break;
+            }
+        }
+
+        long u21 = (u32 << 32) + u1 - q1 * v;
+        long q0 = Long.divideUnsigned(u21, vHigh);
+        remainder = u21 - q0 * vHigh;
+        while (Long.compareUnsigned(q0, base) >= 0 || Long.compareUnsigned(q0 * vLow, (remainder << 32) | u0) > 0) {
+            q0--;
+            remainder += vHigh;
+            if (Long.compareUnsigned(remainder, base) >= 0) {
+                break;
+            }
+        }
+
+        long quotient = (q1 << 32) + q0;
+        if (quotient < 0) {
+            throw new ArithmeticException("Fixed-point result overflows a long");
+        }
+        return quotient;
+    }
+}
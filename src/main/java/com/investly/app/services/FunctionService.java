@@ -1,105 +1,37 @@
 package com.investly.app.services;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.investly.app.dto.TopMovers;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.logging.Logger;
-
+/**
+ * Assistant tools that are not backed by the exchange. Tool calls are routed here, and to the
+ * {@link TradeService} tools, by {@link ToolDispatcher}.
+ */
 @Service
 public class FunctionService {
-    private static final Logger LOGGER = Logger.getLogger(FunctionService.class.getName());
 
-    private final TradeService tradeService;
+    private final MarketStatsEngine marketStats;
 
     @Autowired
-    public FunctionService(TradeService tradeService) {
-        this.tradeService = tradeService;
+    public FunctionService(MarketStatsEngine marketStats) {
+        this.marketStats = marketStats;
     }
 
-    public String handleFunctionCall(String functionName, JsonObject arguments) {
-        LOGGER.info("Handling function call: " + functionName + " with arguments: " + arguments.toString());
-
-        switch (functionName) {
-            case "getBalance":
-                return tradeService.getBalance();
-
-            case "place_order":
-                String symbol = arguments.get("symbol").getAsString();
-                String side = arguments.get("side").getAsString();
-                double amount = arguments.get("amount").getAsDouble();
-                String currency = arguments.has("currency") ? arguments.get("currency").getAsString() : "USDT";
-                return tradeService.placeOrder(symbol, side, amount, currency);
-
-            case "cancel_order":
-                return tradeService.cancelOrder(
-                        arguments.get("orderId").getAsLong(),
-                        arguments.get("symbol").getAsString()
-                );
-
-            case "fetch_trade_history":
-                String ssymbol = arguments.has("symbol") ? arguments.get("symbol").getAsString() : null; // Allow null to fetch all
-                int limit = arguments.has("limit") ? arguments.get("limit").getAsInt() : 5; // Default limit if missing
-                return tradeService.fetchTradeHistory(ssymbol, limit);
-
-            case "get_profit_loss":
-                return tradeService.getProfitLoss(arguments.get("symbol").getAsString());
-
-            case "create_widget":
-
-                String type = getStringOrDefault(arguments, "type", "PORTFOLIO");
-                List<String> assets = new ArrayList<>();
-
-                // Handle assets based on widget type
-                if ("PORTFOLIO".equals(type)) {
-                    // For portfolio, we accept empty assets
-                    assets = new ArrayList<>();
-                } else {
-                    // For other types, parse assets array if present
-                    JsonElement assetsElement = arguments.get("assets");
-                    if (assetsElement != null && !assetsElement.isJsonNull()) {
-                        if (assetsElement.isJsonArray()) {
-                            JsonArray assetsArray = assetsElement.getAsJsonArray();
-                            for (JsonElement element : assetsArray) {
-                                assets.add(element.getAsString());
-                            }
-                        } else if (!assetsElement.getAsString().isEmpty()) {
-                            // Handle single asset as string
-                            assets.add(assetsElement.getAsString());
-                        }
-                    }
-                }
-
-                String timeframe = getStringOrDefault(arguments, "timeframe", null);
-                String startDate = getStringOrDefault(arguments, "startDate", null);
-                String endDate = getStringOrDefault(arguments, "endDate", null);
-                Boolean isBuy = getBooleanOrDefault(arguments, "isBuy", null);
-
-                return tradeService.createWidget(type, assets, timeframe, startDate, endDate, isBuy);
-            default:
-                return "{\"error\": \"Invalid function name\"}";
-        }
+    @AssistantTool(name = "get_top_movers", description = "Retrieve the top moving cryptocurrencies by percentage change")
+    public TopMovers getTopMovers(@ToolParam(value = "timeframe", allowed = {"1h", "24h", "7d"}, required = false, defaultValue = "24h") String timeframe,
+                                  @ToolParam(value = "limit", required = false, defaultValue = "5") int limit) {
+        // Served from the rolling statistics kept in memory, no exchange call
+        return marketStats.topMovers(MarketStatsEngine.Timeframe.of(timeframe), limit);
     }
 
-    private String getStringOrDefault(JsonObject obj, String key, String defaultValue) {
-        JsonElement element = obj.get(key);
-        if (element == null || element.isJsonNull()) {
-            return defaultValue;
-        }
-        return element.getAsString();
+    @AssistantTool(name = "general_investment_advice", description = "Provides general investment advice based on user input")
+    public String generalInvestmentAdvice(@ToolParam("textPrompt") String textPrompt) {
+        // Nothing to look up: the assistant answers from its own knowledge, framed as general information
+        JsonObject response = new JsonObject();
+        response.addProperty("textPrompt", textPrompt);
+        response.addProperty("guidance", "Give general, educational investment information only, not personalised financial advice.");
+        return response.toString();
     }
-
-    private Boolean getBooleanOrDefault(JsonObject obj, String key, Boolean defaultValue) {
-        JsonElement element = obj.get(key);
-        if (element == null || element.isJsonNull()) {
-            return defaultValue;
-        }
-        return element.getAsBoolean();
-    }
-
-
 }
@@ -0,0 +1,565 @@
+package com.investly.app.services;
+
+import com.investly.app.dto.CandleSeries;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-side store of exchange candles (klines) per symbol and interval, so chart widgets embed their
+ * series instead of the frontend calling Binance for every chart.
+ * <p>
+ * A series keeps its candles in parallel primitive columns sorted by open time, together with the time
+ * range already fetched. A query fetches only what lies outside that range from /api/v3/klines (paged)
+ * and splices it in; candles past the fetched range are always fetched, but the last candle, which may
+ * have still been forming, is refetched on its own at most every {@code refresh-ms}. Range queries binary-search the columns and can downsample to a point budget.
+ * <p>
+ * Memory is bounded twice: one series never spans more than {@code max-candles-per-series} candles, and
+ * once the store holds more than {@code max-candles} in total the least recently used series are
+ * dropped. A range with more candles than one series holds is served at the shortest longer interval
+ * that fits; the returned series names the interval it was served at. With {@code snapshot-path} set
+ * the store is written to a memory-mapped file periodically and on shutdown, and read back on startup.
+ */
+@Component
+public class KlineStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KlineStore.class);
+
+    // Largest page /api/v3/klines returns
+    private static final int PAGE_LIMIT = 1000;
+    private static final int SNAPSHOT_MAGIC = 0x4b4c494e; // "KLIN"
+    private static final int SNAPSHOT_VERSION = 1;
+
+    /**
+     * Fixed-length Binance kline intervals. The calendar month ({@code 1M}) is left out.
+     */
+    public enum Interval {
+        M1("1m", TimeUnit.MINUTES.toMillis(1)),
+        M3("3m", TimeUnit.MINUTES.toMillis(3)),
+        M5("5m", TimeUnit.MINUTES.toMillis(5)),
+        M15("15m", TimeUnit.MINUTES.toMillis(15)),
+        M30("30m", TimeUnit.MINUTES.toMillis(30)),
+        H1("1h", TimeUnit.HOURS.toMillis(1)),
+        H2("2h", TimeUnit.HOURS.toMillis(2)),
+        H4("4h", TimeUnit.HOURS.toMillis(4)),
+        H6("6h", TimeUnit.HOURS.toMillis(6)),
+        H8("8h", TimeUnit.HOURS.toMillis(8)),
+        H12("12h", TimeUnit.HOURS.toMillis(12)),
+        D1("1d", TimeUnit.DAYS.toMillis(1)),
+        D3("3d", TimeUnit.DAYS.toMillis(3)),
+        W1("1w", TimeUnit.DAYS.toMillis(7));
+
+        final String label;
+        final long millis;
+
+        Interval(String label, long millis) {
+            this.label = label;
+            this.millis = millis;
+        }
+
+        public String label() {
+            return label;
+        }
+
+        public long millis() {
+            return millis;
+        }
+
+        /**
+         * This interval, or the shortest longer one with at most {@code maxCandles} candles in
+         * {@code span}; the longest interval if none fits.
+         */
+        public Interval fitting(long span, int maxCandles) {
+            Interval[] intervals = values();
+            int index = ordinal();
+            while (index < intervals.length - 1 && span / intervals[index].millis >= maxCandles) {
+                index++;
+            }
+            return intervals[index];
+        }
+
+        public static Optional<Interval> of(String label) {
+            for (Interval interval : values()) {
+                if (interval.label.equals(label)) {
+                    return Optional.of(interval);
+                }
+            }
+            return Optional.empty();
+        }
+    }
+
+    @FunctionalInterface
+    public interface KlineListener {
+        void onKline(long openTime, double open, double high, double low, double close, double volume);
+    }
+
+    // Candles of one symbol and interval, guarded by its own monitor
+    private static final class Series {
+        final String symbol;
+        final Interval interval;
+        long[] openTimes = new long[0];
+        double[] opens = new double[0];
+        double[] highs = new double[0];
+        double[] lows = new double[0];
+        double[] closes = new double[0];
+        double[] volumes = new double[0];
+        volatile int size;
+        // Inclusive range of open times already fetched; empty while from > to
+        long coveredFrom = Long.MAX_VALUE;
+        long coveredTo = Long.MIN_VALUE;
+        long tailFetchedAt;
+
+        Series(String symbol, Interval interval) {
+            this.symbol = symbol;
+            this.interval = interval;
+        }
+
+        // First index whose open time is at least the given time
+        int lowerBound(long time) {
+            int index = Arrays.binarySearch(openTimes, 0, size, time);
+            return index >= 0 ? index : -index - 1;
+        }
+
+        void clear() {
+            size = 0;
+            coveredFrom = Long.MAX_VALUE;
+            coveredTo = Long.MIN_VALUE;
+        }
+    }
+
+    // Columns of one fetch, in exchange order
+    private static final class Batch implements KlineListener {
+        long[] openTimes = new long[64];
+        double[] opens = new double[64];
+        double[] highs = new double[64];
+        double[] lows = new double[64];
+        double[] closes = new double[64];
+        double[] volumes = new double[64];
+        int size;
+
+        @Override
+        public void onKline(long openTime, double open, double high, double low, double close, double volume) {
+            if (size == openTimes.length) {
+                int capacity = size * 2;
+                openTimes = Arrays.copyOf(openTimes, capacity);
+                opens = Arrays.copyOf(opens, capacity);
+                highs = Arrays.copyOf(highs, capacity);
+                lows = Arrays.copyOf(lows, capacity);
+                closes = Arrays.copyOf(closes, capacity);
+                volumes = Arrays.copyOf(volumes, capacity);
+            }
+            openTimes[size] = openTime;
+            opens[size] = open;
+            highs[size] = high;
+            lows[size] = low;
+            closes[size] = close;
+            volumes[size] = volume;
+            size++;
+        }
+    }
+
+    private final String binanceBaseUrl;
+    private final BinanceRequestScheduler requestScheduler;
+    private final long maxCandles;
+    private final int maxCandlesPerSeries;
+    private final long refreshMillis;
+    private final Path snapshotPath;
+
+    // Access-ordered, so iteration starts at the least recently used series; guarded by itself
+    private final Map<String, Series> seriesByKey = new LinkedHashMap<>(64, 0.75f, true);
+
+    @Autowired
+    public KlineStore(@Value("${binance.api.baseurl}") String binanceBaseUrl,
+                      @Value("${binance.klines.max-candles:500000}") long maxCandles,
+                      @Value("${binance.klines.max-candles-per-series:10000}") int maxCandlesPerSeries,
+                      @Value("${binance.klines.refresh-ms:15000}") long refreshMillis,
+                      @Value("${binance.klines.snapshot-path:}") String snapshotPath,
+                      BinanceRequestScheduler requestScheduler) {
+        this.binanceBaseUrl = binanceBaseUrl;
+        this.requestScheduler = requestScheduler;
+        this.maxCandles = maxCandles;
+        this.maxCandlesPerSeries = maxCandlesPerSeries;
+        this.refreshMillis = refreshMillis;
+        this.snapshotPath = snapshotPath == null || snapshotPath.isBlank() ? null : Path.of(snapshotPath);
+    }
+
+    /**
+     * Candles opening between {@code from} and {@code to} (inclusive, epoch millis), fetching whatever
+     * the store does not hold yet. With more than {@code maxPoints} candles in range (and maxPoints
+     * positive), consecutive candles are merged into at most that many. A range longer than
+     * {@code max-candles-per-series} candles of the interval is served at a longer interval, reported
+     * in the result.
+     *
+     * @throws TradeException if missing candles could not be fetched
+     */
+    public CandleSeries range(String symbol, Interval interval, long from, long to, int maxPoints) {
+        return range(symbol, interval, from, to, maxPoints, System.currentTimeMillis());
+    }
+
+    CandleSeries range(String symbol, Interval interval, long from, long to, int maxPoints, long now) {
+        // Otherwise fill() would keep only the most recent candles of the range
+        Interval served = interval.fitting(Math.min(to, now) - from, maxCandlesPerSeries);
+        Series series;
+        synchronized (seriesByKey) {
+            series = seriesByKey.computeIfAbsent(symbol + ' ' + served.label, key -> new Series(symbol, served));
+        }
+        CandleSeries candles;
+        synchronized (series) {
+            fill(series, from, Math.min(to, now), now);
+            candles = slice(series, from, to, maxPoints);
+        }
+        evict(series);
+        return candles;
+    }
+
+    /**
+     * Total candles held across all series.
+     */
+    public long size() {
+        synchronized (seriesByKey) {
+            long total = 0;
+            for (Series series : seriesByKey.values()) {
+                total += series.size;
+            }
+            return total;
+        }
+    }
+
+    private void fill(Series series, long from, long to, long now) {
+        long span = (long) maxCandlesPerSeries * series.interval.millis;
+        from = Math.max(from, to - span);
+        if (from > to) {
+            return;
+        }
+        // Extending the covered range past the per-series bound would leave a gap, so start over instead
+        if (series.coveredFrom <= series.coveredTo
+                && Math.max(to, series.coveredTo) - Math.min(from, series.coveredFrom) > span) {
+            series.clear();
+        }
+
+        if (series.coveredFrom > series.coveredTo) {
+            fetch(series, from, to);
+            series.coveredFrom = from;
+            series.coveredTo = to;
+            series.tailFetchedAt = now;
+            return;
+        }
+        if (from < series.coveredFrom) {
+            fetch(series, from, series.coveredFrom - 1);
+            series.coveredFrom = from;
+        }
+        // A candle opening after the covered range is always fetched; without one, only the last candle
+        // can have changed, and that refetch is throttled
+        long nextOpen = Math.floorDiv(series.coveredTo, series.interval.millis) * series.interval.millis
+                + series.interval.millis;
+        if (to > series.coveredTo && (nextOpen <= to || now - series.tailFetchedAt >= refreshMillis)) {
+            // From the last candle on, it may have been incomplete when it was fetched
+            int size = series.size;
+            long start = size > 0 ? series.openTimes[size - 1] : series.coveredTo + 1;
+            fetch(series, start, to);
+            series.coveredTo = to;
+            series.tailFetchedAt = now;
+        }
+    }
+
+    // Downloads [start, end] page by page and replaces the candles the series held in that range
+    private void fetch(Series series, long start, long end) {
+        Batch batch = new Batch();
+        long pageStart = start;
+        while (pageStart <= end) {
+            HttpUrl url = HttpUrl.get(binanceBaseUrl + "/api/v3/klines").newBuilder()
+                    .addQueryParameter("symbol", series.symbol)
+                    .addQueryParameter("interval", series.interval.label)
+                    .addQueryParameter("startTime", Long.toString(pageStart))
+                    .addQueryParameter("endTime", Long.toString(end))
+                    .addQueryParameter("limit", Integer.toString(PAGE_LIMIT))
+                    .build();
+            Request request = new Request.Builder().url(url).get().build();
+
+            int before = batch.size;
+            try (Response response = requestScheduler.execute(BinanceRequestClass.MARKET_DATA, 2, request)) {
+                if (!response.isSuccessful()) {
+                    LOGGER.error("Failed to fetch klines for " + series.symbol + ". HTTP Code: " + response.code());
+                    throw new TradeException("Failed to fetch price history for " + series.symbol);
+                }
+                BinanceResponseDecoder.klines(response.body().charStream(), batch);
+            } catch (IOException e) {
+                LOGGER.error("Exception in fetch: " + e.getMessage());
+                throw new TradeException("Failed to fetch price history for " + series.symbol, e);
+            }
+            if (batch.size - before < PAGE_LIMIT) {
+                break;
+            }
+            pageStart = batch.openTimes[batch.size - 1] + 1;
+        }
+        splice(series, batch, start, end);
+    }
+
+    private static void splice(Series series, Batch batch, long start, long end) {
+        int size = series.size;
+        int lo = series.lowerBound(start);
+        int hi = end == Long.MAX_VALUE ? size : series.lowerBound(end + 1);
+        int n = batch.size;
+        series.openTimes = splice(series.openTimes, size, lo, hi, batch.openTimes, n);
+        series.opens = splice(series.opens, size, lo, hi, batch.opens, n);
+        series.highs = splice(series.highs, size, lo, hi, batch.highs, n);
+        series.lows = splice(series.lows, size, lo, hi, batch.lows, n);
+        series.closes = splice(series.closes, size, lo, hi, batch.closes, n);
+        series.volumes = splice(series.volumes, size, lo, hi, batch.volumes, n);
+        series.size = size - (hi - lo) + n;
+    }
+
+    // Replaces column[lo, hi) with the first n values of insert, growing the column by half if needed
+    private static long[] splice(long[] column, int size, int lo, int hi, long[] insert, int n) {
+        int newSize = size - (hi - lo) + n;
+        long[] target = newSize > column.length
+                ? Arrays.copyOf(column, Math.max(newSize, column.length + (column.length >> 1))) : column;
+        System.arraycopy(column, hi, target, lo + n, size - hi);
+        System.arraycopy(insert, 0, target, lo, n);
+        return target;
+    }
+
+    private static double[] splice(double[] column, int size, int lo, int hi, double[] insert, int n) {
+        int newSize = size - (hi - lo) + n;
+        double[] target = newSize > column.length
+                ? Arrays.copyOf(column, Math.max(newSize, column.length + (column.length >> 1))) : column;
+        System.arraycopy(column, hi, target, lo + n, size - hi);
+        System.arraycopy(insert, 0, target, lo, n);
+        return target;
+    }
+
+    private static CandleSeries slice(Series series, long from, long to, int maxPoints) {
+        int lo = series.lowerBound(from);
+        int hi = to == Long.MAX_VALUE ? series.size : series.lowerBound(to + 1);
+        int count = Math.max(0, hi - lo);
+        if (maxPoints <= 0 || count <= maxPoints) {
+            return new CandleSeries(series.symbol, series.interval.label,
+                    Arrays.copyOfRange(series.openTimes, lo, lo + count),
+                    Arrays.copyOfRange(series.opens, lo, lo + count),
+                    Arrays.copyOfRange(series.highs, lo, lo + count),
+                    Arrays.copyOfRange(series.lows, lo, lo + count),
+                    Arrays.copyOfRange(series.closes, lo, lo + count),
+                    Arrays.copyOfRange(series.volumes, lo, lo + count));
+        }
+
+        // Each point covers `group` consecutive candles: first open, highest high, lowest low, last close
+        int group = (count + maxPoints - 1) / maxPoints;
+        int points = (count + group - 1) / group;
+        long[] openTime = new long[points];
+        double[] open = new double[points];
+        double[] high = new double[points];
+        double[] low = new double[points];
+        double[] close = new double[points];
+        double[] volume = new double[points];
+        for (int p = 0; p < points; p++) {
+            int first = lo + p * group;
+            int last = Math.min(first + group, hi) - 1;
+            openTime[p] = series.openTimes[first];
+            open[p] = series.opens[first];
+            close[p] = series.closes[last];
+            double h = series.highs[first];
+            double l = series.lows[first];
+            double v = 0;
+            for (int i = first; i <= last; i++) {
+                h = Math.max(h, series.highs[i]);
+                l = Math.min(l, series.lows[i]);
+                v += series.volumes[i];
+            }
+            high[p] = h;
+            low[p] = l;
+            volume[p] = v;
+        }
+        return new CandleSeries(series.symbol, series.interval.label, openTime, open, high, low, close, volume);
+    }
+
+    // Drops least recently used series until the total fits, never the one just used
+    private void evict(Series used) {
+        synchronized (seriesByKey) {
+            long total = 0;
+            for (Series series : seriesByKey.values()) {
+                total += series.size;
+            }
+            Iterator<Series> iterator = seriesByKey.values().iterator();
+            while (total > maxCandles && iterator.hasNext()) {
+                Series eldest = iterator.next();
+                if (eldest != used) {
+                    total -= eldest.size;
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    @PostConstruct
+    public void loadSnapshot() {
+        if (snapshotPath == null || !Files.isRegularFile(snapshotPath)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != SNAPSHOT_MAGIC || buffer.getInt() != SNAPSHOT_VERSION) {
+                LOGGER.warn("Ignoring kline snapshot " + snapshotPath + " with an unknown format");
+                return;
+            }
+            int count = buffer.getInt();
+            Map<String, Series> loaded = new LinkedHashMap<>();
+            for (int s = 0; s < count; s++) {
+                String symbol = readString(buffer);
+                String label = readString(buffer);
+                Interval interval = Interval.of(label)
+                        .orElseThrow(() -> new IOException("Unknown interval " + label));
+                Series series = new Series(symbol, interval);
+                series.coveredFrom = buffer.getLong();
+                series.coveredTo = buffer.getLong();
+                int size = buffer.getInt();
+                series.openTimes = readLongs(buffer, size);
+                series.opens = readDoubles(buffer, size);
+                series.highs = readDoubles(buffer, size);
+                series.lows = readDoubles(buffer, size);
+                series.closes = readDoubles(buffer, size);
+                series.volumes = readDoubles(buffer, size);
+                series.size = size;
+                loaded.put(symbol + ' ' + interval.label, series);
+            }
+            synchronized (seriesByKey) {
+                seriesByKey.putAll(loaded);
+            }
+            LOGGER.info("Loaded " + count + " kline series from " + snapshotPath);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Failed to load kline snapshot: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${binance.klines.snapshot-interval-ms:300000}",
+            fixedDelayString = "${binance.klines.snapshot-interval-ms:300000}")
+    public void scheduledSnapshot() {
+        saveSnapshot();
+    }
+
+    @PreDestroy
+    public void stop() {
+        saveSnapshot();
+    }
+
+    /**
+     * Writes every series to the snapshot file through a memory mapping of a temporary file, which then
+     * replaces the previous snapshot atomically. Does nothing without a snapshot path.
+     */
+    public void saveSnapshot() {
+        if (snapshotPath == null) {
+            return;
+        }
+        List<Series> copies = new ArrayList<>();
+        List<Series> live;
+        synchronized (seriesByKey) {
+            live = new ArrayList<>(seriesByKey.values());
+        }
+        long bytes = 3 * Integer.BYTES;
+        for (Series series : live) {
+            Series copy = new Series(series.symbol, series.interval);
+            synchronized (series) {
+                int size = series.size;
+                copy.openTimes = Arrays.copyOf(series.openTimes, size);
+                copy.opens = Arrays.copyOf(series.opens, size);
+                copy.highs = Arrays.copyOf(series.highs, size);
+                copy.lows = Arrays.copyOf(series.lows, size);
+                copy.closes = Arrays.copyOf(series.closes, size);
+                copy.volumes = Arrays.copyOf(series.volumes, size);
+                copy.size = size;
+                copy.coveredFrom = series.coveredFrom;
+                copy.coveredTo = series.coveredTo;
+            }
+            copies.add(copy);
+            bytes += 2 * Short.BYTES + copy.symbol.length() + copy.interval.label.length()
+                    + 2 * Long.BYTES + Integer.BYTES + (long) copy.size * (Long.BYTES + 5 * Double.BYTES);
+        }
+
+        Path temporary = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        try {
+            if (snapshotPath.getParent() != null) {
+                Files.createDirectories(snapshotPath.getParent());
+            }
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+                buffer.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION).putInt(copies.size());
+                for (Series series : copies) {
+                    writeString(buffer, series.symbol);
+                    writeString(buffer, series.interval.label);
+                    buffer.putLong(series.coveredFrom).putLong(series.coveredTo).putInt(series.size);
+                    writeLongs(buffer, series.openTimes);
+                    writeDoubles(buffer, series.opens);
+                    writeDoubles(buffer, series.highs);
+                    writeDoubles(buffer, series.lows);
+                    writeDoubles(buffer, series.closes);
+                    writeDoubles(buffer, series.volumes);
+                }
+                buffer.force();
+            }
+            Files.move(temporary, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Failed to save kline snapshot: " + e.getMessage());
+        }
+    }
+
+    // Symbols and interval labels are ASCII
+    private static void writeString(ByteBuffer buffer, String value) {
+        buffer.putShort((short) value.length()).put(value.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    private static void writeLongs(ByteBuffer buffer, long[] values) {
+        buffer.asLongBuffer().put(values);
+        buffer.position(buffer.position() + values.length * Long.BYTES);
+    }
+
+    private static long[] readLongs(ByteBuffer buffer, int size) {
+        long[] values = new long[size];
+        buffer.asLongBuffer().get(values);
+        buffer.position(buffer.position() + size * Long.BYTES);
+        return values;
+    }
+
+    private static void writeDoubles(ByteBuffer buffer, double[] values) {
+        buffer.asDoubleBuffer().put(values);
+        buffer.position(buffer.position() + values.length * Double.BYTES);
+    }
+
+    private static double[] readDoubles(ByteBuffer buffer, int size) {
+        double[] values = new double[size];
+        buffer.asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + size * Double.BYTES);
+        return values;
+    }
+}
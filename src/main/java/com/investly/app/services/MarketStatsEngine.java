@@ -0,0 +1,321 @@
+package com.investly.app.services;
+
+import com.investly.app.dto.TopMovers;
+import com.investly.app.dto.TopMovers.Mover;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rolling price change per USDT pair over 1 hour, 24 hours and 7 days, with the top movers of each
+ * timeframe ready to serve without an exchange call.
+ * <p>
+ * Every timeframe keeps a ring buffer of prices per symbol in one primitive array, one slot per bucket
+ * (1 minute, 15 minutes, 1 hour), written with the last price whenever a bucket starts; the change is
+ * measured against the oldest slot. Live prices come from the {@link PriceBook}'s ticker stream, and a
+ * periodic bulk /api/v3/ticker/24hr snapshot fills in prices without the stream and supplies the
+ * exchange's own rolling 24h open, which is used for the 24h change while it is recent. Rankings are
+ * bounded top-K selections over the change arrays, rebuilt when a query finds prices changed since the
+ * last one and otherwise served as is.
+ */
+@Component
+public class MarketStatsEngine {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MarketStatsEngine.class);
+
+    private static final String QUOTE_ASSET = "USDT";
+    private static final long DAILY_OPEN_MAX_AGE_MS = TimeUnit.HOURS.toMillis(1);
+
+    public enum Timeframe {
+        H1("1h", 60, TimeUnit.MINUTES.toMillis(1)),
+        H24("24h", 96, TimeUnit.MINUTES.toMillis(15)),
+        D7("7d", 168, TimeUnit.HOURS.toMillis(1));
+
+        final String label;
+        final int slots;
+        final long bucketMillis;
+
+        Timeframe(String label, int slots, long bucketMillis) {
+            this.label = label;
+            this.slots = slots;
+            this.bucketMillis = bucketMillis;
+        }
+
+        public static Timeframe of(String label) {
+            for (Timeframe timeframe : values()) {
+                if (timeframe.label.equals(label)) {
+                    return timeframe;
+                }
+            }
+            throw new IllegalArgumentException("Unknown timeframe: " + label);
+        }
+    }
+
+    @FunctionalInterface
+    public interface DailyTickerListener {
+        void onTicker(String symbol, double openPrice, double lastPrice);
+    }
+
+    private record Ranking(List<Mover> gainers, List<Mover> losers, int symbols, boolean windowComplete, long asOf) {
+        static final Ranking EMPTY = new Ranking(List.of(), List.of(), 0, false, 0);
+    }
+
+    private static final int TIMEFRAMES = Timeframe.values().length;
+
+    private final String binanceBaseUrl;
+    private final BinanceRequestScheduler requestScheduler;
+    private final int maxRanked;
+
+    @Value("${binance.market-stats.refresh-enabled:true}")
+    private boolean refreshEnabled = true;
+
+    // Everything below is guarded by this
+    private final Map<String, Integer> indexBySymbol = new HashMap<>();
+    private String[] symbols = new String[256];
+    private double[] lastPrices = new double[256];
+    private double[] dailyOpens = new double[256];
+    private long dailyOpensAt;
+    private int symbolCount;
+    private final double[][] rings = new double[TIMEFRAMES][];
+    private final long[] buckets = new long[TIMEFRAMES];
+    private final int[] filled = new int[TIMEFRAMES];
+    private final boolean[] dirty = new boolean[TIMEFRAMES];
+    private final Ranking[] rankings = new Ranking[TIMEFRAMES];
+
+    // Scratch space for rebuilding rankings
+    private double[] changes = new double[256];
+    private final int[] heap;
+
+    @Autowired
+    public MarketStatsEngine(@Value("${binance.api.baseurl}") String binanceBaseUrl,
+                             @Value("${binance.market-stats.max-ranked:50}") int maxRanked,
+                             BinanceRequestScheduler requestScheduler,
+                             PriceBook priceBook) {
+        if (maxRanked < 1) {
+            throw new IllegalStateException("binance.market-stats.max-ranked must be at least 1, was " + maxRanked);
+        }
+        this.binanceBaseUrl = binanceBaseUrl;
+        this.requestScheduler = requestScheduler;
+        this.maxRanked = maxRanked;
+        this.heap = new int[maxRanked];
+        for (Timeframe timeframe : Timeframe.values()) {
+            rings[timeframe.ordinal()] = new double[symbols.length * timeframe.slots];
+            buckets[timeframe.ordinal()] = -1;
+            rankings[timeframe.ordinal()] = Ranking.EMPTY;
+        }
+        priceBook.addListener(this::onPrice);
+    }
+
+    public void onPrice(String symbol, double price) {
+        onPrice(symbol, price, System.currentTimeMillis());
+    }
+
+    synchronized void onPrice(String symbol, double price, long now) {
+        if (price <= 0 || !symbol.endsWith(QUOTE_ASSET)) {
+            return;
+        }
+        roll(now);
+        int index = index(symbol, price); // May grow lastPrices
+        lastPrices[index] = price;
+        Arrays.fill(dirty, true);
+    }
+
+    /**
+     * Applies one entry of a 24hr ticker snapshot taken at {@code now}.
+     */
+    synchronized void onDailyTicker(String symbol, double openPrice, double lastPrice, long now) {
+        if (lastPrice <= 0 || !symbol.endsWith(QUOTE_ASSET)) {
+            return;
+        }
+        roll(now);
+        int index = index(symbol, lastPrice);
+        lastPrices[index] = lastPrice;
+        dailyOpens[index] = openPrice;
+        dailyOpensAt = now;
+        Arrays.fill(dirty, true);
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${binance.market-stats.snapshot-interval-ms:300000}")
+    public void scheduledRefresh() {
+        if (refreshEnabled) {
+            refreshSnapshot();
+        }
+    }
+
+    public void refreshSnapshot() {
+        Request request = new Request.Builder()
+                .url(binanceBaseUrl + "/api/v3/ticker/24hr")
+                .get()
+                .build();
+
+        try (Response response = requestScheduler.execute(BinanceRequestClass.BACKGROUND, 80, request)) {
+            if (!response.isSuccessful()) {
+                LOGGER.error("Failed to fetch 24hr ticker snapshot. HTTP Code: " + response.code());
+                return;
+            }
+            long now = System.currentTimeMillis();
+            int count = BinanceResponseDecoder.dailyTickers(response.body().charStream(),
+                    (symbol, openPrice, lastPrice) -> onDailyTicker(symbol, openPrice, lastPrice, now));
+            LOGGER.info("Loaded 24hr ticker snapshot for " + count + " symbols");
+        } catch (Exception e) {
+            LOGGER.error("Exception in refreshSnapshot: " + e.getMessage());
+        }
+    }
+
+    public TopMovers topMovers(Timeframe timeframe, int limit) {
+        return topMovers(timeframe, limit, System.currentTimeMillis());
+    }
+
+    synchronized TopMovers topMovers(Timeframe timeframe, int limit, long now) {
+        roll(now);
+        int t = timeframe.ordinal();
+        if (dirty[t]) {
+            rankings[t] = rank(timeframe, now);
+            dirty[t] = false;
+        }
+        Ranking ranking = rankings[t];
+        int count = Math.max(0, Math.min(limit, maxRanked));
+        return new TopMovers(timeframe.label,
+                ranking.gainers().subList(0, Math.min(count, ranking.gainers().size())),
+                ranking.losers().subList(0, Math.min(count, ranking.losers().size())),
+                ranking.symbols(), ranking.windowComplete(), ranking.asOf());
+    }
+
+    // Starts the buckets that began since the last call, recording the last price of every symbol
+    private void roll(long now) {
+        for (Timeframe timeframe : Timeframe.values()) {
+            int t = timeframe.ordinal();
+            long bucket = now / timeframe.bucketMillis;
+            if (bucket <= buckets[t]) {
+                continue;
+            }
+            long steps = buckets[t] < 0 ? 1 : Math.min(bucket - buckets[t], timeframe.slots);
+            double[] ring = rings[t];
+            for (long step = steps - 1; step >= 0; step--) {
+                int slot = (int) ((bucket - step) % timeframe.slots);
+                for (int i = 0; i < symbolCount; i++) {
+                    ring[i * timeframe.slots + slot] = lastPrices[i];
+                }
+            }
+            buckets[t] = bucket;
+            filled[t] = (int) Math.min(filled[t] + steps, timeframe.slots);
+            dirty[t] = true;
+        }
+    }
+
+    private int index(String symbol, double firstPrice) {
+        Integer existing = indexBySymbol.get(symbol);
+        if (existing != null) {
+            return existing;
+        }
+        int index = symbolCount++;
+        if (index == symbols.length) {
+            grow();
+        }
+        symbols[index] = symbol;
+        indexBySymbol.put(symbol, index);
+        // A new symbol's history starts at its first price
+        for (Timeframe timeframe : Timeframe.values()) {
+            Arrays.fill(rings[timeframe.ordinal()], index * timeframe.slots, (index + 1) * timeframe.slots, firstPrice);
+        }
+        return index;
+    }
+
+    private void grow() {
+        int capacity = symbols.length * 2;
+        symbols = Arrays.copyOf(symbols, capacity);
+        lastPrices = Arrays.copyOf(lastPrices, capacity);
+        dailyOpens = Arrays.copyOf(dailyOpens, capacity);
+        changes = Arrays.copyOf(changes, capacity);
+        for (Timeframe timeframe : Timeframe.values()) {
+            rings[timeframe.ordinal()] = Arrays.copyOf(rings[timeframe.ordinal()], capacity * timeframe.slots);
+        }
+    }
+
+    private Ranking rank(Timeframe timeframe, long now) {
+        int t = timeframe.ordinal();
+        boolean useDailyOpen = timeframe == Timeframe.H24 && now - dailyOpensAt <= DAILY_OPEN_MAX_AGE_MS;
+        double[] ring = rings[t];
+        int oldestSlot = (int) ((buckets[t] - filled[t] + 1) % timeframe.slots);
+
+        for (int i = 0; i < symbolCount; i++) {
+            double reference = useDailyOpen && dailyOpens[i] > 0 ? dailyOpens[i] : ring[i * timeframe.slots + oldestSlot];
+            changes[i] = reference > 0 && lastPrices[i] > 0 ? (lastPrices[i] - reference) / reference * 100 : 0;
+        }
+
+        return new Ranking(select(true), select(false), symbolCount,
+                useDailyOpen || filled[t] == timeframe.slots, now);
+    }
+
+    // Bounded heap selection of the largest (or smallest) non-zero changes, O(n log k)
+    private List<Mover> select(boolean gainers) {
+        double sign = gainers ? 1 : -1;
+        int size = 0;
+        for (int i = 0; i < symbolCount; i++) {
+            double key = sign * changes[i];
+            if (key <= 0) {
+                continue;
+            }
+            if (size < heap.length) {
+                heap[size] = i;
+                siftUp(size++, sign);
+            } else if (key > sign * changes[heap[0]]) {
+                heap[0] = i;
+                siftDown(0, size, sign);
+            }
+        }
+
+        // Draining the min-heap yields the selection smallest first
+        Mover[] movers = new Mover[size];
+        for (int remaining = size; remaining > 0; remaining--) {
+            int i = heap[0];
+            movers[remaining - 1] = new Mover(symbols[i], lastPrices[i], Math.round(changes[i] * 100) / 100.0);
+            heap[0] = heap[remaining - 1];
+            siftDown(0, remaining - 1, sign);
+        }
+        return List.of(movers);
+    }
+
+    private void siftUp(int position, double sign) {
+        int item = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (sign * changes[heap[parent]] <= sign * changes[item]) {
+                break;
+            }
+            heap[position] = heap[parent];
+            position = parent;
+        }
+        heap[position] = item;
+    }
+
+    private void siftDown(int position, int size, double sign) {
+        int item = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && sign * changes[heap[child + 1]] < sign * changes[heap[child]]) {
+                child++;
+            }
+            if (sign * changes[item] <= sign * changes[heap[child]]) {
+                break;
+            }
+            heap[position] = heap[child];
+            position = child;
+        }
+        heap[position] = item;
+    }
+}
@@ -7,11 +7,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.util.Optional;
 
 
 import java.time.OffsetDateTime;
-import java.util.UUID;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
@@ -19,33 +18,26 @@ public class MessageService {
 
     private final MessageRepository messageRepository;
 
+    private final ConversationSessionManager conversationSessions;
+
     @Autowired
     private AIService aiService;
 
-    public MessageEntity createMessage(String userMessage) throws IOException {
-        String threadId = getLatestOpenThread();
-
-        if (threadId == null) {
-            threadId = aiService.createThread();
-        }
+    public MessageEntity createMessage(String conversationKey, String userMessage) throws IOException {
+        String threadId = conversationSessions.threadIdFor(conversationKey, aiService::createThread);
 
         MessageEntity message = new MessageEntity();
         message.setTextPrompt(userMessage);
         message.setTimestamp(OffsetDateTime.now());
         message.setThreadId(threadId);
+        message.setConversationKey(conversationKey);
 
         messageRepository.save(message);
         return message;
     }
 
-
-    public String processMessage(String userMessage) {
-        return aiService.processUserMessage(userMessage);
-    }
-
-    private String getLatestOpenThread() {
-        Optional<MessageEntity> lastMessage = messageRepository.findFirstByOrderByTimestampDesc();
-        return lastMessage.map(MessageEntity::getThreadId).orElse(null);
+    public String processMessage(String conversationKey, String userMessage, Consumer<String> deltaConsumer) {
+        return aiService.processUserMessage(conversationKey, userMessage, deltaConsumer);
     }
 
 }
@@ -0,0 +1,326 @@
+package com.investly.app.services;
+
+import com.investly.app.dto.OrderEvent;
+import com.investly.app.dto.OrderResult;
+import com.investly.app.dto.SymbolFilters;
+import jakarta.annotation.PreDestroy;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Submits market orders asynchronously.
+ * <p>
+ * The inputs an order needs are fetched concurrently: the prices of the pair (and EUR/USDT for EUR
+ * amounts) in one batched request, the symbol filters and the server time offset, which normally all
+ * come from in-memory caches, leaving the POST as the only exchange round trip. Every order carries a
+ * {@code newClientOrderId} derived from the request as the caller made it (pair, side, amount, currency
+ * and an idempotency key), and is retried with the same id after a timeout, a 5xx (unknown execution
+ * status) or a clock error, with exponential backoff up to a fixed number of attempts.
+ * <p>
+ * Binance only rejects a reused client order id while that order is still open, and a market order
+ * fills at once, so the id alone does not stop a resend from placing a second order. Before every resend,
+ * and before the first send of an order with a caller's idempotency key, the id is looked up and the
+ * order is only sent if the exchange does not know it. Lifecycle events are published on
+ * {@code /topic/orders}.
+ */
+@Component
+public class OrderPipeline {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderPipeline.class);
+
+    public static final String ORDER_TOPIC = "/topic/orders";
+
+    // Lot step used when a symbol's exchange filters are not loaded, 0.01
+    private static final long DEFAULT_STEP_SIZE = 1_000_000L;
+
+    private static final String CLIENT_ORDER_ID_PREFIX = "inv-";
+    private static final String DUPLICATE_ORDER = "Duplicate order sent";
+    private static final String UNKNOWN_ORDER = "-2013";
+
+    // keyed: the id comes from a caller's idempotency key, so an earlier submission may have placed it
+    private record PreparedOrder(String symbol, String side, long quantity, int decimals, String clientOrderId,
+                                 boolean keyed) {
+    }
+
+    // An exchange answer that may or may not have placed the order, so sending it again is safe only
+    // with the same client order id
+    private static final class RetryableOrderException extends TradeException {
+        RetryableOrderException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    private final String binanceBaseUrl;
+    private final String binanceApiKey;
+    private final BinanceRequestScheduler requestScheduler;
+    private final RequestSigner requestSigner;
+    private final BinanceServerClock serverClock;
+    private final PriceBook priceBook;
+    private final SymbolFilterCache symbolFilterCache;
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final ExecutorService executor;
+
+    @Autowired
+    public OrderPipeline(@Value("${binance.api.baseurl}") String binanceBaseUrl,
+                         @Value("${binance.api.key}") String binanceApiKey,
+                         @Value("${binance.orders.max-attempts:3}") int maxAttempts,
+                         @Value("${binance.orders.retry-backoff-ms:250}") long retryBackoffMillis,
+                         @Value("${binance.orders.max-concurrency:16}") int maxConcurrency,
+                         BinanceRequestScheduler requestScheduler,
+                         RequestSigner requestSigner,
+                         BinanceServerClock serverClock,
+                         PriceBook priceBook,
+                         SymbolFilterCache symbolFilterCache,
+                         SimpMessageSendingOperations messagingTemplate) {
+        this.binanceBaseUrl = binanceBaseUrl;
+        this.binanceApiKey = binanceApiKey;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.requestScheduler = requestScheduler;
+        this.requestSigner = requestSigner;
+        this.serverClock = serverClock;
+        this.priceBook = priceBook;
+        this.symbolFilterCache = symbolFilterCache;
+        this.messagingTemplate = messagingTemplate;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "binance-orders-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Order bursts queue for a thread instead of each growing the pool; idle threads are released
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+    }
+
+    /**
+     * Places a market order for the given quote amount. The future fails with a {@link TradeException}
+     * if the order is rejected or every attempt failed.
+     *
+     * @param idempotencyKey callers that may submit the same order again pass the same key, so both
+     *                       submissions carry the same client order id; null for a one-off order
+     */
+    public CompletableFuture<OrderResult> submit(String tradingPair, String side, double amount, String currency,
+                                                 String idempotencyKey) {
+        boolean eur = currency.equalsIgnoreCase("EUR");
+        boolean keyed = idempotencyKey != null && !idempotencyKey.isBlank();
+        String clientOrderId = clientOrderId(tradingPair, side.toUpperCase(), FixedPoint.of(amount),
+                currency.toUpperCase(), keyed ? idempotencyKey : UUID.randomUUID().toString());
+
+        CompletableFuture<Map<String, Double>> prices = CompletableFuture.supplyAsync(() ->
+                priceBook.getPrices(eur ? List.of(tradingPair, "EURUSDT") : List.of(tradingPair)), executor);
+        CompletableFuture<SymbolFilters> filters = CompletableFuture.supplyAsync(() ->
+                symbolFilterCache.get(tradingPair).orElse(null), executor);
+        // Resolved up front so the first signed request never waits for a clock sample
+        CompletableFuture<Long> clockReady = CompletableFuture.supplyAsync(serverClock::currentOffsetMillis, executor);
+
+        return prices.thenCombine(filters, (quotes, symbolFilters) ->
+                        prepare(tradingPair, side.toUpperCase(), amount, eur, quotes, symbolFilters, clientOrderId, keyed))
+                .thenCombine(clockReady, (order, offset) -> order)
+                .thenCompose(order -> {
+                    publish(order, "SUBMITTED", null, 1, null);
+                    return send(order, 1);
+                });
+    }
+
+    private PreparedOrder prepare(String tradingPair, String side, double amount, boolean eur,
+                                  Map<String, Double> prices, SymbolFilters filters, String clientOrderId,
+                                  boolean keyed) {
+        // Money is fixed point from here on, rounded and written with the symbol's own precision
+        long quoteAmount = FixedPoint.of(amount);
+        if (eur) {
+            long usdtRate = FixedPoint.of(prices.getOrDefault("EURUSDT", 0.0));
+            if (usdtRate <= 0) {
+                throw new TradeException("Failed to fetch EUR/USDT conversion rate");
+            }
+            quoteAmount = FixedPoint.multiply(quoteAmount, usdtRate); // Convert EUR to USDT
+        }
+
+        long cryptoPrice = FixedPoint.of(prices.getOrDefault(tradingPair, 0.0));
+        if (cryptoPrice <= 0) {
+            throw new TradeException("Failed to fetch price for " + tradingPair);
+        }
+
+        if (filters == null || filters.stepSize() <= 0) {
+            LOGGER.warn("Using default rounding (2 decimals) for " + tradingPair);
+            filters = new SymbolFilters(tradingPair, DEFAULT_STEP_SIZE, 0, 0, 0);
+        }
+
+        // Round down to the lot step so the order never exceeds the requested amount
+        long quantity = FixedPoint.floorToStep(FixedPoint.divide(quoteAmount, cryptoPrice), filters.stepSize());
+        if (quantity <= 0 || quantity < filters.minQty()) {
+            throw new TradeException("Order amount is below the minimum quantity for " + tradingPair);
+        }
+        if (FixedPoint.multiply(quantity, cryptoPrice) < filters.minNotional()) {
+            throw new TradeException("Order amount is below the minimum order value for " + tradingPair);
+        }
+        return new PreparedOrder(tradingPair, side, quantity, filters.quantityDecimals(), clientOrderId, keyed);
+    }
+
+    private CompletableFuture<OrderResult> send(PreparedOrder order, int attempt) {
+        return CompletableFuture.supplyAsync(() -> execute(order, attempt), executor)
+                .handle((result, failure) -> {
+                    if (failure == null) {
+                        publish(order, result.status(), result, attempt, null);
+                        return CompletableFuture.completedFuture(result);
+                    }
+                    Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                            ? failure.getCause() : failure;
+                    if (cause instanceof RetryableOrderException && attempt < maxAttempts) {
+                        long delay = retryBackoffMillis << (attempt - 1);
+                        LOGGER.warn("Order " + order.clientOrderId() + " attempt " + attempt + " failed, retrying in "
+                                + delay + " ms: " + cause.getMessage());
+                        publish(order, "RETRYING", null, attempt, cause.getMessage());
+                        return CompletableFuture.supplyAsync(() -> order,
+                                        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, executor))
+                                .thenCompose(retry -> send(retry, attempt + 1));
+                    }
+                    publish(order, "FAILED", null, attempt, cause.getMessage());
+                    return CompletableFuture.<OrderResult>failedFuture(cause);
+                })
+                .thenCompose(next -> next);
+    }
+
+    private OrderResult execute(PreparedOrder order, int attempt) {
+        if (attempt > 1 || order.keyed()) {
+            // An earlier send may have filled even though its answer was lost
+            try {
+                Optional<OrderResult> placed = lookup(order);
+                if (placed.isPresent()) {
+                    return placed.get();
+                }
+            } catch (IOException e) {
+                LOGGER.error("Exception in order lookup: " + e.getMessage());
+                throw new RetryableOrderException("Error looking up order: " + e.getMessage(), e);
+            }
+        }
+
+        StringBuilder query = new StringBuilder(160)
+                .append("symbol=").append(order.symbol())
+                .append("&side=").append(order.side())
+                .append("&type=MARKET&quantity=");
+        FixedPoint.append(query, order.quantity(), order.decimals())
+                .append("&newClientOrderId=").append(order.clientOrderId())
+                .append("&newOrderRespType=RESULT")
+                .append("&timestamp=").append(System.currentTimeMillis() + serverClock.currentOffsetMillis());
+        String url = binanceBaseUrl + "/api/v3/order?" + requestSigner.sign(query);
+
+        LOGGER.info("Sending Binance order request (attempt " + attempt + "): " + url);
+
+        Request request = new Request.Builder()
+                .url(url)
+                .post(RequestBody.create(new byte[0], null))
+                .addHeader("X-MBX-APIKEY", binanceApiKey)
+                .build();
+
+        try (Response response = requestScheduler.execute(BinanceRequestClass.ORDER, 1, request)) {
+            if (response.isSuccessful()) {
+                return BinanceResponseDecoder.order(response.body().charStream());
+            }
+            String errorBody = response.body().string();
+            LOGGER.error("Failed to place order. HTTP Code: " + response.code() + ", Error: " + errorBody);
+            if (errorBody.contains(DUPLICATE_ORDER)) {
+                // Still open from an earlier send
+                return lookup(order).orElseThrow(() ->
+                        new RetryableOrderException("Failed to place order: " + errorBody, null));
+            }
+            if (errorBody.contains("-1021")) {
+                serverClock.resync(); // Timestamp outside recvWindow, our offset estimate is off
+                throw new RetryableOrderException("Failed to place order: " + errorBody, null);
+            }
+            if (response.code() >= 500) {
+                throw new RetryableOrderException("Failed to place order: " + errorBody, null);
+            }
+            throw new TradeException("Failed to place order: " + errorBody);
+        } catch (IOException e) {
+            LOGGER.error("Exception in placeOrder: " + e.getMessage());
+            throw new RetryableOrderException("Error placing order: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The order placed under the order's client id, or empty if the exchange reports it does not exist.
+     * Any other failure leaves the outcome unknown and is retryable.
+     */
+    private Optional<OrderResult> lookup(PreparedOrder order) throws IOException {
+        StringBuilder query = new StringBuilder(128)
+                .append("symbol=").append(order.symbol())
+                .append("&origClientOrderId=").append(order.clientOrderId())
+                .append("&timestamp=").append(System.currentTimeMillis() + serverClock.currentOffsetMillis());
+        Request request = new Request.Builder()
+                .url(binanceBaseUrl + "/api/v3/order?" + requestSigner.sign(query))
+                .get()
+                .addHeader("X-MBX-APIKEY", binanceApiKey)
+                .build();
+
+        try (Response response = requestScheduler.execute(BinanceRequestClass.ORDER, 4, request)) {
+            if (response.isSuccessful()) {
+                return Optional.of(BinanceResponseDecoder.order(response.body().charStream()));
+            }
+            String errorBody = response.body().string();
+            if (errorBody.contains(UNKNOWN_ORDER)) {
+                return Optional.empty();
+            }
+            throw new RetryableOrderException("Failed to look up order " + order.clientOrderId() + ": " + errorBody, null);
+        }
+    }
+
+    private void publish(PreparedOrder order, String status, OrderResult result, int attempt, String message) {
+        try {
+            messagingTemplate.convertAndSend(ORDER_TOPIC, new OrderEvent(order.clientOrderId(), order.symbol(),
+                    order.side(), status, result != null ? result.orderId() : 0,
+                    result != null ? result.executedQty() : 0, attempt, message, System.currentTimeMillis()));
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to publish order event: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Client order id for an order request, the same for the same pair, side, fixed-point amount, currency
+     * and key whatever the price at the time. Binance accepts up to 36 characters from
+     * {@code [.A-Z:/a-z0-9_-]}.
+     */
+    static String clientOrderId(String tradingPair, String side, long amount, String currency, String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((tradingPair + '|' + side + '|' + amount + '|' + currency + '|' + key)
+                    .getBytes(StandardCharsets.UTF_8));
+            return CLIENT_ORDER_ID_PREFIX + HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
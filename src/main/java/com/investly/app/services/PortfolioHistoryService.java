@@ -0,0 +1,221 @@
+package com.investly.app.services;
+
+import com.investly.app.dao.PortfolioSnapshotEntity;
+import com.investly.app.dao.PortfolioSnapshotEntity.Resolution;
+import com.investly.app.dao.PortfolioSnapshotRepository;
+import com.investly.app.dto.Portfolio;
+import com.investly.app.dto.PortfolioHistory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recorded history of the portfolio's USD value, so charts and "how did my portfolio do" questions are
+ * answered from the database instead of the exchange.
+ * <p>
+ * A snapshot is stored at minute resolution as one row per held asset plus a total row, saved as one
+ * batch. A rollup job turns the last snapshot of every hour into hourly rows and of every day into daily
+ * rows, resuming from the newest bucket it rolled up before (which may have been incomplete), and drops
+ * minute and hourly rows past their retention; daily rows are kept. A history query reads the finest
+ * resolution that still covers its range in one indexed query. The latest snapshot is also kept in
+ * memory for portfolio widgets.
+ */
+@Service
+public class PortfolioHistoryService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PortfolioHistoryService.class);
+
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    // Longest ranges served at minute and hourly resolution
+    private static final long MINUTE_MAX_RANGE = DAY;
+    private static final long HOUR_MAX_RANGE = TimeUnit.DAYS.toMillis(31);
+
+    private record Snapshot(Portfolio portfolio, long time) {
+    }
+
+    private final PortfolioSnapshotRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final long maxSnapshotAgeMillis;
+    private final long minuteRetentionMillis;
+    private final long hourRetentionMillis;
+
+    private volatile Snapshot latest;
+
+    @Value("${portfolio.snapshots.enabled:true}")
+    private boolean enabled = true;
+
+    @Autowired
+    public PortfolioHistoryService(@Value("${portfolio.snapshots.interval-ms:60000}") long intervalMillis,
+                                   @Value("${portfolio.snapshots.minute-retention-ms:172800000}") long minuteRetentionMillis,
+                                   @Value("${portfolio.snapshots.hour-retention-ms:7776000000}") long hourRetentionMillis,
+                                   PortfolioSnapshotRepository repository,
+                                   PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // One missed snapshot is tolerated before widgets go back to the exchange
+        this.maxSnapshotAgeMillis = 2 * intervalMillis;
+        this.minuteRetentionMillis = minuteRetentionMillis;
+        this.hourRetentionMillis = hourRetentionMillis;
+    }
+
+    public void record(Portfolio portfolio) {
+        record(portfolio, System.currentTimeMillis());
+    }
+
+    /**
+     * Stores the portfolio as the snapshot of the minute {@code now} falls in; later snapshots in the same
+     * minute only replace the in-memory latest one. After a restart the first snapshot checks the
+     * database, since the minute may already have been stored before the restart.
+     */
+    void record(Portfolio portfolio, long now) {
+        long bucket = now - now % MINUTE;
+        Snapshot previous = latest;
+        latest = new Snapshot(portfolio, now);
+        if (previous != null ? previous.time() - previous.time() % MINUTE == bucket
+                : repository.existsByResolutionAndBucketTime(Resolution.MINUTE, bucket)) {
+            return;
+        }
+
+        List<PortfolioSnapshotEntity> rows = new ArrayList<>(portfolio.balances().size() + 1);
+        portfolio.balances().forEach((asset, balance) -> rows.add(PortfolioSnapshotEntity.of(
+                Resolution.MINUTE, bucket, asset, balance.amount(), balance.usdValue())));
+        rows.add(PortfolioSnapshotEntity.of(Resolution.MINUTE, bucket, PortfolioSnapshotEntity.TOTAL_ASSET, 0,
+                portfolio.totalValueUsd()));
+        // One transaction; the sequence hands out ids in blocks, so the inserts go out as a JDBC batch
+        repository.saveAll(rows);
+    }
+
+    /**
+     * The last recorded portfolio, unless it is older than two snapshot intervals.
+     */
+    public Optional<Portfolio> latest() {
+        Snapshot snapshot = latest;
+        if (snapshot == null || System.currentTimeMillis() - snapshot.time() > maxSnapshotAgeMillis) {
+            return Optional.empty();
+        }
+        return Optional.of(snapshot.portfolio());
+    }
+
+    /**
+     * Portfolio value for the buckets between {@code from} and {@code to} (epoch millis), including the
+     * bucket {@code from} falls in.
+     */
+    public PortfolioHistory history(long from, long to) {
+        return history(from, to, System.currentTimeMillis());
+    }
+
+    PortfolioHistory history(long from, long to, long now) {
+        Resolution resolution;
+        long bucketMillis;
+        if (to - from <= MINUTE_MAX_RANGE && from >= now - minuteRetentionMillis) {
+            resolution = Resolution.MINUTE;
+            bucketMillis = MINUTE;
+        } else if (to - from <= HOUR_MAX_RANGE && from >= now - hourRetentionMillis) {
+            resolution = Resolution.HOUR;
+            bucketMillis = HOUR;
+        } else {
+            resolution = Resolution.DAY;
+            bucketMillis = DAY;
+        }
+        List<PortfolioSnapshotEntity> rows = repository.findByResolutionAndBucketTimeBetweenOrderByBucketTimeAsc(
+                resolution, from - from % bucketMillis, to);
+
+        int points = 0;
+        long previous = Long.MIN_VALUE;
+        for (PortfolioSnapshotEntity row : rows) {
+            if (row.getBucketTime() != previous) {
+                points++;
+                previous = row.getBucketTime();
+            }
+        }
+        long[] bucketTime = new long[points];
+        double[] totalValueUsd = new double[points];
+        Map<String, double[]> assetValuesUsd = new TreeMap<>();
+        int index = -1;
+        for (PortfolioSnapshotEntity row : rows) {
+            if (index < 0 || row.getBucketTime() != bucketTime[index]) {
+                bucketTime[++index] = row.getBucketTime();
+            }
+            if (PortfolioSnapshotEntity.TOTAL_ASSET.equals(row.getAsset())) {
+                totalValueUsd[index] = row.getUsdValue();
+            } else {
+                assetValuesUsd.computeIfAbsent(row.getAsset(), asset -> new double[bucketTime.length])[index] =
+                        row.getUsdValue();
+            }
+        }
+
+        double changeUsd = points > 0 ? totalValueUsd[points - 1] - totalValueUsd[0] : 0;
+        double changePercent = points > 0 && totalValueUsd[0] > 0
+                ? Math.round(changeUsd / totalValueUsd[0] * 10_000) / 100.0 : 0;
+        return new PortfolioHistory(resolution.name(), bucketTime, totalValueUsd, assetValuesUsd, changeUsd,
+                changePercent);
+    }
+
+    @Scheduled(initialDelayString = "${portfolio.snapshots.rollup-interval-ms:300000}",
+            fixedDelayString = "${portfolio.snapshots.rollup-interval-ms:300000}")
+    public void scheduledRollUp() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            rollUp(System.currentTimeMillis());
+        } catch (Exception e) {
+            LOGGER.error("Failed to roll up portfolio snapshots: " + e.getMessage());
+        }
+    }
+
+    void rollUp(long now) {
+        transactionTemplate.executeWithoutResult(status -> {
+            int hours = rollUp(Resolution.MINUTE, Resolution.HOUR, HOUR);
+            int days = rollUp(Resolution.HOUR, Resolution.DAY, DAY);
+            int expired = repository.deleteBefore(Resolution.MINUTE, now - minuteRetentionMillis)
+                    + repository.deleteBefore(Resolution.HOUR, now - hourRetentionMillis);
+            LOGGER.info("Rolled up " + hours + " hourly and " + days + " daily portfolio rows, dropped " + expired);
+        });
+    }
+
+    // Rebuilds the target buckets from the newest one already rolled up, each from the last snapshot in it
+    private int rollUp(Resolution source, Resolution target, long bucketMillis) {
+        long from = repository.findLastBucketTime(target).orElse(0L);
+        List<PortfolioSnapshotEntity> rows =
+                repository.findByResolutionAndBucketTimeGreaterThanEqualOrderByBucketTimeAsc(source, from);
+
+        List<PortfolioSnapshotEntity> rolledUp = new ArrayList<>();
+        int start = 0;
+        while (start < rows.size()) {
+            long bucket = rows.get(start).getBucketTime() - rows.get(start).getBucketTime() % bucketMillis;
+            int end = start;
+            long lastTime = bucket;
+            while (end < rows.size() && rows.get(end).getBucketTime() - bucket < bucketMillis) {
+                lastTime = rows.get(end).getBucketTime();
+                end++;
+            }
+            for (int i = start; i < end; i++) {
+                PortfolioSnapshotEntity row = rows.get(i);
+                if (row.getBucketTime() == lastTime) {
+                    rolledUp.add(PortfolioSnapshotEntity.of(target, bucket, row.getAsset(), row.getAmount(),
+                            row.getUsdValue()));
+                }
+            }
+            start = end;
+        }
+
+        repository.deleteFrom(target, from);
+        repository.saveAll(rolledUp);
+        return rolledUp.size();
+    }
+}
@@ -0,0 +1,212 @@
+package com.investly.app.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Local book of last traded prices keyed by symbol.
+ * <p>
+ * A {@link PriceStream} keeps the book current. Reads never lock; a price older than the staleness
+ * bound (or missing) triggers one bulk /api/v3/ticker/price snapshot that refreshes every symbol at once.
+ * Callers that need several prices use {@link #getPrices}, which fetches only the stale ones in a single
+ * {@code symbols=[...]} request. The exchange fails that request as a whole for one unknown symbol, so
+ * symbols missing from the {@link SymbolFilterCache} are left out of it, and a failed request falls back
+ * to the bulk snapshot.
+ */
+@Service
+public class PriceBook {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PriceBook.class);
+
+    private record Quote(double price, long updatedAt) {
+    }
+
+    private final Map<String, Quote> quotes = new ConcurrentHashMap<>();
+    private final BinanceRequestScheduler requestScheduler;
+    private final SymbolFilterCache symbolFilterCache;
+    private final String binanceBaseUrl;
+    private final long maxStalenessMillis;
+    private final PriceStream priceStream;
+    private final List<PriceStream.PriceListener> listeners = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    public PriceBook(@Value("${binance.api.baseurl}") String binanceBaseUrl,
+                     @Value("${binance.prices.max-staleness-ms:5000}") long maxStalenessMillis,
+                     BinanceRequestScheduler requestScheduler,
+                     SymbolFilterCache symbolFilterCache,
+                     @Nullable PriceStream priceStream) {
+        this.requestScheduler = requestScheduler;
+        this.symbolFilterCache = symbolFilterCache;
+        this.binanceBaseUrl = binanceBaseUrl;
+        this.maxStalenessMillis = maxStalenessMillis;
+        this.priceStream = priceStream;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (priceStream != null) {
+            priceStream.start(this::update);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (priceStream != null) {
+            priceStream.stop();
+        }
+    }
+
+    public void update(String symbol, double price) {
+        quotes.put(symbol, new Quote(price, System.currentTimeMillis()));
+        for (PriceStream.PriceListener listener : listeners) {
+            listener.onPrice(symbol, price);
+        }
+    }
+
+    /**
+     * Registers a listener that receives every live price update after the book has applied it.
+     */
+    public void addListener(PriceStream.PriceListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Returns the latest price for the symbol, or 0 if no price within the staleness bound is available.
+     */
+    public double getPrice(String symbol) {
+        Quote quote = quotes.get(symbol);
+        if (isFresh(quote)) {
+            return quote.price();
+        }
+
+        refreshSnapshot(List.of(symbol));
+        quote = quotes.get(symbol);
+        return isFresh(quote) ? quote.price() : 0;
+    }
+
+    /**
+     * Returns the last price seen for the symbol however old it is, or 0 if none; never fetches.
+     */
+    public double lastPrice(String symbol) {
+        Quote quote = quotes.get(symbol);
+        return quote != null ? quote.price() : 0;
+    }
+
+    /**
+     * Returns the latest price for each symbol, in the given order. Symbols that have no price within the
+     * staleness bound are left out. Stale or missing symbols are fetched together in one request.
+     */
+    public Map<String, Double> getPrices(Collection<String> symbols) {
+        List<String> stale = new ArrayList<>();
+        for (String symbol : symbols) {
+            if (!isFresh(quotes.get(symbol))) {
+                stale.add(symbol);
+            }
+        }
+        if (!stale.isEmpty()) {
+            refreshSymbols(stale);
+        }
+
+        Map<String, Double> prices = new LinkedHashMap<>();
+        for (String symbol : symbols) {
+            Quote quote = quotes.get(symbol);
+            if (isFresh(quote)) {
+                prices.put(symbol, quote.price());
+            }
+        }
+        return prices;
+    }
+
+    private boolean isFresh(Quote quote) {
+        return quote != null && System.currentTimeMillis() - quote.updatedAt() <= maxStalenessMillis;
+    }
+
+    // Synchronized so a burst of stale reads results in a single snapshot download
+    private synchronized void refreshSnapshot(Collection<String> symbols) {
+        if (symbols.stream().allMatch(symbol -> isFresh(quotes.get(symbol)))) {
+            return;
+        }
+
+        Request request = new Request.Builder()
+                .url(binanceBaseUrl + "/api/v3/ticker/price")
+                .get()
+                .build();
+
+        try (Response response = requestScheduler.execute(BinanceRequestClass.MARKET_DATA, 4, request)) {
+            if (!response.isSuccessful()) {
+                LOGGER.error("Failed to fetch price snapshot. HTTP Code: " + response.code());
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+            BinanceResponseDecoder.tickerPrices(response.body().charStream(),
+                    (tickerSymbol, price) -> quotes.put(tickerSymbol, new Quote(price, now)));
+        } catch (Exception e) {
+            LOGGER.error("Exception in refreshSnapshot: " + e.getMessage());
+        }
+    }
+
+    private void refreshSymbols(List<String> stale) {
+        // Before the first exchangeInfo download nothing is known to be unlisted
+        List<String> symbols = symbolFilterCache.size() == 0 ? stale
+                : stale.stream().filter(symbol -> symbolFilterCache.get(symbol).isPresent()).toList();
+        if (symbols.size() < stale.size()) {
+            LOGGER.warn("Not pricing symbols the exchange does not list: "
+                    + stale.stream().filter(symbol -> !symbols.contains(symbol)).toList());
+        }
+        if (!symbols.isEmpty() && !fetchSymbols(symbols)) {
+            refreshSnapshot(symbols);
+        }
+    }
+
+    private boolean fetchSymbols(List<String> symbols) {
+        StringBuilder symbolsParam = new StringBuilder("[");
+        for (String symbol : symbols) {
+            if (symbolsParam.length() > 1) {
+                symbolsParam.append(',');
+            }
+            symbolsParam.append('"').append(symbol).append('"');
+        }
+        HttpUrl url = HttpUrl.get(binanceBaseUrl + "/api/v3/ticker/price").newBuilder()
+                .addQueryParameter("symbols", symbolsParam.append(']').toString())
+                .build();
+
+        Request request = new Request.Builder()
+                .url(url)
+                .get()
+                .build();
+
+        try (Response response = requestScheduler.execute(BinanceRequestClass.MARKET_DATA, 4, request)) {
+            if (!response.isSuccessful()) {
+                // -1121 if one of the symbols does not trade, which fails the whole batch
+                LOGGER.error("Failed to fetch prices for " + symbols + ". HTTP Code: " + response.code());
+                return false;
+            }
+
+            long now = System.currentTimeMillis();
+            BinanceResponseDecoder.tickerPrices(response.body().charStream(),
+                    (tickerSymbol, price) -> quotes.put(tickerSymbol, new Quote(price, now)));
+            return true;
+        } catch (Exception e) {
+            LOGGER.error("Exception in fetchSymbols: " + e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.investly.app.services;
+
+/**
+ * Source of live price updates for the {@link PriceBook}. The production implementation is
+ * {@link BinanceTickerStream}; tests plug in a local feed.
+ */
+public interface PriceStream {
+
+    void start(PriceListener listener);
+
+    void stop();
+
+    @FunctionalInterface
+    interface PriceListener {
+        void onPrice(String symbol, double price);
+    }
+}
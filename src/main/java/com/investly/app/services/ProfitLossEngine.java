@@ -0,0 +1,208 @@
+package com.investly.app.services;
+
+import com.investly.app.dao.TradeEntity;
+import com.investly.app.dao.TradeRepository;
+import com.investly.app.dto.ProfitLoss;
+import com.investly.app.dto.Trade;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Position state per trading pair, updated fill by fill.
+ * <p>
+ * Each position keeps the held quantity with its cost basis and realized P&L under both FIFO lots and
+ * average cost, so either method can be queried without replaying history. Amounts are
+ * {@link FixedPoint} longs in the quote currency. A position is loaded from the trade ledger the first
+ * time it is used; after that only new fills are applied, and fills at or below the last applied trade
+ * id are ignored, so feeding the same page twice is harmless.
+ */
+@Component
+public class ProfitLossEngine {
+
+    public enum CostMethod { FIFO, AVERAGE }
+
+    private static final String QUOTE_ASSET = "USDT";
+
+    static final class Position {
+        private final String baseAsset;
+        private long lastTradeId = Long.MIN_VALUE;
+        private long quantity;
+        private long fifoCost;
+        private long fifoRealized;
+        private long averageCost;
+        private long averageRealized;
+
+        // FIFO lots as a ring buffer of parallel arrays, oldest at head
+        private long[] lotQuantity = new long[8];
+        private long[] lotCost = new long[8];
+        private int head;
+        private int lots;
+
+        Position(String symbol) {
+            this.baseAsset = symbol.endsWith(QUOTE_ASSET)
+                    ? symbol.substring(0, symbol.length() - QUOTE_ASSET.length()) : symbol;
+        }
+
+        void apply(Trade trade) {
+            if (trade.id() <= lastTradeId) {
+                return;
+            }
+            lastTradeId = trade.id();
+
+            long qty = FixedPoint.of(trade.qty());
+            long quote = FixedPoint.of(trade.quoteQty());
+            long commission = FixedPoint.of(trade.commission());
+            // Commission in the base asset changes the quantity, in the quote asset the cash amount;
+            // commission in any other asset (BNB) is not part of this position
+            long baseCommission = baseAsset.equals(trade.commissionAsset()) ? commission : 0;
+            long quoteCommission = QUOTE_ASSET.equals(trade.commissionAsset()) ? commission : 0;
+
+            if (trade.isBuyer()) {
+                long acquired = qty - baseCommission;
+                long cost = quote + quoteCommission;
+                if (acquired <= 0) {
+                    return;
+                }
+                quantity += acquired;
+                fifoCost += cost;
+                averageCost += cost;
+                pushLot(acquired, cost);
+            } else {
+                long proceeds = quote - quoteCommission;
+                // Selling more than the recorded history holds (deposits, transfers) has no known cost
+                long matched = Math.min(qty + baseCommission, quantity);
+                long averageRemoved = matched == quantity ? averageCost : FixedPoint.mulDiv(averageCost, matched, quantity);
+                long fifoRemoved = consumeLots(matched);
+
+                quantity -= matched;
+                averageCost -= averageRemoved;
+                fifoCost -= fifoRemoved;
+                averageRealized += proceeds - averageRemoved;
+                fifoRealized += proceeds - fifoRemoved;
+            }
+        }
+
+        long cost(CostMethod method) {
+            return method == CostMethod.FIFO ? fifoCost : averageCost;
+        }
+
+        long realized(CostMethod method) {
+            return method == CostMethod.FIFO ? fifoRealized : averageRealized;
+        }
+
+        long unrealized(CostMethod method, long markPrice) {
+            return markPrice <= 0 ? 0 : FixedPoint.multiply(quantity, markPrice) - cost(method);
+        }
+
+        private void pushLot(long qty, long cost) {
+            if (lots == lotQuantity.length) {
+                long[] quantities = new long[lots * 2];
+                long[] costs = new long[lots * 2];
+                for (int i = 0; i < lots; i++) {
+                    quantities[i] = lotQuantity[(head + i) % lots];
+                    costs[i] = lotCost[(head + i) % lots];
+                }
+                lotQuantity = quantities;
+                lotCost = costs;
+                head = 0;
+            }
+            int tail = (head + lots) % lotQuantity.length;
+            lotQuantity[tail] = qty;
+            lotCost[tail] = cost;
+            lots++;
+        }
+
+        // Removes the amount from the oldest lots and returns the cost it carried
+        private long consumeLots(long amount) {
+            long removed = 0;
+            while (amount > 0 && lots > 0) {
+                if (lotQuantity[head] <= amount) {
+                    removed += lotCost[head];
+                    amount -= lotQuantity[head];
+                    head = (head + 1) % lotQuantity.length;
+                    lots--;
+                } else {
+                    long partCost = FixedPoint.mulDiv(lotCost[head], amount, lotQuantity[head]);
+                    lotQuantity[head] -= amount;
+                    lotCost[head] -= partCost;
+                    removed += partCost;
+                    amount = 0;
+                }
+            }
+            return removed;
+        }
+    }
+
+    private final Map<String, Position> positions = new ConcurrentHashMap<>();
+    private final TradeRepository tradeRepository;
+
+    @Autowired
+    public ProfitLossEngine(TradeRepository tradeRepository) {
+        this.tradeRepository = tradeRepository;
+    }
+
+    /**
+     * Applies new fills of one pair, in trade id order.
+     */
+    public void apply(String symbol, List<Trade> trades) {
+        Position position = position(symbol);
+        synchronized (position) {
+            for (Trade trade : trades) {
+                position.apply(trade);
+            }
+        }
+    }
+
+    /**
+     * Realized P&L of the pair in the quote currency, as a {@link FixedPoint} value.
+     */
+    public long realized(String symbol, CostMethod method) {
+        Position position = position(symbol);
+        synchronized (position) {
+            return position.realized(method);
+        }
+    }
+
+    /**
+     * Unrealized P&L of the held quantity marked to the given price, as a {@link FixedPoint} value;
+     * 0 without a price.
+     */
+    public long unrealized(String symbol, CostMethod method, long markPrice) {
+        Position position = position(symbol);
+        synchronized (position) {
+            return position.unrealized(method, markPrice);
+        }
+    }
+
+    public ProfitLoss profitLoss(String symbol, CostMethod method, long markPrice) {
+        Position position = position(symbol);
+        synchronized (position) {
+            long cost = position.cost(method);
+            long averagePrice = position.quantity > 0 ? FixedPoint.mulDiv(cost, FixedPoint.SCALE, position.quantity) : 0;
+            return new ProfitLoss(symbol, method.name(),
+                    FixedPoint.toDouble(position.quantity),
+                    FixedPoint.toDouble(cost),
+                    FixedPoint.toDouble(averagePrice),
+                    FixedPoint.toDouble(Math.max(markPrice, 0)),
+                    FixedPoint.toDouble(position.realized(method)),
+                    FixedPoint.toDouble(position.unrealized(method, markPrice)));
+        }
+    }
+
+    private Position position(String symbol) {
+        Position position = positions.get(symbol);
+        return position != null ? position : positions.computeIfAbsent(symbol, this::load);
+    }
+
+    private Position load(String symbol) {
+        Position position = new Position(symbol);
+        for (TradeEntity trade : tradeRepository.findBySymbolOrderByTradeIdAsc(symbol)) {
+            position.apply(trade.toTrade());
+        }
+        return position;
+    }
+}
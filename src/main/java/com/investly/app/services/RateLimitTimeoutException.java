@@ -0,0 +1,14 @@
+package com.investly.app.services;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a Binance request could not be admitted by the {@link BinanceRequestScheduler}
+ * before its deadline.
+ */
+public class RateLimitTimeoutException extends IOException {
+
+    public RateLimitTimeoutException(String message) {
+        super(message);
+    }
+}
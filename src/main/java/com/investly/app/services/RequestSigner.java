@@ -0,0 +1,112 @@
+package com.investly.app.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+/**
+ * HMAC-SHA256 signing of Binance query strings.
+ * <p>
+ * The key is set up once; each thread gets its own {@link Mac} cloned from an initialized prototype,
+ * together with a reusable input buffer, so signing a request neither looks up a provider nor copies
+ * the key. {@link #sign} appends {@code &signature=<hex>} to the query it was given, writing the hex
+ * digits straight into the same builder.
+ */
+@Component
+public class RequestSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final SecretKeySpec key;
+    private final Mac prototype;
+    private final ThreadLocal<SigningState> state = ThreadLocal.withInitial(this::newState);
+
+    private static final class SigningState {
+        private final Mac mac;
+        private final byte[] digest;
+        private byte[] input = new byte[256];
+
+        SigningState(Mac mac) {
+            this.mac = mac;
+            this.digest = new byte[mac.getMacLength()];
+        }
+    }
+
+    @Autowired
+    public RequestSigner(@Value("${binance.api.secret}") String apiSecret) {
+        try {
+            key = new SecretKeySpec(apiSecret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+            prototype = Mac.getInstance(ALGORITHM);
+            prototype.init(key);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    /**
+     * Appends {@code &signature=} and the hex HMAC of everything already in the builder, and returns the
+     * signed query.
+     */
+    public String sign(StringBuilder query) {
+        SigningState signing = state.get();
+        int length = encode(query, signing);
+        try {
+            signing.mac.update(signing.input, 0, length);
+            signing.mac.doFinal(signing.digest, 0);
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException("HMAC digest buffer too small", e);
+        }
+
+        query.append("&signature=");
+        for (byte b : signing.digest) {
+            query.append(HEX_DIGITS[(b >> 4) & 0xf]).append(HEX_DIGITS[b & 0xf]);
+        }
+        return query.toString();
+    }
+
+    private SigningState newState() {
+        try {
+            return new SigningState((Mac) prototype.clone());
+        } catch (CloneNotSupportedException e) {
+            // Providers without cloneable MACs: initialize a fresh one per thread instead
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM, prototype.getProvider());
+                mac.init(key);
+                return new SigningState(mac);
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException("Failed to initialize HMAC-SHA256", ex);
+            }
+        }
+    }
+
+    // Query strings are ASCII (URL-encoded values), so they are copied byte per char; anything else goes
+    // through the UTF-8 encoder
+    private static int encode(CharSequence query, SigningState signing) {
+        int length = query.length();
+        if (signing.input.length < length) {
+            signing.input = new byte[Math.max(length, signing.input.length * 2)];
+        }
+        byte[] input = signing.input;
+        for (int i = 0; i < length; i++) {
+            char c = query.charAt(i);
+            if (c >= 0x80) {
+                byte[] utf8 = query.toString().getBytes(StandardCharsets.UTF_8);
+                if (input.length < utf8.length) {
+                    signing.input = utf8;
+                } else {
+                    System.arraycopy(utf8, 0, input, 0, utf8.length);
+                }
+                return utf8.length;
+            }
+            input[i] = (byte) c;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,104 @@
+package com.investly.app.services;
+
+import com.investly.app.dto.SymbolFilters;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-memory index of the per-symbol exchange filters.
+ * <p>
+ * exchangeInfo is several MB, so it is downloaded in the background (once at startup and then on a
+ * fixed schedule) and lookups never wait for it. If the data gets older than the TTL, e.g. because
+ * scheduled refreshes keep failing, a lookup kicks off an extra refresh but still answers from the
+ * current index.
+ */
+@Service
+public class SymbolFilterCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SymbolFilterCache.class);
+
+    private final BinanceRequestScheduler requestScheduler;
+    private final String binanceBaseUrl;
+    private final long ttlMillis;
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile Map<String, SymbolFilters> filtersBySymbol = Map.of();
+    private volatile long loadedAt;
+
+    @Value("${binance.exchange-info.refresh-enabled:true}")
+    private boolean refreshEnabled = true;
+
+    @Autowired
+    public SymbolFilterCache(@Value("${binance.api.baseurl}") String binanceBaseUrl,
+                             @Value("${binance.exchange-info.ttl-ms:3600000}") long ttlMillis,
+                             BinanceRequestScheduler requestScheduler) {
+        this.requestScheduler = requestScheduler;
+        this.binanceBaseUrl = binanceBaseUrl;
+        this.ttlMillis = ttlMillis;
+    }
+
+    public Optional<SymbolFilters> get(String symbol) {
+        if (System.currentTimeMillis() - loadedAt > ttlMillis) {
+            CompletableFuture.runAsync(this::refresh);
+        }
+        return Optional.ofNullable(filtersBySymbol.get(symbol));
+    }
+
+    public int size() {
+        return filtersBySymbol.size();
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${binance.exchange-info.refresh-ms:900000}")
+    public void scheduledRefresh() {
+        if (refreshEnabled) {
+            refresh();
+        }
+    }
+
+    /**
+     * Downloads exchangeInfo and swaps in a new index. Concurrent callers do not queue up behind a
+     * running download; they return false and keep using the current index.
+     */
+    public boolean refresh() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            Request request = new Request.Builder()
+                    .url(binanceBaseUrl + "/api/v3/exchangeInfo")
+                    .get()
+                    .build();
+
+            try (Response response = requestScheduler.execute(BinanceRequestClass.BACKGROUND, 20, request)) {
+                if (!response.isSuccessful()) {
+                    LOGGER.error("Failed to fetch exchange info. HTTP Code: " + response.code());
+                    return false;
+                }
+
+                // exchangeInfo runs to megabytes; decode it straight off the socket
+                Map<String, SymbolFilters> index = BinanceResponseDecoder.exchangeInfo(response.body().charStream());
+
+                filtersBySymbol = Map.copyOf(index);
+                loadedAt = System.currentTimeMillis();
+                LOGGER.info("Loaded exchange filters for " + index.size() + " symbols");
+                return true;
+            }
+        } catch (Exception e) {
+            LOGGER.error("Exception in refresh: " + e.getMessage());
+            return false;
+        } finally {
+            refreshing.set(false);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.investly.app.services;
+
+import com.google.gson.JsonObject;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Executes the tool calls of one assistant run step.
+ * <p>
+ * Read-only tools run concurrently. A step with a side-effecting tool (orders) runs all of its calls one
+ * at a time in the order the model listed them, each starting only after the previous one has really
+ * finished, so a balance read next to an order sees the account either before or after it, never
+ * half way. Every call has its own timeout, counted from when the step is submitted so that calls
+ * queued behind an order or a busy pool share the deadline; a call still queued when it expires is
+ * not run. Outputs are returned in call order so they can be submitted together. The pool is as large
+ * as the turn pool unless configured otherwise.
+ */
+@Component
+public class ToolCallExecutor {
+
+    private static final Logger LOGGER = Logger.getLogger(ToolCallExecutor.class.getName());
+
+    static final Set<String> SIDE_EFFECTING_TOOLS = Set.of("place_order", "cancel_order");
+
+    /**
+     * A tool call as requested by the model; {@code arguments} is the raw JSON argument object.
+     */
+    public record ToolCall(String id, String name, String arguments) {
+    }
+
+    private final ToolDispatcher toolDispatcher;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService executor;
+    private final long timeoutMillis;
+
+    @Autowired
+    public ToolCallExecutor(ToolDispatcher toolDispatcher, MeterRegistry meterRegistry,
+                            @Value("${assistant.tools.max-concurrency:${assistant.turns.max-concurrency:64}}") int maxConcurrency,
+                            @Value("${assistant.tools.timeout-ms:20000}") long timeoutMillis) {
+        this.toolDispatcher = toolDispatcher;
+        this.meterRegistry = meterRegistry;
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(maxConcurrency, runnable -> {
+            Thread thread = new Thread(runnable, "assistant-tool-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs all calls and returns their outputs, one {@code tool_call_id}/{@code output} object per call
+     * in the same order. A failed or timed out call yields an error output instead of failing the batch.
+     */
+    public List<JsonObject> execute(List<ToolCall> toolCalls) {
+        List<CompletableFuture<String>> outputs = new ArrayList<>(toolCalls.size());
+        boolean sequential = toolCalls.stream().anyMatch(toolCall -> SIDE_EFFECTING_TOOLS.contains(toolCall.name()));
+        CompletableFuture<Void> previous = CompletableFuture.completedFuture(null);
+
+        for (ToolCall toolCall : toolCalls) {
+            CompletableFuture<String> output = new CompletableFuture<String>()
+                    .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+            if (sequential) {
+                // whenComplete rather than thenRun: a call that dies with an Error must not stall the rest
+                previous = previous.whenCompleteAsync((ignored, failure) -> invoke(toolCall, output), executor);
+            } else {
+                executor.execute(() -> invoke(toolCall, output));
+            }
+            outputs.add(output);
+        }
+
+        List<JsonObject> toolOutputs = new ArrayList<>(toolCalls.size());
+        for (int i = 0; i < toolCalls.size(); i++) {
+            ToolCall toolCall = toolCalls.get(i);
+            JsonObject toolOutput = new JsonObject();
+            toolOutput.addProperty("tool_call_id", toolCall.id());
+            toolOutput.addProperty("output", awaitOutput(toolCall, outputs.get(i)));
+            toolOutputs.add(toolOutput);
+        }
+        return toolOutputs;
+    }
+
+    private void invoke(ToolCall toolCall, CompletableFuture<String> output) {
+        if (output.isDone()) {
+            LOGGER.warning("Skipping tool call " + toolCall.name() + ", it timed out before it could start");
+            return;
+        }
+        long start = System.nanoTime();
+        String result = null;
+        RuntimeException failure = null;
+        try {
+            try {
+                LOGGER.info("executing function: " + toolCall.name() + " with arguments: " + toolCall.arguments());
+                result = toolDispatcher.dispatch(toolCall.name(), toolCall.arguments());
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+
+            String outcome = failure != null ? "error" : output.isDone() ? "timeout" : "success";
+            Timer.builder("assistant.tool.latency")
+                    .tag("tool", toolCall.name())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+            if (failure != null) {
+                output.completeExceptionally(failure);
+            } else {
+                output.complete(result);
+            }
+        } finally {
+            // No-op unless an Error escaped the dispatcher; the step waiting on this output must not hang
+            output.completeExceptionally(new IllegalStateException("Tool call " + toolCall.name() + " failed unexpectedly"));
+        }
+    }
+
+    private String awaitOutput(ToolCall toolCall, CompletableFuture<String> output) {
+        try {
+            return output.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                LOGGER.severe("Tool call " + toolCall.name() + " timed out after " + timeoutMillis + " ms");
+                return ToolDispatcher.errorOutput(SIDE_EFFECTING_TOOLS.contains(toolCall.name())
+                        ? "Timed out waiting for the exchange; the request may still have been executed, check before retrying"
+                        : "Timed out waiting for the exchange");
+            }
+            LOGGER.severe("Tool call " + toolCall.name() + " failed: " + e.getCause().getMessage());
+            return ToolDispatcher.errorOutput(String.valueOf(e.getCause().getMessage()));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
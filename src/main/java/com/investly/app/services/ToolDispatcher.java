@@ -0,0 +1,256 @@
+package com.investly.app.services;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.investly.app.services.ToolRegistry.ToolDefinition;
+import com.investly.app.services.ToolRegistry.ToolParameter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Calls the {@link AssistantTool} method behind a tool call.
+ * <p>
+ * A method handle is bound to every tool at startup, together with a binder per parameter, so a
+ * missing handler or an unsupported signature fails the application context instead of a chat. At call
+ * time the model's argument JSON is read in one streaming pass that validates it against the tool schema
+ * and converts each value straight to the Java parameter type.
+ * <p>
+ * Handlers return typed results; they are serialized here, once, into the tool output. A handler that
+ * already returns a String is passed through unchanged.
+ */
+@Component
+public class ToolDispatcher {
+
+    /**
+     * Tool arguments that do not match the tool schema. Reported back to the model as the tool output
+     * so it can correct the call.
+     */
+    static class InvalidToolArgumentsException extends IllegalArgumentException {
+        InvalidToolArgumentsException(String message) {
+            super(message);
+        }
+    }
+
+    private enum Kind { STRING, INT, LONG, DOUBLE, BOOLEAN, STRING_LIST }
+
+    private record Slot(ToolParameter parameter, Kind kind, boolean primitive, Set<String> allowed, Object defaultValue) {
+    }
+
+    private record BoundTool(String name, MethodHandle invoker, Slot[] slots, Map<String, Integer> indexByName) {
+    }
+
+    private static final Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+
+    private final Map<String, BoundTool> tools = new HashMap<>();
+
+    @Autowired
+    public ToolDispatcher(ToolRegistry toolRegistry) {
+        for (ToolDefinition definition : toolRegistry.tools()) {
+            tools.put(definition.name(), bind(definition));
+        }
+    }
+
+    /**
+     * Runs the named tool with the raw JSON arguments from the tool call and returns its output.
+     *
+     * @throws InvalidToolArgumentsException if the tool is unknown or the arguments violate its schema
+     */
+    public String dispatch(String toolName, String argumentsJson) {
+        BoundTool tool = tools.get(toolName);
+        if (tool == null) {
+            throw new InvalidToolArgumentsException("Unknown tool: " + toolName);
+        }
+
+        Object[] arguments = bindArguments(tool, argumentsJson);
+        Object result;
+        try {
+            result = (Object) tool.invoker().invokeExact(arguments);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Tool " + toolName + " failed", e);
+        }
+        return result instanceof String output ? output : gson.toJson(result);
+    }
+
+    /**
+     * Error output for a failed dispatch, in the shape the handlers use for their own errors.
+     */
+    static String errorOutput(String message) {
+        JsonObject error = new JsonObject();
+        error.addProperty("error", message);
+        return error.toString();
+    }
+
+    private static BoundTool bind(ToolDefinition definition) {
+        if (definition.method().getReturnType() == void.class) {
+            throw new IllegalStateException("Assistant tool " + definition.name() + " must return a result: "
+                    + definition.method());
+        }
+
+        MethodHandle invoker;
+        try {
+            invoker = MethodHandles.publicLookup().unreflect(definition.method()).bindTo(definition.target());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Assistant tool " + definition.name() + " is not accessible", e);
+        }
+        int arity = definition.parameters().size();
+        invoker = invoker.asSpreader(Object[].class, arity)
+                .asType(MethodType.methodType(Object.class, Object[].class));
+
+        Slot[] slots = new Slot[arity];
+        Map<String, Integer> indexByName = new HashMap<>();
+        for (int i = 0; i < arity; i++) {
+            ToolParameter parameter = definition.parameters().get(i);
+            Kind kind = kind(parameter.javaType());
+            boolean primitive = parameter.javaType() instanceof Class<?> type && type.isPrimitive();
+            Object defaultValue = parameter.defaultValue().isEmpty() ? null
+                    : parseDefault(definition.name(), parameter, kind);
+            if (primitive && !parameter.required() && defaultValue == null) {
+                throw new IllegalStateException("Optional primitive parameter " + parameter.name() + " of "
+                        + definition.name() + " needs a default value");
+            }
+            slots[i] = new Slot(parameter, kind, primitive, Set.copyOf(parameter.allowed()), defaultValue);
+            indexByName.put(parameter.name(), i);
+        }
+        return new BoundTool(definition.name(), invoker, slots, Map.copyOf(indexByName));
+    }
+
+    private static Kind kind(Type type) {
+        if (type == String.class) {
+            return Kind.STRING;
+        }
+        if (type == int.class || type == Integer.class) {
+            return Kind.INT;
+        }
+        if (type == long.class || type == Long.class) {
+            return Kind.LONG;
+        }
+        if (type == double.class || type == Double.class) {
+            return Kind.DOUBLE;
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return Kind.BOOLEAN;
+        }
+        // ToolRegistry only admits List<String> besides the scalar types
+        return Kind.STRING_LIST;
+    }
+
+    private static Object parseDefault(String toolName, ToolParameter parameter, Kind kind) {
+        try (JsonReader reader = new JsonReader(new StringReader(parameter.defaultValue()))) {
+            reader.setLenient(true);
+            return read(reader, kind);
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalStateException("Invalid default value for " + parameter.name() + " of " + toolName, e);
+        }
+    }
+
+    private static Object[] bindArguments(BoundTool tool, String argumentsJson) {
+        Slot[] slots = tool.slots();
+        Object[] arguments = new Object[slots.length];
+        boolean[] present = new boolean[slots.length];
+
+        try (JsonReader reader = new JsonReader(new StringReader(argumentsJson == null ? "{}" : argumentsJson))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                Integer index = tool.indexByName().get(name);
+                if (index == null) {
+                    throw new InvalidToolArgumentsException("Unexpected argument '" + name + "' for " + tool.name());
+                }
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    continue;
+                }
+
+                Slot slot = slots[index];
+                Object value;
+                try {
+                    value = read(reader, slot.kind());
+                } catch (IllegalStateException | NumberFormatException e) {
+                    throw new InvalidToolArgumentsException("Argument '" + name + "' of " + tool.name()
+                            + " must be of type " + slot.parameter().jsonType());
+                }
+                if (!slot.allowed().isEmpty() && !slot.allowed().contains(value)) {
+                    throw new InvalidToolArgumentsException("Argument '" + name + "' of " + tool.name()
+                            + " must be one of " + slot.parameter().allowed());
+                }
+                arguments[index] = value;
+                present[index] = true;
+            }
+            reader.endObject();
+        } catch (IOException | IllegalStateException e) {
+            throw new InvalidToolArgumentsException("Arguments for " + tool.name() + " are not a JSON object");
+        }
+
+        for (int i = 0; i < slots.length; i++) {
+            if (present[i]) {
+                continue;
+            }
+            Slot slot = slots[i];
+            if (slot.parameter().required() && slot.defaultValue() == null) {
+                throw new InvalidToolArgumentsException("Missing required argument '" + slot.parameter().name()
+                        + "' for " + tool.name());
+            }
+            arguments[i] = slot.defaultValue();
+        }
+        return arguments;
+    }
+
+    // Models sometimes quote numbers and booleans or send a single value for a list, which is accepted
+    private static Object read(JsonReader reader, Kind kind) throws IOException {
+        switch (kind) {
+            case STRING:
+                return reader.nextString();
+            case INT:
+                return reader.nextInt();
+            case LONG:
+                return reader.nextLong();
+            case DOUBLE:
+                double value = reader.nextDouble();
+                if (Double.isNaN(value) || Double.isInfinite(value)) {
+                    throw new NumberFormatException("Not a finite number");
+                }
+                return value;
+            case BOOLEAN:
+                if (reader.peek() == JsonToken.STRING) {
+                    String text = reader.nextString();
+                    if (!"true".equalsIgnoreCase(text) && !"false".equalsIgnoreCase(text)) {
+                        throw new IllegalStateException("Not a boolean: " + text);
+                    }
+                    return Boolean.parseBoolean(text);
+                }
+                return reader.nextBoolean();
+            default:
+                List<String> values = new ArrayList<>();
+                if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        values.add(reader.nextString());
+                    }
+                    reader.endArray();
+                } else {
+                    String single = reader.nextString();
+                    if (!single.isEmpty()) {
+                        values.add(single);
+                    }
+                }
+                return values;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.investly.app.services;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Names and describes a parameter of an {@link AssistantTool} method. The JSON schema type follows
+ * from the Java type.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface ToolParam {
+
+    String value();
+
+    String description() default "";
+
+    /**
+     * Allowed values, rendered as a JSON schema enum.
+     */
+    String[] allowed() default {};
+
+    boolean required() default true;
+
+    /**
+     * JSON literal used when the model omits the argument; empty for none.
+     */
+    String defaultValue() default "";
+}
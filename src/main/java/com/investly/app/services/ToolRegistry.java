@@ -0,0 +1,208 @@
+package com.investly.app.services;
+
+import com.google.gson.stream.JsonWriter;
+import okio.Buffer;
+import okio.ByteString;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tools the assistant may call, collected once at startup from {@link AssistantTool} methods.
+ * <p>
+ * The {@code tools} array of the run request is serialized here a single time and kept as immutable
+ * bytes, so starting a run only splices those bytes into the request instead of rebuilding every schema.
+ */
+@Component
+public class ToolRegistry {
+
+    public record ToolParameter(String name, String description, String jsonType, Type javaType,
+                                boolean required, List<String> allowed, String defaultValue) {
+    }
+
+    public record ToolDefinition(String name, String description, Object target, Method method,
+                                 List<ToolParameter> parameters) {
+    }
+
+    private final Map<String, ToolDefinition> tools;
+    private final ByteString toolsJson;
+    private final Map<String, ByteString> runPayloads = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ToolRegistry(TradeService tradeService, FunctionService functionService) {
+        this(List.of(tradeService, functionService));
+    }
+
+    public ToolRegistry(List<?> handlers) {
+        Map<String, ToolDefinition> definitions = new LinkedHashMap<>();
+        for (Object handler : handlers) {
+            for (ToolDefinition definition : scan(handler)) {
+                if (definitions.putIfAbsent(definition.name(), definition) != null) {
+                    throw new IllegalStateException("Duplicate assistant tool: " + definition.name());
+                }
+            }
+        }
+        this.tools = Collections.unmodifiableMap(definitions);
+        this.toolsJson = ByteString.encodeUtf8(writeTools(definitions.values()));
+    }
+
+    public Collection<ToolDefinition> tools() {
+        return tools.values();
+    }
+
+    public ToolDefinition tool(String name) {
+        return tools.get(name);
+    }
+
+    public ByteString toolsJson() {
+        return toolsJson;
+    }
+
+    /**
+     * The complete body for creating a streamed run with all tools. It only depends on the assistant,
+     * so it is built on first use and reused for every run after that.
+     */
+    public ByteString runPayload(String assistantId) {
+        return runPayloads.computeIfAbsent(assistantId, id -> {
+            Buffer buffer = new Buffer()
+                    .writeUtf8("{\"assistant_id\":").writeUtf8(jsonString(id))
+                    .writeUtf8(",\"response_format\":\"auto\",\"tools\":")
+                    .write(toolsJson)
+                    .writeUtf8(",\"tool_choice\":\"auto\",\"parallel_tool_calls\":true,\"stream\":true}");
+            return buffer.readByteString();
+        });
+    }
+
+    private static List<ToolDefinition> scan(Object handler) {
+        List<ToolDefinition> definitions = new ArrayList<>();
+        // Walk up the hierarchy so subclasses created by proxies and mocks still expose their tools
+        for (Class<?> type = handler.getClass(); type != null && type != Object.class; type = type.getSuperclass()) {
+            Method[] methods = type.getDeclaredMethods();
+            Arrays.sort(methods, Comparator.comparing(Method::getName));
+            for (Method method : methods) {
+                AssistantTool tool = method.getAnnotation(AssistantTool.class);
+                if (tool == null) {
+                    continue;
+                }
+                if (!Modifier.isPublic(method.getModifiers())) {
+                    throw new IllegalStateException("Assistant tool method must be public: " + method);
+                }
+                definitions.add(new ToolDefinition(tool.name(), tool.description(), handler, method, parameters(method)));
+            }
+        }
+        return definitions;
+    }
+
+    private static List<ToolParameter> parameters(Method method) {
+        List<ToolParameter> parameters = new ArrayList<>();
+        for (Parameter parameter : method.getParameters()) {
+            ToolParam param = parameter.getAnnotation(ToolParam.class);
+            if (param == null) {
+                throw new IllegalStateException("Parameter " + parameter.getName() + " of " + method
+                        + " has no @ToolParam");
+            }
+            parameters.add(new ToolParameter(param.value(), param.description(),
+                    jsonType(parameter.getParameterizedType(), method), parameter.getParameterizedType(),
+                    param.required(), List.of(param.allowed()), param.defaultValue()));
+        }
+        return List.copyOf(parameters);
+    }
+
+    private static String jsonType(Type type, Method method) {
+        if (type == String.class) {
+            return "string";
+        }
+        if (type == int.class || type == Integer.class || type == long.class || type == Long.class) {
+            return "integer";
+        }
+        if (type == double.class || type == Double.class) {
+            return "number";
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return "boolean";
+        }
+        if (type instanceof ParameterizedType parameterized && parameterized.getRawType() == List.class
+                && parameterized.getActualTypeArguments()[0] == String.class) {
+            return "array";
+        }
+        throw new IllegalStateException("Unsupported tool parameter type " + type + " in " + method);
+    }
+
+    private static String writeTools(Collection<ToolDefinition> definitions) {
+        StringWriter out = new StringWriter();
+        try (JsonWriter json = new JsonWriter(out)) {
+            json.beginArray();
+            for (ToolDefinition definition : definitions) {
+                json.beginObject();
+                json.name("type").value("function");
+                json.name("function").beginObject();
+                json.name("name").value(definition.name());
+                json.name("description").value(definition.description());
+                json.name("parameters").beginObject();
+                json.name("type").value("object");
+                json.name("properties").beginObject();
+                for (ToolParameter parameter : definition.parameters()) {
+                    json.name(parameter.name()).beginObject();
+                    json.name("type").value(parameter.jsonType());
+                    if ("array".equals(parameter.jsonType())) {
+                        json.name("items").beginObject().name("type").value("string").endObject();
+                    }
+                    if (!parameter.description().isEmpty()) {
+                        json.name("description").value(parameter.description());
+                    }
+                    if (!parameter.allowed().isEmpty()) {
+                        json.name("enum").beginArray();
+                        for (String value : parameter.allowed()) {
+                            json.value(value);
+                        }
+                        json.endArray();
+                    }
+                    json.endObject();
+                }
+                json.endObject();
+                json.name("required").beginArray();
+                for (ToolParameter parameter : definition.parameters()) {
+                    if (parameter.required()) {
+                        json.value(parameter.name());
+                    }
+                }
+                json.endArray();
+                json.name("additionalProperties").value(false);
+                json.endObject();
+                json.endObject();
+                json.endObject();
+            }
+            json.endArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    private static String jsonString(String value) {
+        StringWriter out = new StringWriter();
+        try (JsonWriter json = new JsonWriter(out)) {
+            json.value(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+}
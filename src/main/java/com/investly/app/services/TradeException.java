@@ -0,0 +1,16 @@
+package com.investly.app.services;
+
+/**
+ * A trading operation that could not be completed. The message is safe to show to the user and is
+ * passed to the assistant as the tool error.
+ */
+public class TradeException extends RuntimeException {
+
+    public TradeException(String message) {
+        super(message);
+    }
+
+    public TradeException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
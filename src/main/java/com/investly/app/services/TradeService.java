@@ -1,19 +1,35 @@
 package com.investly.app.services;
 
-import com.google.gson.*;
+import com.investly.app.dao.TradeEntity;
+import com.investly.app.dao.TradeRepository;
+import com.investly.app.dto.AccountBalance;
+import com.investly.app.dto.Balance;
+import com.investly.app.dto.CandleSeries;
+import com.investly.app.dto.OrderResult;
+import com.investly.app.dto.Portfolio;
+import com.investly.app.dto.PortfolioHistory;
+import com.investly.app.dto.ProfitLoss;
+import com.investly.app.dto.Trade;
+import com.investly.app.dto.Widget;
 import okhttp3.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.web.client.RestTemplate;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class TradeService {
@@ -24,515 +40,492 @@ public class TradeService {
     @Value("${binance.api.key}")
     private String binanceApiKey;
 
-    @Value("${binance.api.secret}")
-    private String apiSecret;
+    @Value("${binance.trades.sync-enabled:true}")
+    private boolean tradeSyncEnabled = true;
 
-    private final OkHttpClient httpClient;
+    @Value("${portfolio.snapshots.enabled:true}")
+    private boolean portfolioSnapshotsEnabled = true;
+
+    private final BinanceRequestScheduler requestScheduler;
+    private final RequestSigner requestSigner;
+    private final OrderPipeline orderPipeline;
+    private final PriceBook priceBook;
+    private final BinanceServerClock serverClock;
+    private final FanOutExecutor fanOutExecutor;
+    private final AssetUniverse assetUniverse;
+    private final TradeRepository tradeRepository;
+    private final ProfitLossEngine profitLossEngine;
+    private final KlineStore klineStore;
+    private final PortfolioHistoryService portfolioHistory;
+
+    // Pairs whose full history has been loaded into the ledger since startup
+    private final Set<String> syncedPairs = ConcurrentHashMap.newKeySet();
+    private final Map<String, Object> syncLocks = new ConcurrentHashMap<>();
 
     private static final Logger LOGGER = LoggerFactory.getLogger(TradeService.class);
 
+    // Largest page /api/v3/myTrades returns
+    private static final int TRADE_PAGE_SIZE = 1000;
+    // Most trades one fetch_trade_history call returns
+    private static final int MAX_TRADE_HISTORY_LIMIT = 500;
+    // Chart points per asset in a widget; longer ranges are downsampled
+    private static final int WIDGET_CHART_POINTS = 500;
+
     @Autowired
     public TradeService(@Value("${binance.api.key}") String binanceApiKey,
-                        @Value("${binance.api.baseurl}") String binanceBaseUrl) {
-        this.httpClient = new OkHttpClient();
+                        @Value("${binance.api.baseurl}") String binanceBaseUrl,
+                        OrderPipeline orderPipeline,
+                        PriceBook priceBook,
+                        BinanceServerClock serverClock,
+                        FanOutExecutor fanOutExecutor,
+                        BinanceRequestScheduler requestScheduler,
+                        AssetUniverse assetUniverse,
+                        TradeRepository tradeRepository,
+                        ProfitLossEngine profitLossEngine,
+                        RequestSigner requestSigner,
+                        KlineStore klineStore,
+                        PortfolioHistoryService portfolioHistory) {
+        this.requestScheduler = requestScheduler;
+        this.requestSigner = requestSigner;
+        this.orderPipeline = orderPipeline;
+        this.priceBook = priceBook;
+        this.serverClock = serverClock;
+        this.fanOutExecutor = fanOutExecutor;
+        this.assetUniverse = assetUniverse;
+        this.tradeRepository = tradeRepository;
+        this.profitLossEngine = profitLossEngine;
+        this.klineStore = klineStore;
+        this.portfolioHistory = portfolioHistory;
         this.binanceApiKey = binanceApiKey;
         this.binanceBaseUrl = binanceBaseUrl;
     }
 
-    public String placeOrder(String symbol, String side, double amount, String currency) {
-        try {
-            // Append USDT to the symbol if it doesn't already contain it
-            String tradingPair = symbol.endsWith("USDT") ? symbol : symbol + "USDT";
-
-            // If the amount is in fiat (EUR), convert to USDT first
-            if (currency.equalsIgnoreCase("EUR")) {
-                double usdtRate = getCryptoPrice("EURUSDT");
-                if (usdtRate <= 0) {
-                    return "{\"error\": \"Failed to fetch EUR/USDT conversion rate\"}";
-                }
-                amount = amount * usdtRate; // Convert EUR to USDT
-            }
+    @AssistantTool(name = "place_order", description = "Execute a trade on Binance")
+    public OrderResult placeOrder(@ToolParam(value = "symbol", description = "Asset to trade, e.g. BTC") String symbol,
+                                  @ToolParam(value = "side", allowed = {"BUY", "SELL"}) String side,
+                                  @ToolParam(value = "amount", description = "Amount to spend or receive in the quote currency") double amount,
+                                  @ToolParam(value = "currency", description = "Quote currency, USDT if omitted", required = false, defaultValue = "USDT") String currency,
+                                  @ToolParam(value = "idempotency_key", description = "Send the same key again to retry this order without placing it twice", required = false) String idempotencyKey) {
+        // Append USDT to the symbol if it doesn't already contain it
+        String tradingPair = symbol.endsWith("USDT") ? symbol : symbol + "USDT";
 
-            // Convert USDT to crypto
-            double cryptoPrice = getCryptoPrice(tradingPair);
-            if (cryptoPrice <= 0) {
-                return "{\"error\": \"Failed to fetch price for " + tradingPair + "\"}";
+        try {
+            return orderPipeline.submit(tradingPair, side, amount, currency, idempotencyKey)
+                    .whenComplete((order, failure) -> syncedPairs.remove(tradingPair)) // Next history read pulls the new fills
+                    .join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
             }
+            throw new TradeException("Error placing order: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
 
-            double cryptoAmount = amount / cryptoPrice; // Convert USDT to the requested crypto
-            cryptoAmount = roundQuantity(tradingPair, cryptoAmount); // Note: Changed to use tradingPair here too
-
-            long timestamp = System.currentTimeMillis() + getServerTimeOffset();
-            String queryString = "symbol=" + tradingPair + "&side=" + side.toUpperCase() +
-                    "&type=MARKET&quantity=" + cryptoAmount + "&timestamp=" + timestamp;
-            String signature = generateSignature(queryString);
-            String url = binanceBaseUrl + "/api/v3/order?" + queryString + "&signature=" + signature;
+    @AssistantTool(name = "cancel_order", description = "Cancel an open Binance order")
+    public OrderResult cancelOrder(@ToolParam("orderId") long orderId,
+                                   @ToolParam(value = "symbol", description = "Trading pair of the order, e.g. BTCUSDT") String symbol) {
+        long timeOffset = getServerTimeOffset();
+        long timestamp = System.currentTimeMillis() + timeOffset;
+        String endpoint = "/api/v3/order";
 
-            LOGGER.info("Sending Binance order request: " + url);
+        StringBuilder query = new StringBuilder(128)
+                .append("symbol=").append(symbol)
+                .append("&orderId=").append(orderId)
+                .append("&timestamp=").append(timestamp);
 
-            Request request = new Request.Builder()
-                    .url(url)
-                    .post(RequestBody.create(null, new byte[0]))
-                    .addHeader("X-MBX-APIKEY", binanceApiKey)
-                    .build();
+        String url = binanceBaseUrl + endpoint + "?" + requestSigner.sign(query);
+        LOGGER.info("Sending Binance cancel order request: " + url);
 
-            try (Response response = httpClient.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    String errorBody = response.body().string();
-                    LOGGER.error("Failed to place order. HTTP Code: " + response.code() + ", Error: " + errorBody);
-                    return "{\"error\": \"Failed to place order: " + errorBody + "\"}";
-                }
-                return response.body().string();
-            }
-        } catch (Exception e) {
-            LOGGER.error("Exception in placeOrder: " + e.getMessage());
-            return "{\"error\": \"Error placing order: " + e.getMessage() + "\"}";
-        }
-    }
-    public String cancelOrder(long orderId, String symbol) {
-        try {
-            long timeOffset = getServerTimeOffset();
-            long timestamp = System.currentTimeMillis() + timeOffset;
-            String endpoint = "/api/v3/order";
-
-            String queryString = "symbol=" + symbol +
-                    "&orderId=" + orderId +
-                    "&timestamp=" + timestamp;
-            String signature = generateSignature(queryString);
-
-            String url = binanceBaseUrl + endpoint + "?" + queryString + "&signature=" + signature;
-            LOGGER.info("Sending Binance cancel order request: " + url);
-
-            Request request = new Request.Builder()
-                    .url(url)
-                    .delete()
-                    .addHeader("X-MBX-APIKEY", binanceApiKey)
-                    .build();
-
-            try (Response response = httpClient.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    LOGGER.error("Failed to cancel order. HTTP Code: " + response.code());
-                    return "{\"error\": \"Failed to cancel order\"}";
-                }
+        Request request = new Request.Builder()
+                .url(url)
+                .delete()
+                .addHeader("X-MBX-APIKEY", binanceApiKey)
+                .build();
 
-                return response.body().string();
+        try (Response response = requestScheduler.execute(BinanceRequestClass.ORDER, 1, request)) {
+            if (!response.isSuccessful()) {
+                LOGGER.error("Failed to cancel order. HTTP Code: " + response.code());
+                throw new TradeException("Failed to cancel order");
             }
-        } catch (Exception e) {
+            return BinanceResponseDecoder.order(response.body().charStream());
+        } catch (IOException e) {
             LOGGER.error("Exception in cancelOrder: " + e.getMessage());
-            return "{\"error\": \"Failed to cancel order\"}";
+            throw new TradeException("Failed to cancel order", e);
         }
     }
 
-    public String fetchTradeHistory(String symbol, int limit) {
-        try {
-            long timestamp = System.currentTimeMillis();
-
-            // If symbol is null, fetch balances and get all active pairs
-            if (symbol == null) {
-                String balancesResponse = getBalance();
-                JsonObject balancesJson = JsonParser.parseString(balancesResponse).getAsJsonObject();
+    /**
+     * Recent trades of one pair, oldest first, or without a symbol the newest trades across every
+     * tracked asset. Served from the local trade ledger.
+     */
+    @AssistantTool(name = "fetch_trade_history", description = "Retrieve past executed trades")
+    public List<Trade> fetchTradeHistory(@ToolParam(value = "symbol", description = "Trading pair; all held assets if omitted", required = false) String symbol,
+                                         @ToolParam(value = "limit", required = false, defaultValue = "5") int limit) {
+        // The model may ask for zero, negative or huge limits; PageRequest rejects the first two
+        limit = Math.max(1, Math.min(limit, MAX_TRADE_HISTORY_LIMIT));
+        if (symbol != null) {
+            String tradingPair = tradingPair(symbol);
+            ensureSynced(List.of(tradingPair));
+            List<Trade> trades = toTrades(tradeRepository.findBySymbolOrderByTradeTimeDescTradeIdDesc(
+                    tradingPair, PageRequest.of(0, limit)));
+            Collections.reverse(trades);
+            return trades;
+        }
 
-                // Check if we have balances field in response
-                if (!balancesJson.has("balances")) {
-                    LOGGER.error("No balances found in response");
-                    return "{\"error\": \"No balances found\"}";
-                }
+        List<String> tradingPairs = trackedPairs();
+        ensureSynced(tradingPairs);
+        return toTrades(tradeRepository.findBySymbolInOrderByTradeTimeDescTradeIdDesc(
+                tradingPairs, PageRequest.of(0, limit)));
+    }
 
-                JsonObject balancesObj = balancesJson.getAsJsonObject("balances");
-                JsonArray combinedTrades = new JsonArray();
-
-                for (Map.Entry<String, JsonElement> entry : balancesObj.entrySet()) {
-                    JsonObject balance = entry.getValue().getAsJsonObject();
-                    String asset = entry.getKey();
-                    double freeBalance = balance.has("amount") ?
-                            Double.parseDouble(balance.get("amount").getAsString()) : 0.0;
-
-                    // Skip assets with 0 balance
-                    if (freeBalance > 0) {
-                        String tradeHistory = fetchTradeHistory(asset + "USDT", limit);
-                        if (!tradeHistory.contains("error")) {
-                            try {
-                                JsonElement tradesElement = JsonParser.parseString(tradeHistory);
-                                if (tradesElement.isJsonArray()) {
-                                    JsonArray assetTrades = tradesElement.getAsJsonArray();
-                                    for (JsonElement trade : assetTrades) {
-                                        combinedTrades.add(trade);
-                                    }
-                                }
-                            } catch (Exception e) {
-                                LOGGER.warn("Failed to parse trades for " + asset + ": " + e.getMessage());
-                            }
-                        }
-                    }
-                }
+    /**
+     * Pulls the fills Binance has recorded since the last sync for every tracked asset.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${binance.trades.sync-interval-ms:60000}")
+    public void scheduledTradeSync() {
+        if (tradeSyncEnabled) {
+            syncTradeHistory();
+        }
+    }
 
-                // Sort combined trades by timestamp (assuming there's a 'time' field)
-                List<JsonElement> sortedTrades = new ArrayList<>();
-                combinedTrades.forEach(sortedTrades::add);
-                sortedTrades.sort((a, b) -> {
-                    long timeA = a.getAsJsonObject().get("time").getAsLong();
-                    long timeB = b.getAsJsonObject().get("time").getAsLong();
-                    return Long.compare(timeB, timeA); // Descending order
-                });
-
-                JsonObject result = new JsonObject();
-                JsonArray finalTrades = new JsonArray();
-                sortedTrades.stream()
-                        .limit(limit)
-                        .forEach(finalTrades::add);
-                result.add("trades", finalTrades);
-                return result.toString();
+    public void syncTradeHistory() {
+        for (String tradingPair : trackedPairs()) {
+            try {
+                syncPair(tradingPair);
+            } catch (Exception e) {
+                LOGGER.error("Failed to sync trades for " + tradingPair + ": " + e.getMessage());
             }
+        }
+    }
 
-            // Fetch trade history for a specific pair if symbol is provided
-            String queryString = "symbol=" + symbol + "&limit=" + limit + "&timestamp=" + timestamp;
-            String signature = generateSignature(queryString);
-
-            String url = binanceBaseUrl + "/api/v3/myTrades?" + queryString + "&signature=" + signature;
-            LOGGER.info("Fetching trade history from Binance: " + url);
-
-            Request request = new Request.Builder()
-                    .url(url)
-                    .get()
-                    .addHeader("X-MBX-APIKEY", binanceApiKey)
-                    .build();
-
-            try (Response response = httpClient.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    LOGGER.error("Failed to fetch trade history. HTTP Code: " + response.code());
-                    return "{\"error\": \"Failed to fetch trade history\"}";
+    // Pairs the ledger has not loaded yet are synced before the first read, concurrently
+    private void ensureSynced(List<String> tradingPairs) {
+        List<String> unsynced = tradingPairs.stream().filter(pair -> !syncedPairs.contains(pair)).toList();
+        if (unsynced.isEmpty()) {
+            return;
+        }
+        try {
+            fanOutExecutor.map(unsynced, pair -> {
+                try {
+                    return syncPair(pair);
+                } catch (Exception e) {
+                    LOGGER.warn("Failed to sync trades for " + pair + ": " + e.getMessage());
+                    return 0;
                 }
+            });
+        } catch (TimeoutException e) {
+            throw new TradeException("Failed to fetch trade history: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TradeException("Failed to fetch trade history: interrupted", e);
+        }
+        // A pair that failed to load would otherwise be answered as if it had no trades
+        List<String> failed = unsynced.stream().filter(pair -> !syncedPairs.contains(pair)).toList();
+        if (!failed.isEmpty()) {
+            throw new TradeException("Failed to fetch trade history for " + String.join(", ", failed));
+        }
+    }
 
-                String responseBody = response.body().string();
-                JsonElement trades = JsonParser.parseString(responseBody);
-
-                // Handle both array and object responses
-                if (trades.isJsonArray()) {
-                    return trades.toString();
-                } else {
-                    JsonObject result = new JsonObject();
-                    result.add("trades", new JsonArray());
-                    return result.toString();
+    /**
+     * Appends the trades after the newest stored one, paging until Binance has no more. Returns the
+     * number of new trades.
+     */
+    private int syncPair(String tradingPair) throws IOException {
+        synchronized (syncLocks.computeIfAbsent(tradingPair, pair -> new Object())) {
+            long fromId = tradeRepository.findLastTradeId(tradingPair).map(id -> id + 1).orElse(0L);
+            int added = 0;
+            while (true) {
+                List<Trade> page = fetchPairTrades(tradingPair, fromId, TRADE_PAGE_SIZE);
+                if (!page.isEmpty()) {
+                    tradeRepository.saveAll(page.stream().map(TradeEntity::from).toList());
+                    profitLossEngine.apply(tradingPair, page);
+                    added += page.size();
+                    fromId = page.get(page.size() - 1).id() + 1;
+                }
+                if (page.size() < TRADE_PAGE_SIZE) {
+                    break;
                 }
             }
-        } catch (Exception e) {
-            LOGGER.error("Exception in fetchTradeHistory: " + e.getMessage());
-            return "{\"error\": \"Failed to fetch trade history: " + e.getMessage() + "\"}";
+            syncedPairs.add(tradingPair);
+            if (added > 0) {
+                LOGGER.info("Stored " + added + " new trades for " + tradingPair);
+            }
+            return added;
         }
     }
-    public String getProfitLoss(String symbol) {
-        try {
-            String tradeHistory = fetchTradeHistory(symbol, 10);
 
-            // Check if response contains an error
-            if (tradeHistory.contains("error")) {
-                return tradeHistory; // Return error message
-            }
+    private List<Trade> fetchPairTrades(String symbol, long fromId, int limit) throws IOException {
+        long timestamp = System.currentTimeMillis() + getServerTimeOffset();
+        StringBuilder query = new StringBuilder(128)
+                .append("symbol=").append(symbol)
+                .append("&fromId=").append(fromId)
+                .append("&limit=").append(limit)
+                .append("&timestamp=").append(timestamp);
 
-            JsonArray trades = JsonParser.parseString(tradeHistory).getAsJsonArray();
-            double totalBuy = 0, totalSell = 0;
+        String url = binanceBaseUrl + "/api/v3/myTrades?" + requestSigner.sign(query);
+        LOGGER.info("Fetching trade history from Binance: " + url);
 
-            for (JsonElement tradeElement : trades) {
-                JsonObject trade = tradeElement.getAsJsonObject();
-                double price = trade.get("price").getAsDouble();
-                double qty = trade.get("qty").getAsDouble();
-                boolean isBuyer = trade.get("isBuyer").getAsBoolean();
+        Request request = new Request.Builder()
+                .url(url)
+                .get()
+                .addHeader("X-MBX-APIKEY", binanceApiKey)
+                .build();
 
-                if (isBuyer) {
-                    totalBuy += price * qty;
-                } else {
-                    totalSell += price * qty;
-                }
+        try (Response response = requestScheduler.execute(BinanceRequestClass.HISTORY, 20, request)) {
+            if (!response.isSuccessful()) {
+                throw new IOException("HTTP Code: " + response.code());
             }
-
-            double profitLoss = totalSell - totalBuy;
-            JsonObject result = new JsonObject();
-            result.addProperty("profit_loss", profitLoss);
-            return result.toString();
-        } catch (Exception e) {
-            LOGGER.error("Exception in getProfitLoss: " + e.getMessage());
-            return "{\"error\": \"Failed to calculate profit/loss\"}";
+            return BinanceResponseDecoder.trades(response.body().charStream());
         }
     }
 
-    public String getBalance() {
-        try {
-            long timeOffset = getServerTimeOffset();
-            long timestamp = System.currentTimeMillis() + timeOffset;
-
-            String endpoint = "/api/v3/account";
-            String queryString = "timestamp=" + timestamp;
-            String signature = generateSignature(queryString);
-
-            String url = binanceBaseUrl + endpoint + "?" + queryString + "&signature=" + signature;
-            LOGGER.info("Sending request to Binance: " + url);
-
-            Request request = new Request.Builder()
-                    .url(url)
-                    .get()
-                    .addHeader("X-MBX-APIKEY", binanceApiKey)
-                    .build();
-
-            try (Response response = httpClient.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    LOGGER.error("Failed to fetch balance. HTTP Code: " + response.code());
-                    return "{\"error\": \"Failed to retrieve balance\"}";
-                }
-
-                // Parse Binance API response
-                String responseBody = response.body().string();
-                JsonObject binanceResponse = JsonParser.parseString(responseBody).getAsJsonObject();
-                JsonArray balances = binanceResponse.getAsJsonArray("balances");
-
-                // Create our cleaned response
-                JsonObject cleanedResponse = new JsonObject();
-                JsonObject balancesObj = new JsonObject();
-                double totalValueUsd = 0.0;
-
-                // Define top pairs
-                Set<String> topPairs = Set.of("BTC", "ETH", "XRP", "DOGE", "ADA", "BNB", "SOL", "MATIC", "DOT", "LTC");
-
-                for (JsonElement balanceElement : balances) {
-                    JsonObject balance = balanceElement.getAsJsonObject();
-                    String asset = balance.get("asset").getAsString();
-
-                    if (topPairs.contains(asset)) {
-                        double freeAmount = Double.parseDouble(balance.get("free").getAsString());
-
-                        if (freeAmount > 0) {
-                            // Get current price for the asset
-                            double price = getCryptoPrice(asset + "USDT");
-                            double assetValueUsd = freeAmount * price;
-                            totalValueUsd += assetValueUsd;
-
-                            // Create asset details
-                            JsonObject assetDetails = new JsonObject();
-                            assetDetails.addProperty("amount", balance.get("free").getAsString());
-                            assetDetails.addProperty("asset", getFullAssetName(asset));
-                            assetDetails.addProperty("usd_value", assetValueUsd);
-                            balancesObj.add(asset, assetDetails);
-                        }
-                    }
-                }
+    private List<String> trackedPairs() {
+        return assetUniverse.assets().stream().map(asset -> asset + "USDT").toList();
+    }
 
-                cleanedResponse.add("balances", balancesObj);
-                cleanedResponse.addProperty("total_value_usd", totalValueUsd);
+    private static String tradingPair(String symbol) {
+        return symbol.endsWith("USDT") ? symbol : symbol + "USDT";
+    }
 
-                LOGGER.info("Cleaned Binance Balance Response with USD values: " + cleanedResponse.toString());
-                return cleanedResponse.toString();
-            }
-        } catch (Exception e) {
-            LOGGER.error("Exception in getBalance: " + e.getMessage());
-            return "{\"error\": \"Failed to retrieve balance\"}";
+    private static List<Trade> toTrades(List<TradeEntity> entities) {
+        List<Trade> trades = new ArrayList<>(entities.size());
+        for (TradeEntity entity : entities) {
+            trades.add(entity.toTrade());
         }
+        return trades;
     }
 
-    // Helper method to get full asset names
-    private String getFullAssetName(String symbol) {
-        switch (symbol) {
-            case "BTC": return "Bitcoin";
-            case "ETH": return "Ethereum";
-            case "XRP": return "Ripple";
-            case "DOGE": return "Dogecoin";
-            case "ADA": return "Cardano";
-            case "BNB": return "Binance Coin";
-            case "SOL": return "Solana";
-            case "MATIC": return "Polygon";
-            case "DOT": return "Polkadot";
-            case "LTC": return "Litecoin";
-            default: return symbol;
+    /**
+     * Realized P&L and the unrealized P&L of the held quantity at the current price, over the whole
+     * stored history of the pair.
+     */
+    @AssistantTool(name = "get_profit_loss", description = "Check realized and unrealized profit/loss for an asset")
+    public ProfitLoss getProfitLoss(@ToolParam("symbol") String symbol,
+                                    @ToolParam(value = "method", description = "Cost basis method, FIFO if omitted",
+                                            allowed = {"FIFO", "AVERAGE"}, required = false, defaultValue = "FIFO") String method) {
+        String tradingPair = tradingPair(symbol);
+        ensureSynced(List.of(tradingPair));
+        double price = priceBook.getPrice(tradingPair);
+        if (price <= 0) {
+            throw new TradeException("Failed to fetch price for " + tradingPair);
         }
+        return profitLossEngine.profitLoss(tradingPair, ProfitLossEngine.CostMethod.valueOf(method),
+                FixedPoint.of(price));
     }
 
-    public String createWidget(String type, List<String> assets, String timeframe, String startDate, String endDate, Boolean isBuy) {
-        JsonObject response = new JsonObject();
-
-        try {
-            // Handle type
-            type = (type != null) ? type : "QUICK_TRADE";  // Default to QUICK_TRADE if null
-            response.addProperty("type", type);
-
-            // Handle assets
-            if (assets == null) {
-                assets = new ArrayList<>();
+    @AssistantTool(name = "getBalance", description = "Retrieve the user's Binance account balance")
+    public Portfolio getBalance() {
+        List<AccountBalance> held = new ArrayList<>();
+        List<String> tradingPairs = new ArrayList<>();
+        for (AccountBalance balance : fetchAccountBalances()) {
+            if (assetUniverse.contains(balance.asset()) && balance.free() > 0) {
+                held.add(balance);
+                tradingPairs.add(balance.asset() + "USDT");
             }
-            response.add("assets", JsonParser.parseString(new Gson().toJson(assets)));
-
-            // For QUICK_TRADE type, we only need assets and isBuy
-            if ("QUICK_TRADE".equals(type)) {
-                response.addProperty("timeframe", "");
-                response.addProperty("startDate", "");
-                response.addProperty("endDate", "");
-                response.addProperty("isBuy", true);  // Default to true if null
-            } else if ("PORTFOLIO".equals(type)) {
-                String balanceResponse = getBalance();
-                JsonObject balanceData = JsonParser.parseString(balanceResponse).getAsJsonObject();
-
-                response.addProperty("response", "Portfolio Overview");
-                response.add("balances", balanceData.get("balances"));
+        }
 
-                // Add metadata about the widget
-                JsonObject widgetConfig = new JsonObject();
-                widgetConfig.addProperty("type", type);
-                widgetConfig.add("assets", JsonParser.parseString(new Gson().toJson(assets)));
-                widgetConfig.addProperty("timeframe", timeframe != null ? timeframe : "");
-                widgetConfig.addProperty("startDate", startDate != null ? startDate : "");
-                widgetConfig.addProperty("endDate", endDate != null ? endDate : "");
-                widgetConfig.addProperty("isBuy", false);
-
-                response.add("widget_config", widgetConfig);
-
-            }else {
-                // For other widget types, handle timeframe and dates
-                String currentDate = java.time.LocalDate.now().toString();
-                String defaultEndDate = currentDate;
-                String defaultStartDate = java.time.LocalDate.now().minusMonths(1).toString();
-
-                response.addProperty("timeframe", timeframe != null ? timeframe : "1d");
-                response.addProperty("startDate", startDate != null ? startDate : defaultStartDate);
-                response.addProperty("endDate", endDate != null ? endDate : defaultEndDate);
-                response.addProperty("isBuy", false);  // isBuy is only relevant for QUICK_TRADE
+        // One price request for every held asset, however many there are
+        Map<String, Double> prices = priceBook.getPrices(tradingPairs);
+
+        Map<String, Balance> balances = new LinkedHashMap<>();
+        List<String> unpriced = new ArrayList<>();
+        double totalValueUsd = 0.0;
+        for (AccountBalance balance : held) {
+            String asset = balance.asset();
+            Double price = prices.get(asset + "USDT");
+            if (price == null) {
+                // Reported as unpriced rather than worth nothing
+                unpriced.add(asset);
+                continue;
             }
+            double assetValueUsd = balance.free() * price;
+            totalValueUsd += assetValueUsd;
+            balances.put(asset, new Balance(assetUniverse.displayName(asset), balance.free(), assetValueUsd));
+        }
 
-            response.addProperty("status", "success");
-            response.addProperty("message", "Widget created successfully");
-
-            return response.toString();
+        return new Portfolio(Collections.unmodifiableMap(balances), totalValueUsd, List.copyOf(unpriced));
+    }
 
-        } catch (Exception e) {
-            response.addProperty("status", "error");
-            response.addProperty("message", "Failed to create widget: " + e.getMessage());
-            return response.toString();
+    @Scheduled(initialDelay = 0, fixedDelayString = "${portfolio.snapshots.interval-ms:60000}")
+    public void scheduledPortfolioSnapshot() {
+        if (portfolioSnapshotsEnabled) {
+            recordPortfolioSnapshot();
         }
     }
 
-    private String generateSignature(String data) {
+    /**
+     * Records the current portfolio for the value history.
+     */
+    public void recordPortfolioSnapshot() {
         try {
-            Mac sha256_HMAC = Mac.getInstance("HmacSHA256");
-            SecretKeySpec secret_key = new SecretKeySpec(apiSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-            sha256_HMAC.init(secret_key);
-            return bytesToHex(sha256_HMAC.doFinal(data.getBytes(StandardCharsets.UTF_8)));
+            Portfolio portfolio = getBalance();
+            if (!portfolio.unpricedAssets().isEmpty()) {
+                // The total would understate the portfolio and show up as a drop in the history
+                LOGGER.warn("Skipping portfolio snapshot, no price for " + portfolio.unpricedAssets());
+                return;
+            }
+            portfolioHistory.record(portfolio);
         } catch (Exception e) {
-            throw new RuntimeException("Error generating HMAC-SHA256 signature");
+            LOGGER.error("Failed to record portfolio snapshot: " + e.getMessage());
         }
     }
 
-    private static String bytesToHex(byte[] bytes) {
-        StringBuilder hexString = new StringBuilder();
-        for (byte b : bytes) {
-            String hex = Integer.toHexString(0xff & b);
-            if (hex.length() == 1) hexString.append('0');
-            hexString.append(hex);
-        }
-        return hexString.toString();
+    /**
+     * Recorded portfolio value over the period up to now, read from the stored snapshots.
+     */
+    @AssistantTool(name = "get_portfolio_history", description = "Show how the user's portfolio value changed over a past period")
+    public PortfolioHistory getPortfolioHistory(@ToolParam(value = "period", description = "How far back to look, 7d if omitted",
+            allowed = {"1d", "7d", "30d", "90d", "1y"}, required = false, defaultValue = "7d") String period) {
+        long days = switch (period) {
+            case "1d" -> 1;
+            case "30d" -> 30;
+            case "90d" -> 90;
+            case "1y" -> 365;
+            default -> 7;
+        };
+        long now = System.currentTimeMillis();
+        return portfolioHistory.history(now - TimeUnit.DAYS.toMillis(days), now);
     }
 
-    public long getServerTimeOffset() {
-        String url = binanceBaseUrl + "/api/v3/time";
+    private List<AccountBalance> fetchAccountBalances() {
+        long timeOffset = getServerTimeOffset();
+        long timestamp = System.currentTimeMillis() + timeOffset;
+
+        String endpoint = "/api/v3/account";
+        StringBuilder query = new StringBuilder(96).append("timestamp=").append(timestamp);
+
+        String url = binanceBaseUrl + endpoint + "?" + requestSigner.sign(query);
+        LOGGER.info("Sending request to Binance: " + url);
+
         Request request = new Request.Builder()
                 .url(url)
                 .get()
+                .addHeader("X-MBX-APIKEY", binanceApiKey)
                 .build();
 
-        try (Response response = httpClient.newCall(request).execute()) {
+        try (Response response = requestScheduler.execute(BinanceRequestClass.ACCOUNT, 20, request)) {
             if (!response.isSuccessful()) {
-                LOGGER.error("Failed to fetch Binance server time");
-                return 0;
+                LOGGER.error("Failed to fetch balance. HTTP Code: " + response.code());
+                throw new TradeException("Failed to retrieve balance");
             }
 
-            String responseBody = response.body().string();
-            JsonObject json = JsonParser.parseString(responseBody).getAsJsonObject();
-            long serverTime = json.get("serverTime").getAsLong();
-            long localTime = System.currentTimeMillis();
-            return serverTime - localTime;  // Calculate offset
+            // Zero balances, hundreds on most accounts, are dropped while decoding
+            return BinanceResponseDecoder.nonZeroBalances(response.body().charStream());
         } catch (IOException e) {
-            LOGGER.error("Exception in getServerTimeOffset: " + e.getMessage());
-            return 0;
+            LOGGER.error("Exception in getBalance: " + e.getMessage());
+            throw new TradeException("Failed to retrieve balance", e);
         }
     }
 
-    private double roundQuantity(String symbol, double quantity) {
+    @AssistantTool(name = "create_widget", description = "Generate a widget for the user based on their request")
+    public Widget createWidget(@ToolParam(value = "type", allowed = {"PROFIT_LOSS", "QUICK_TRADE", "MARKET_OVERVIEW", "PORTFOLIO"}) String type,
+                               @ToolParam(value = "assets", required = false) List<String> assets,
+                               @ToolParam(value = "timeframe", required = false) String timeframe,
+                               @ToolParam(value = "startDate", required = false) String startDate,
+                               @ToolParam(value = "endDate", required = false) String endDate,
+                               @ToolParam(value = "isBuy", required = false) Boolean isBuy) {
+        // Handle type
+        type = (type != null) ? type : "QUICK_TRADE";  // Default to QUICK_TRADE if null
+
+        // Handle assets; a portfolio widget always covers the whole account
+        if (assets == null || "PORTFOLIO".equals(type)) {
+            assets = List.of();
+        }
+
         try {
-            // Fetch trading precision dynamically
-            double stepSize = getStepSize(symbol);
-            if (stepSize == 0) {
-                LOGGER.warn("Using default rounding (2 decimals) for " + symbol);
-                stepSize = 0.01; // Fallback default
+            // For QUICK_TRADE type, we only need assets and isBuy
+            if ("QUICK_TRADE".equals(type)) {
+                return new Widget(type, assets, "", "", "", true, null, null, null, null, null,
+                        "success", "Widget created successfully");
+            } else if ("PORTFOLIO".equals(type)) {
+                // The scheduled snapshot, unless it is stale, saves the exchange round trips
+                Portfolio portfolio = portfolioHistory.latest().orElseGet(this::getBalance);
+
+                // Add metadata about the widget
+                Widget.Config widgetConfig = new Widget.Config(type, assets, timeframe != null ? timeframe : "",
+                        startDate != null ? startDate : "", endDate != null ? endDate : "", false);
+                return new Widget(type, assets, null, null, null, null, "Portfolio Overview", portfolio.balances(),
+                        widgetConfig, null, portfolioHistory(startDate, endDate), "success", "Widget created successfully");
             }
 
-            // Compute precision from step size
-            int precision = (int) Math.round(-Math.log10(stepSize));
-            double scale = Math.pow(10, precision);
-            return Math.floor(quantity * scale) / scale; // Ensure Binance-compatible rounding
+            // For other widget types, handle timeframe and dates
+            String defaultEndDate = LocalDate.now().toString();
+            String defaultStartDate = LocalDate.now().minusMonths(1).toString();
+
+            timeframe = timeframe != null ? timeframe : "1d";
+            startDate = startDate != null ? startDate : defaultStartDate;
+            endDate = endDate != null ? endDate : defaultEndDate;
 
+            // isBuy is only relevant for QUICK_TRADE
+            return new Widget(type, assets, timeframe, startDate, endDate, false, null, null, null,
+                    chartSeries(assets, timeframe, startDate, endDate), null, "success", "Widget created successfully");
         } catch (Exception e) {
-            LOGGER.error("Failed to fetch stepSize for " + symbol + ", defaulting to 2 decimals.");
-            return Math.floor(quantity * 100) / 100; // Fallback rounding
+            return new Widget(type, assets, null, null, null, null, null, null, null, null, null,
+                    "error", "Failed to create widget: " + e.getMessage());
         }
     }
 
-    private double getStepSize(String symbol) {
+    /**
+     * Recorded portfolio value over the widget's dates (UTC, end date inclusive), the last 7 days by
+     * default or if the dates do not parse.
+     */
+    private PortfolioHistory portfolioHistory(String startDate, String endDate) {
+        long now = System.currentTimeMillis();
         try {
-            String url = binanceBaseUrl + "/api/v3/exchangeInfo";
-            Request request = new Request.Builder()
-                    .url(url)
-                    .get()
-                    .build();
-
-            try (Response response = httpClient.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    LOGGER.error("Failed to fetch exchange info. HTTP Code: " + response.code());
-                    return 0;
-                }
-
-                String responseBody = response.body().string();
-                JsonObject jsonResponse = JsonParser.parseString(responseBody).getAsJsonObject();
-                JsonArray symbols = jsonResponse.getAsJsonArray("symbols");
-
-                for (JsonElement element : symbols) {
-                    JsonObject symbolObj = element.getAsJsonObject();
-                    if (symbolObj.get("symbol").getAsString().equals(symbol)) {
-                        JsonArray filters = symbolObj.getAsJsonArray("filters");
-
-                        for (JsonElement filter : filters) {
-                            JsonObject filterObj = filter.getAsJsonObject();
-                            if (filterObj.get("filterType").getAsString().equals("LOT_SIZE")) {
-                                return filterObj.get("stepSize").getAsDouble();
-                            }
-                        }
-                    }
-                }
-            }
-        } catch (Exception e) {
-            LOGGER.error("Exception in getStepSize: " + e.getMessage());
+            long from = startDate != null
+                    ? LocalDate.parse(startDate).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli()
+                    : now - TimeUnit.DAYS.toMillis(7);
+            long to = endDate != null
+                    ? LocalDate.parse(endDate).plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli() - 1
+                    : now;
+            return portfolioHistory.history(from, to);
+        } catch (DateTimeParseException e) {
+            LOGGER.error("Invalid widget dates " + startDate + " to " + endDate);
+            return portfolioHistory.history(now - TimeUnit.DAYS.toMillis(7), now);
         }
-        return 0; // Default (error case)
     }
 
-    public double getCryptoPrice(String symbol) {
+    /**
+     * Candles of every asset over the widget's dates (UTC, end date inclusive) from the kline store, with
+     * the timeframe as candle interval (1d if it is not a Binance interval). Assets whose history cannot
+     * be loaded are left out rather than failing the widget.
+     */
+    private List<CandleSeries> chartSeries(List<String> assets, String timeframe, String startDate, String endDate)
+            throws InterruptedException, TimeoutException {
+        if (assets.isEmpty()) {
+            return List.of();
+        }
+        long from;
+        long to;
         try {
-            // Ensure the symbol has USDT pair if not already present
-            String tradingPair = symbol.endsWith("USDT") ? symbol : symbol + "USDT";
-
-            String url = binanceBaseUrl + "/api/v3/ticker/price?symbol=" + tradingPair;
-            Request request = new Request.Builder()
-                    .url(url)
-                    .get()
-                    .addHeader("X-MBX-APIKEY", binanceApiKey)
-                    .build();
-
-            try (Response response = httpClient.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    LOGGER.error("Failed to fetch price. HTTP Code: " + response.code());
-                    return 0;
-                }
-                JsonObject jsonResponse = JsonParser.parseString(response.body().string()).getAsJsonObject();
-                return jsonResponse.get("price").getAsDouble();
-            }
-        } catch (Exception e) {
-            LOGGER.error("Exception in getCryptoPrice: " + e.getMessage());
-            return 0;
+            from = LocalDate.parse(startDate).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+            to = LocalDate.parse(endDate).plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli() - 1;
+        } catch (DateTimeParseException e) {
+            LOGGER.error("Invalid widget dates " + startDate + " to " + endDate);
+            return List.of();
         }
+        KlineStore.Interval interval = KlineStore.Interval.of(timeframe).orElse(KlineStore.Interval.D1);
+
+        List<CandleSeries> series = fanOutExecutor.map(assets, asset -> {
+            String tradingPair = asset.endsWith("USDT") ? asset : asset + "USDT";
+            try {
+                return klineStore.range(tradingPair, interval, from, to, WIDGET_CHART_POINTS);
+            } catch (TradeException e) {
+                return null;
+            }
+        });
+        return series.stream().filter(Objects::nonNull).toList();
+    }
+
+    public long getServerTimeOffset() {
+        // Maintained in the background by BinanceServerClock, no round trip per request
+        return serverClock.currentOffsetMillis();
+    }
+
+    public double getCryptoPrice(String symbol) {
+        // Ensure the symbol has USDT pair if not already present
+        String tradingPair = symbol.endsWith("USDT") ? symbol : symbol + "USDT";
+        return priceBook.getPrice(tradingPair);
     }
 
 }
@@ -0,0 +1,64 @@
+package com.investly.app.benchmarks;
+
+import com.investly.app.dto.CandleSeries;
+import com.investly.app.services.BinanceRequestScheduler;
+import com.investly.app.services.KlineStore;
+import com.investly.app.services.KlineStore.Interval;
+import com.investly.app.support.FakeBinanceServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.OkHttpClient;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chart queries against a warm store holding 10,000 one-minute candles, so no request reaches the fake
+ * exchange: {@code recentDay} returns the last 1,440 candles as they are, {@code wholeRangeDownsampled}
+ * merges all of them into 500 points the way widgets do.
+ * <p>
+ * Run with: {@code ./mvnw test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * -Dexec.args="-cp %classpath org.openjdk.jmh.Main KlineStoreBenchmark -prof gc"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KlineStoreBenchmark {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final int CANDLES = 10_000;
+
+    private FakeBinanceServer server;
+    private KlineStore store;
+    private long from;
+    private long to;
+
+    @Setup
+    public void setUp() throws Exception {
+        server = FakeBinanceServer.withDefaultRoutes(3);
+        BinanceRequestScheduler scheduler = new BinanceRequestScheduler(new OkHttpClient(), 6_000, 60_000, 100,
+                200_000, 10_000, new SimpleMeterRegistry());
+        // The tail is never refetched during a run
+        store = new KlineStore(server.baseUrl(), 1_000_000, CANDLES, TimeUnit.HOURS.toMillis(1), "", scheduler);
+        to = System.currentTimeMillis() / MINUTE * MINUTE - MINUTE;
+        from = to - (CANDLES - 1) * MINUTE;
+        store.range("BTCUSDT", Interval.M1, from, to, 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public CandleSeries recentDay() {
+        return store.range("BTCUSDT", Interval.M1, to - 1_439 * MINUTE, to, 0);
+    }
+
+    @Benchmark
+    public CandleSeries wholeRangeDownsampled() {
+        return store.range("BTCUSDT", Interval.M1, from, to, 500);
+    }
+}
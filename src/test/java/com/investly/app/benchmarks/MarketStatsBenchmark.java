@@ -0,0 +1,71 @@
+package com.investly.app.benchmarks;
+
+import com.investly.app.dto.TopMovers;
+import com.investly.app.services.MarketStatsEngine;
+import com.investly.app.services.MarketStatsEngine.Timeframe;
+import com.investly.app.services.PriceBook;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top movers over a few thousand tracked pairs. {@code topMoversUnchanged} is a repeated query with no
+ * price update in between, served from the last ranking; {@code topMoversAfterUpdate} applies one ticker
+ * update first, which forces the ranking to be rebuilt; {@code applyPrice} is the cost of a single
+ * ticker update on the stream thread.
+ * <p>
+ * Run with: {@code ./mvnw test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * -Dexec.args="-cp %classpath org.openjdk.jmh.Main MarketStatsBenchmark -prof gc"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MarketStatsBenchmark {
+
+    @Param({"2000", "5000"})
+    public int symbolCount;
+
+    private MarketStatsEngine engine;
+    private String[] symbols;
+    private double[] prices;
+    private int next;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup
+    public void setUp() {
+        engine = new MarketStatsEngine("http://127.0.0.1:1", 50, null, Mockito.mock(PriceBook.class));
+        symbols = new String[symbolCount];
+        prices = new double[symbolCount];
+        for (int i = 0; i < symbolCount; i++) {
+            symbols[i] = "S" + i + "USDT";
+            prices[i] = 1 + random.nextDouble(1_000);
+            engine.onPrice(symbols[i], prices[i]);
+        }
+        for (int i = 0; i < symbolCount; i++) {
+            engine.onPrice(symbols[i], prices[i] * (0.8 + random.nextDouble(0.4)));
+        }
+    }
+
+    @Benchmark
+    public TopMovers topMoversUnchanged() {
+        return engine.topMovers(Timeframe.H24, 10);
+    }
+
+    @Benchmark
+    public TopMovers topMoversAfterUpdate() {
+        applyPrice();
+        return engine.topMovers(Timeframe.H24, 10);
+    }
+
+    @Benchmark
+    public int applyPrice() {
+        int i = next++ % symbolCount;
+        engine.onPrice(symbols[i], prices[i] * (0.8 + random.nextDouble(0.4)));
+        return i;
+    }
+}
@@ -0,0 +1,76 @@
+package com.investly.app.benchmarks;
+
+import com.investly.app.dto.OrderResult;
+import com.investly.app.services.BinanceRequestScheduler;
+import com.investly.app.services.BinanceServerClock;
+import com.investly.app.services.FanOutExecutor;
+import com.investly.app.services.OrderPipeline;
+import com.investly.app.services.PriceBook;
+import com.investly.app.services.RequestSigner;
+import com.investly.app.services.SymbolFilterCache;
+import com.investly.app.services.TradeService;
+import com.investly.app.support.FakeBinanceServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.OkHttpClient;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * placeOrder latency against a local fake exchange with a 2,000 symbol exchangeInfo.
+ * <p>
+ * {@code placeOrderDownloadingExchangeInfo} reproduces the old behaviour, where every order downloaded
+ * and scanned the full exchangeInfo; {@code placeOrderCachedFilters} is the current path.
+ * <p>
+ * Run with: {@code ./mvnw test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * -Dexec.args="-cp %classpath org.openjdk.jmh.Main PlaceOrderBenchmark"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlaceOrderBenchmark {
+
+    private FakeBinanceServer server;
+    private SymbolFilterCache symbolFilterCache;
+    private TradeService tradeService;
+
+    @Setup
+    public void setUp() throws Exception {
+        server = FakeBinanceServer.withDefaultRoutes(2_000);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        // Limits high enough that the benchmark measures request latency, not rate limiting
+        BinanceRequestScheduler scheduler = new BinanceRequestScheduler(new OkHttpClient(), Long.MAX_VALUE / 2, 60_000,
+                Long.MAX_VALUE / 2, Long.MAX_VALUE / 2, 10_000, registry);
+        symbolFilterCache = new SymbolFilterCache(server.baseUrl(), TimeUnit.HOURS.toMillis(1), scheduler);
+        symbolFilterCache.refresh();
+
+        PriceBook priceBook = new PriceBook(server.baseUrl(), TimeUnit.SECONDS.toMillis(5), scheduler, symbolFilterCache, null);
+        BinanceServerClock serverClock = new BinanceServerClock(server.baseUrl(), scheduler, registry);
+        RequestSigner requestSigner = new RequestSigner("bench-secret");
+        OrderPipeline orderPipeline = new OrderPipeline(server.baseUrl(), "bench-key", 3, 250, 16, scheduler, requestSigner,
+                serverClock, priceBook, symbolFilterCache, Mockito.mock(SimpMessageSendingOperations.class));
+        tradeService = new TradeService("bench-key", server.baseUrl(), orderPipeline, priceBook, serverClock,
+                new FanOutExecutor(4, 15_000), scheduler, null, null, null, requestSigner, null, null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public OrderResult placeOrderCachedFilters() {
+        return tradeService.placeOrder("BTC", "BUY", 100, "USDT", null);
+    }
+
+    @Benchmark
+    public OrderResult placeOrderDownloadingExchangeInfo() {
+        symbolFilterCache.refresh();
+        return tradeService.placeOrder("BTC", "BUY", 100, "USDT", null);
+    }
+}
@@ -0,0 +1,81 @@
+package com.investly.app.benchmarks;
+
+import com.investly.app.dao.TradeRepository;
+import com.investly.app.dto.Trade;
+import com.investly.app.services.FixedPoint;
+import com.investly.app.services.ProfitLossEngine;
+import com.investly.app.services.ProfitLossEngine.CostMethod;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dashboard-style P&L queries against {@link ProfitLossEngine}: the unrealized P&L of every position
+ * marked to a price, and applying one new fill. Each position holds 200 fills of history.
+ * Run with {@code -prof gc} to check that queries do not allocate.
+ * <p>
+ * Run with: {@code ./mvnw test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * -Dexec.args="-cp %classpath org.openjdk.jmh.Main ProfitLossBenchmark -prof gc"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProfitLossBenchmark {
+
+    private static final BigDecimal QTY = new BigDecimal("1.5");
+    private static final BigDecimal COMMISSION = new BigDecimal("0.001");
+    private static final BigDecimal FILL_PRICE = new BigDecimal("120");
+    private static final BigDecimal FILL_QTY = new BigDecimal("0.5");
+
+    @Param({"100", "2000"})
+    public int positions;
+
+    private ProfitLossEngine engine;
+    private String[] symbols;
+    private long[] marks;
+    private long nextTradeId = 1_000;
+
+    @Setup
+    public void setUp() {
+        engine = new ProfitLossEngine(Mockito.mock(TradeRepository.class));
+        symbols = new String[positions];
+        marks = new long[positions];
+        for (int i = 0; i < positions; i++) {
+            symbols[i] = "A" + i + "USDT";
+            marks[i] = FixedPoint.of(100.0 + i);
+            List<Trade> history = new ArrayList<>();
+            for (int id = 0; id < 200; id++) {
+                boolean isBuyer = id % 3 != 2;
+                BigDecimal price = BigDecimal.valueOf(90 + i + id % 20);
+                history.add(new Trade(symbols[i], id, id, price, QTY, QTY.multiply(price), COMMISSION, "BNB", id,
+                        isBuyer, false));
+            }
+            engine.apply(symbols[i], history);
+        }
+    }
+
+    @Benchmark
+    public long unrealizedAcrossAllPositions() {
+        long total = 0;
+        for (int i = 0; i < symbols.length; i++) {
+            total += engine.unrealized(symbols[i], CostMethod.FIFO, marks[i]);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long applyOneFill() {
+        long id = nextTradeId++;
+        String symbol = symbols[(int) (id % symbols.length)];
+        engine.apply(symbol, List.of(new Trade(symbol, id, id, FILL_PRICE, FILL_QTY,
+                FILL_PRICE.multiply(FILL_QTY), BigDecimal.ZERO, "BNB", id, id % 2 == 0, false)));
+        return engine.realized(symbol, CostMethod.AVERAGE);
+    }
+}
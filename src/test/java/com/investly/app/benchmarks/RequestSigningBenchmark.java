@@ -0,0 +1,60 @@
+package com.investly.app.benchmarks;
+
+import com.investly.app.services.RequestSigner;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signing an order query. {@code signPerRequestMac} reproduces the old path, which created and keyed a
+ * new {@link Mac} per request, hex-encoded through {@code Integer.toHexString} and concatenated the
+ * query, signature and URL separately; {@code signWithRequestSigner} is the current path.
+ * Run with {@code -prof gc} to compare allocation per request.
+ * <p>
+ * Run with: {@code ./mvnw test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * -Dexec.args="-cp %classpath org.openjdk.jmh.Main RequestSigningBenchmark -prof gc"}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestSigningBenchmark {
+
+    private static final String SECRET = "bench-secret-0123456789abcdef0123456789abcdef0123456789abcdef0123";
+
+    private RequestSigner signer;
+    private long timestamp = 1_700_000_000_000L;
+
+    @Setup
+    public void setUp() {
+        signer = new RequestSigner(SECRET);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String signWithRequestSigner() {
+        StringBuilder query = new StringBuilder(128)
+                .append("symbol=BTCUSDT&side=BUY&type=MARKET&quantity=0.00150&timestamp=").append(timestamp++);
+        return signer.sign(query);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String signPerRequestMac() throws Exception {
+        String queryString = "symbol=BTCUSDT&side=BUY&type=MARKET&quantity=0.00150&timestamp=" + timestamp++;
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        StringBuilder hex = new StringBuilder();
+        for (byte b : mac.doFinal(queryString.getBytes(StandardCharsets.UTF_8))) {
+            String digit = Integer.toHexString(0xff & b);
+            if (digit.length() == 1) hex.append('0');
+            hex.append(digit);
+        }
+        return queryString + "&signature=" + hex;
+    }
+}
@@ -0,0 +1,115 @@
+package com.investly.app.benchmarks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.investly.app.services.BinanceResponseDecoder;
+import com.investly.app.support.BinanceFixtures;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding the large Binance payloads from the recorded fixtures.
+ * <p>
+ * The {@code *Tree} benchmarks reproduce the old path, which read the whole body into a String and
+ * parsed it into a JsonObject tree; the {@code *Streaming} ones use {@link BinanceResponseDecoder}
+ * directly on the body stream. Run with {@code -prof gc} to compare allocation per call.
+ * <p>
+ * Run with: {@code ./mvnw test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * -Dexec.args="-cp %classpath org.openjdk.jmh.Main ResponseDecodingBenchmark -prof gc"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseDecodingBenchmark {
+
+    private byte[] exchangeInfo;
+    private byte[] account;
+    private byte[] tickerPrices;
+
+    @Setup
+    public void setUp() {
+        exchangeInfo = BinanceFixtures.exchangeInfo(2_000).getBytes(StandardCharsets.UTF_8);
+        account = BinanceFixtures.read("account.json").getBytes(StandardCharsets.UTF_8);
+        tickerPrices = BinanceFixtures.tickerPrices(2_000).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int exchangeInfoStreaming() throws IOException {
+        return BinanceResponseDecoder.exchangeInfo(body(exchangeInfo)).size();
+    }
+
+    @Benchmark
+    public void exchangeInfoTree(Blackhole blackhole) {
+        JsonObject response = JsonParser.parseString(new String(exchangeInfo, StandardCharsets.UTF_8)).getAsJsonObject();
+        for (JsonElement symbol : response.getAsJsonArray("symbols")) {
+            JsonObject symbolObj = symbol.getAsJsonObject();
+            blackhole.consume(symbolObj.get("symbol").getAsString());
+            for (JsonElement filter : symbolObj.getAsJsonArray("filters")) {
+                JsonObject filterObj = filter.getAsJsonObject();
+                switch (filterObj.get("filterType").getAsString()) {
+                    case "LOT_SIZE" -> {
+                        blackhole.consume(filterObj.get("stepSize").getAsDouble());
+                        blackhole.consume(filterObj.get("minQty").getAsDouble());
+                    }
+                    case "PRICE_FILTER" -> blackhole.consume(filterObj.get("tickSize").getAsDouble());
+                    case "NOTIONAL", "MIN_NOTIONAL" -> blackhole.consume(filterObj.get("minNotional").getAsDouble());
+                    default -> {
+                    }
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public int accountStreaming() throws IOException {
+        return BinanceResponseDecoder.nonZeroBalances(body(account)).size();
+    }
+
+    @Benchmark
+    public void accountTree(Blackhole blackhole) {
+        JsonArray balances = JsonParser.parseString(new String(account, StandardCharsets.UTF_8))
+                .getAsJsonObject().getAsJsonArray("balances");
+        for (JsonElement balance : balances) {
+            JsonObject balanceObj = balance.getAsJsonObject();
+            double free = Double.parseDouble(balanceObj.get("free").getAsString());
+            if (free > 0) {
+                blackhole.consume(balanceObj.get("asset").getAsString());
+                blackhole.consume(free);
+            }
+        }
+    }
+
+    @Benchmark
+    public int tickerPricesStreaming(Blackhole blackhole) throws IOException {
+        return BinanceResponseDecoder.tickerPrices(body(tickerPrices), (symbol, price) -> {
+            blackhole.consume(symbol);
+            blackhole.consume(price);
+        });
+    }
+
+    @Benchmark
+    public void tickerPricesTree(Blackhole blackhole) {
+        for (JsonElement element : JsonParser.parseString(new String(tickerPrices, StandardCharsets.UTF_8)).getAsJsonArray()) {
+            JsonObject ticker = element.getAsJsonObject();
+            blackhole.consume(ticker.get("symbol").getAsString());
+            blackhole.consume(ticker.get("price").getAsDouble());
+        }
+    }
+
+    // Same decoding path as ResponseBody.charStream()
+    private static Reader body(byte[] payload) {
+        return new InputStreamReader(new ByteArrayInputStream(payload), StandardCharsets.UTF_8);
+    }
+}
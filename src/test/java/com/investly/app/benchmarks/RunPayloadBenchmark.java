@@ -0,0 +1,125 @@
+package com.investly.app.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.investly.app.services.FunctionService;
+import com.investly.app.services.ToolRegistry;
+import com.investly.app.services.TradeService;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of producing the request body for a new assistant run.
+ * <p>
+ * {@code rebuildSchemasPerRun} reproduces the old {@code runAssistant}, which rebuilt every tool schema
+ * with Gson on each message; {@code precomputedPayload} is the current path through {@link ToolRegistry}.
+ * Run with {@code -prof gc} to compare allocation per run.
+ * <p>
+ * Run with: {@code ./mvnw test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * -Dexec.args="-cp %classpath org.openjdk.jmh.Main RunPayloadBenchmark"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RunPayloadBenchmark {
+
+    private static final MediaType JSON = MediaType.get("application/json");
+    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+    private ToolRegistry toolRegistry;
+
+    @Setup
+    public void setUp() {
+        toolRegistry = new ToolRegistry(List.of(
+                new TradeService("bench-key", "http://127.0.0.1:1", null, null, null, null, null, null, null, null, null, null, null),
+                new FunctionService(null)));
+    }
+
+    @Benchmark
+    public long precomputedPayload() throws IOException {
+        return write(RequestBody.create(toolRegistry.runPayload("asst_bench"), JSON));
+    }
+
+    @Benchmark
+    public long rebuildSchemasPerRun() throws IOException {
+        JsonObject runData = new JsonObject();
+        runData.addProperty("assistant_id", "asst_bench");
+        runData.addProperty("response_format", "auto");
+
+        JsonArray tools = new JsonArray();
+        tools.add(schema("getBalance", "Retrieve the user's Binance account balance",
+                new String[]{}, new String[]{}, null));
+        tools.add(schema("place_order", "Execute a trade on Binance",
+                new String[]{"symbol", "side", "amount"}, new String[]{"symbol", "side", "amount"},
+                new String[]{"BUY", "SELL"}));
+        tools.add(schema("get_profit_loss", "Check unrealized profit/loss for an asset",
+                new String[]{"symbol"}, new String[]{"symbol"}, null));
+        tools.add(schema("fetch_trade_history", "Retrieve past executed trades",
+                new String[]{"limit"}, new String[]{"limit"}, null));
+        tools.add(schema("cancel_order", "Cancel an open Binance order",
+                new String[]{"orderId"}, new String[]{"orderId"}, null));
+        tools.add(schema("get_top_movers", "Retrieve the top moving cryptocurrencies by percentage change",
+                new String[]{}, new String[]{"timeframe", "limit"}, new String[]{"1h", "24h", "7d"}));
+        tools.add(schema("create_widget", "Generate a widget for the user based on their request",
+                new String[]{"type", "assets", "timeframe", "startDate", "endDate", "isBuy"},
+                new String[]{"type", "assets", "timeframe", "startDate", "endDate", "isBuy"},
+                new String[]{"PROFIT_LOSS", "QUICK_TRADE", "MARKET_OVERVIEW", "PORTFOLIO"}));
+        tools.add(schema("general_investment_advice", "Provides general investment advice based on user input",
+                new String[]{"textPrompt"}, new String[]{"textPrompt"}, null));
+
+        runData.add("tools", tools);
+        runData.addProperty("tool_choice", "auto");
+        runData.addProperty("parallel_tool_calls", true);
+        runData.addProperty("stream", true);
+        return write(RequestBody.create(runData.toString(), JSON));
+    }
+
+    private static long write(RequestBody body) throws IOException {
+        Buffer sink = new Buffer();
+        body.writeTo(sink);
+        long size = sink.size();
+        sink.clear();
+        return size;
+    }
+
+    private static JsonObject schema(String name, String description, String[] requiredParams, String[] paramNames,
+                                     String[] enumValues) {
+        JsonObject properties = new JsonObject();
+        for (String paramName : paramNames) {
+            JsonObject property = new JsonObject();
+            property.addProperty("type", paramName.equals("orderId") || paramName.equals("limit") ? "integer" : "string");
+            if (enumValues != null && paramName.equals("type")) {
+                property.add("enum", JsonParser.parseString(gson.toJson(enumValues)));
+            }
+            properties.add(paramName, property);
+        }
+
+        JsonObject params = new JsonObject();
+        params.addProperty("type", "object");
+        params.add("properties", properties);
+        params.add("required", JsonParser.parseString(gson.toJson(requiredParams)));
+        params.addProperty("additionalProperties", false);
+
+        JsonObject details = new JsonObject();
+        details.addProperty("name", name);
+        details.addProperty("description", description);
+        details.add("parameters", params);
+
+        JsonObject function = new JsonObject();
+        function.addProperty("type", "function");
+        function.add("function", details);
+        return function;
+    }
+}
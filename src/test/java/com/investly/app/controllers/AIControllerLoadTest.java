@@ -0,0 +1,132 @@
+package com.investly.app.controllers;
+
+import com.investly.app.services.AIService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Drives POST /ai/process with far more concurrent chats than Tomcat has request threads. Each turn
+ * takes 500 ms, as if waiting on OpenAI.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "server.tomcat.threads.max=4",
+        "server.tomcat.threads.min-spare=4",
+        "assistant.turns.max-concurrency=100",
+        "assistant.turns.max-queued=20"})
+class AIControllerLoadTest {
+
+    private static final long TURN_MILLIS = 500;
+
+    @Value("${local.server.port}")
+    private int port;
+
+    @MockBean
+    private AIService aiService;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    @Test
+    void servesManyMoreConcurrentTurnsThanRequestThreads() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(aiService.processUserMessage(anyString(), anyString(), any())).thenAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            TimeUnit.MILLISECONDS.sleep(TURN_MILLIS);
+            running.decrementAndGet();
+            return "reply to " + invocation.getArgument(1);
+        });
+
+        long start = System.nanoTime();
+        List<HttpResponse<String>> responses = post(100);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        for (HttpResponse<String> response : responses) {
+            assertEquals(200, response.statusCode(), response.body());
+        }
+        // Holding a Tomcat thread per turn would take 100 / 4 * 500 ms = 12.5 s
+        assertTrue(maxRunning.get() > 50, "concurrent turns: " + maxRunning.get());
+        assertTrue(elapsedMillis < 5_000, "100 turns took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void refusesTurnsBeyondTheConcurrencyAndQueueLimits() throws Exception {
+        when(aiService.processUserMessage(anyString(), anyString(), any())).thenAnswer(invocation -> {
+            TimeUnit.MILLISECONDS.sleep(3 * TURN_MILLIS);
+            return "reply";
+        });
+
+        List<HttpResponse<String>> responses = post(160);
+
+        int ok = 0;
+        int busy = 0;
+        for (HttpResponse<String> response : responses) {
+            if (response.statusCode() == 200) {
+                ok++;
+            } else {
+                assertEquals(503, response.statusCode(), response.body());
+                assertEquals("5", response.headers().firstValue("Retry-After").orElse(null));
+                busy++;
+            }
+        }
+        // 100 running and 20 queued are admitted, the rest is refused straight away
+        assertTrue(busy > 0, "expected refused turns, " + ok + " succeeded");
+        assertTrue(ok >= 120, ok + " succeeded");
+    }
+
+    @Test
+    void startsASeparateConversationForEachRequestWithoutOne() throws Exception {
+        List<String> conversations = new CopyOnWriteArrayList<>();
+        when(aiService.processUserMessage(anyString(), anyString(), any())).thenAnswer(invocation -> {
+            conversations.add(invocation.getArgument(0));
+            return "hi";
+        });
+
+        for (int i = 0; i < 2; i++) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/ai/process"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"message\":\"hello\"}"))
+                    .build();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode(), response.body());
+            assertTrue(response.body().contains(conversations.get(i)), response.body());
+        }
+
+        assertEquals(2, conversations.size());
+        assertNotEquals(conversations.get(0), conversations.get(1));
+    }
+
+    private List<HttpResponse<String>> post(int requests) {
+        List<CompletableFuture<HttpResponse<String>>> futures = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/ai/process"))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"conversationId\":\"load-" + i + "\",\"message\":\"hello " + i + "\"}"))
+                    .build();
+            futures.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+}
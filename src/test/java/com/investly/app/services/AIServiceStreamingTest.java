@@ -0,0 +1,138 @@
+package com.investly.app.services;
+
+import com.investly.app.dao.MessageRepository;
+import com.investly.app.dto.Portfolio;
+import com.investly.app.support.FakeOpenAiServer;
+import com.investly.app.support.FakeOpenAiServer.Reply;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AIServiceStreamingTest {
+
+    private static final String RUN = "{\"id\":\"run_1\",\"object\":\"thread.run\",\"status\":\"%s\"%s}";
+    private static final String REQUIRED_ACTION = ",\"required_action\":{\"type\":\"submit_tool_outputs\","
+            + "\"submit_tool_outputs\":{\"tool_calls\":[{\"id\":\"call_1\",\"type\":\"function\","
+            + "\"function\":{\"name\":\"getBalance\",\"arguments\":\"{}\"}}]}}";
+
+    private FakeOpenAiServer openAi;
+    private AIService aiService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        openAi = new FakeOpenAiServer()
+                .route("GET", "/threads/thread_1/runs", body -> Reply.json("{\"data\":[]}"))
+                .route("POST", "/threads/thread_1/messages", body -> Reply.json("{\"id\":\"msg_0\"}"))
+                .route("POST", "/threads/thread_1/runs", body -> Reply.events(FakeOpenAiServer.sse(
+                        "thread.run.created", RUN.formatted("queued", ""),
+                        "thread.run.requires_action", RUN.formatted("requires_action", REQUIRED_ACTION))))
+                .route("POST", "/threads/thread_1/runs/run_1/submit_tool_outputs", body -> Reply.events(FakeOpenAiServer.sse(
+                        "thread.run.in_progress", RUN.formatted("in_progress", ""),
+                        "thread.message.delta", "{\"id\":\"msg_1\",\"delta\":{\"content\":[{\"index\":0,\"type\":\"text\",\"text\":{\"value\":\"You hold \"}}]}}",
+                        "thread.message.delta", "{\"id\":\"msg_1\",\"delta\":{\"content\":[{\"index\":0,\"type\":\"text\",\"text\":{\"value\":\"0.5 BTC.\"}}]}}",
+                        "thread.message.completed", "{\"id\":\"msg_1\",\"role\":\"assistant\",\"content\":[{\"type\":\"text\",\"text\":{\"value\":\"You hold 0.5 BTC.\"}}]}",
+                        "thread.run.completed", RUN.formatted("completed", ""))));
+
+        TradeService tradeService = mock(TradeService.class);
+        when(tradeService.getBalance()).thenReturn(new Portfolio(Map.of(), 30000.0, List.of()));
+        ToolRegistry toolRegistry = new ToolRegistry(List.of(tradeService, new FunctionService(mock(MarketStatsEngine.class))));
+
+        aiService = new AIService();
+        ReflectionTestUtils.setField(aiService, "toolCallExecutor",
+                new ToolCallExecutor(new ToolDispatcher(toolRegistry), new SimpleMeterRegistry(), 4, 5_000));
+        ReflectionTestUtils.setField(aiService, "toolRegistry", toolRegistry);
+        ReflectionTestUtils.setField(aiService, "client", new OkHttpClient());
+        ReflectionTestUtils.setField(aiService, "apiKey", "test-key");
+        ReflectionTestUtils.setField(aiService, "assistantId", "asst_1");
+        ReflectionTestUtils.setField(aiService, "openAiBaseUrl", openAi.baseUrl());
+        ReflectionTestUtils.setField(aiService, "responseCache", new AssistantResponseCache(100, 60_000, 60_000, 0.005,
+                mock(PriceBook.class), new AssetUniverse(AssetUniverse.DEFAULT_ASSETS), new SimpleMeterRegistry()));
+
+        ConversationSessionManager sessions = new ConversationSessionManager(mock(MessageRepository.class), 16);
+        sessions.threadIdFor(AIService.DEFAULT_CONVERSATION, () -> "thread_1");
+        ReflectionTestUtils.setField(aiService, "conversationSessions", sessions);
+    }
+
+    @AfterEach
+    void tearDown() {
+        openAi.close();
+    }
+
+    @Test
+    void handlesToolCallsAndCompletionFromTheEventStreamWithoutPolling() {
+        long start = System.nanoTime();
+        String reply = aiService.processUserMessage("What is my balance?");
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals("You hold 0.5 BTC.", reply);
+        assertTrue(elapsedMillis < 2_000, "took " + elapsedMillis + " ms");
+
+        // Only the pre-run check lists runs; completion is never polled, the answer is never re-fetched
+        assertEquals(1, openAi.hits("GET", "/threads/thread_1/runs"));
+        assertEquals(0, openAi.hits("GET", "/threads/thread_1/messages"));
+        assertTrue(openAi.requestBodies().stream().anyMatch(body ->
+                body.contains("\"tool_call_id\":\"call_1\"") && body.contains("\"stream\":true")));
+        assertTrue(openAi.requestBodies().stream().anyMatch(body ->
+                body.startsWith("{\"assistant_id\":\"asst_1\"") && body.contains("\"name\":\"getBalance\"")));
+    }
+
+    @Test
+    void forwardsTextDeltasAsTheyArrive() {
+        List<String> deltas = new CopyOnWriteArrayList<>();
+
+        String reply = aiService.processUserMessage(AIService.DEFAULT_CONVERSATION, "What is my balance?", deltas::add);
+
+        assertEquals(List.of("You hold ", "0.5 BTC."), deltas);
+        assertEquals("You hold 0.5 BTC.", reply);
+    }
+
+    @Test
+    void doesNotShareRepliesThatReadTheAccount() {
+        // A market question, but the run looked at the balance
+        aiService.processUserMessage("What are the top movers today?");
+        aiService.processUserMessage("What are the top movers today?");
+
+        assertEquals(2, openAi.hits("POST", "/threads/thread_1/runs"));
+    }
+
+    @Test
+    void sharesRepliesThatUsedNoAccountToolAndKeepsThemInTheThread() {
+        openAi.route("POST", "/threads/thread_1/runs", body -> Reply.events(FakeOpenAiServer.sse(
+                "thread.run.created", RUN.formatted("queued", ""),
+                "thread.message.completed", "{\"id\":\"msg_1\",\"role\":\"assistant\",\"content\":[{\"type\":\"text\",\"text\":{\"value\":\"BTC leads.\"}}]}",
+                "thread.run.completed", RUN.formatted("completed", ""))));
+
+        assertEquals("BTC leads.", aiService.processUserMessage("What are the top movers today?"));
+        assertEquals("BTC leads.", aiService.processUserMessage("what are the top movers today"));
+
+        assertEquals(1, openAi.hits("POST", "/threads/thread_1/runs"));
+        // The cache hit still adds the question and its answer to the thread
+        assertEquals(3, openAi.hits("POST", "/threads/thread_1/messages"));
+        assertTrue(openAi.requestBodies().stream().anyMatch(body ->
+                body.contains("\"role\":\"assistant\"") && body.contains("BTC leads.")));
+    }
+
+    @Test
+    void doesNotCacheFailedRuns() {
+        openAi.route("POST", "/threads/thread_1/runs", body -> Reply.events(FakeOpenAiServer.sse(
+                "thread.run.created", RUN.formatted("queued", ""),
+                "thread.run.failed", RUN.formatted("failed", ""))));
+
+        assertTrue(aiService.processUserMessage("What are the top movers today?").startsWith("Error:"));
+        aiService.processUserMessage("What are the top movers today?");
+
+        assertEquals(2, openAi.hits("POST", "/threads/thread_1/runs"));
+    }
+}
@@ -0,0 +1,75 @@
+package com.investly.app.services;
+
+import com.investly.app.services.AssistantResponseCache.Category;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AssistantResponseCacheTest {
+
+    private final PriceBook priceBook = mock(PriceBook.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AssistantResponseCache cache = new AssistantResponseCache(100, 60_000, 3_600_000, 0.005,
+            priceBook, new AssetUniverse("BTC:Bitcoin,ETH:Ethereum"), registry);
+
+    @Test
+    void sharesAnswersAcrossPhrasingsOfTheSameQuestion() {
+        cache.put("Give me general investment advice on BTC", "Diversify.");
+
+        assertEquals(Optional.of("Diversify."), cache.get("Hey, can you give me general investment advice on Bitcoin?"));
+        assertEquals(Optional.of("Diversify."), cache.get("general INVESTMENT advice on btc please"));
+        assertEquals(Optional.empty(), cache.get("general investment advice on ETH"));
+
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "assistant.responses").tag("result", "miss")
+                .functionCounter().count());
+        assertEquals(2.0, registry.get("cache.gets").tag("cache", "assistant.responses").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void neverCachesAccountSpecificOrSideEffectingPrompts() {
+        for (String prompt : List.of("What is my balance?", "Buy 50 USDT of BTC", "Show my trade history",
+                "Should I sell ETH now?", "What is the market doing?")) {
+            cache.put(prompt, "answer");
+        }
+
+        assertEquals(Optional.empty(), cache.get("What is my balance?"));
+        assertEquals(Optional.empty(), cache.get("Buy 50 USDT of BTC"));
+        assertEquals(Optional.empty(), cache.classify("Cancel order 42"));
+        assertEquals(Optional.empty(), cache.classify("Should I sell ETH now?"));
+        assertEquals(Category.MARKET, cache.classify("What is the market doing?").orElseThrow().category());
+        assertEquals(2.0, registry.get("assistant.cache.bypassed").counter().count());
+    }
+
+    @Test
+    void dropsMarketAnswersWhenTheirPricesMove() {
+        when(priceBook.lastPrice("BTCUSDT")).thenReturn(60_000.0);
+        when(priceBook.lastPrice("ETHUSDT")).thenReturn(3_000.0);
+        cache.put("What are the top movers today?", "BTC leads.");
+        cache.put("What is the BTC price?", "60k.");
+
+        // ETH moves 1%: the top movers answer covered it, the BTC price answer did not
+        when(priceBook.lastPrice("ETHUSDT")).thenReturn(3_030.0);
+        assertEquals(Optional.empty(), cache.get("what are the top movers today"));
+        assertEquals(Optional.of("60k."), cache.get("What is the BTC price?"));
+
+        when(priceBook.lastPrice("BTCUSDT")).thenReturn(60_100.0);
+        assertEquals(Optional.of("60k."), cache.get("What is the BTC price?"));
+        when(priceBook.lastPrice("BTCUSDT")).thenReturn(61_000.0);
+        assertEquals(Optional.empty(), cache.get("What is the BTC price?"));
+        assertEquals(2.0, registry.get("assistant.cache.invalidated").counter().count());
+    }
+
+    @Test
+    void ignoresPromptsThatAreNeitherMarketNorAdvice() {
+        assertTrue(cache.classify("Tell me a joke").isEmpty());
+        assertEquals(Category.ADVICE, cache.classify("Explain dollar cost averaging").orElseThrow().category());
+    }
+}
@@ -0,0 +1,119 @@
+package com.investly.app.services;
+
+import com.investly.app.support.FakeBinanceServer;
+import com.investly.app.support.FakeBinanceServer.Reply;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinanceRequestSchedulerTest {
+
+    private static final long WEIGHT_LIMIT = 100;
+    private static final long WINDOW_MILLIS = 1_000;
+
+    private FakeBinanceServer server;
+    private final AtomicInteger rejected = new AtomicInteger();
+    private long windowStart;
+    private long windowUsed;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Fake exchange enforcing a 100 weight per second limit the same way Binance does
+        server = FakeBinanceServer.start()
+                .route("GET", "/api/v3/myTrades", query -> charge(20, "[]"))
+                .route("POST", "/api/v3/order", query -> charge(1, "{\"orderId\":1}"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private synchronized Reply charge(int weight, String body) {
+        long now = System.currentTimeMillis();
+        long start = now - now % WINDOW_MILLIS;
+        if (start != windowStart) {
+            windowStart = start;
+            windowUsed = 0;
+        }
+        if (windowUsed + weight > WEIGHT_LIMIT) {
+            rejected.incrementAndGet();
+            return new Reply(429, "{\"code\":-1003,\"msg\":\"Too many requests\"}", Map.of("Retry-After", "1"));
+        }
+        windowUsed += weight;
+        return new Reply(200, body, Map.of(BinanceRequestScheduler.USED_WEIGHT_HEADER, String.valueOf(windowUsed)));
+    }
+
+    @Test
+    void queuesBurstInsteadOfHittingLimitsAndLetsOrdersJumpTheQueue() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BinanceRequestScheduler scheduler = new BinanceRequestScheduler(new OkHttpClient(), WEIGHT_LIMIT, WINDOW_MILLIS,
+                100, 200_000, 20_000, registry);
+
+        ExecutorService callers = Executors.newFixedThreadPool(32);
+        ConcurrentLinkedQueue<String> completed = new ConcurrentLinkedQueue<>();
+        List<Future<Integer>> results = new ArrayList<>();
+
+        // Start just after a window boundary so the orders queue up while the first window is still full;
+        // started near the end of one, a second window of history reads would go before they arrive
+        TimeUnit.MILLISECONDS.sleep(WINDOW_MILLIS - System.currentTimeMillis() % WINDOW_MILLIS + 20);
+        for (int i = 0; i < 20; i++) {
+            results.add(callers.submit(() -> call(scheduler, BinanceRequestClass.HISTORY, 20,
+                    new Request.Builder().url(server.baseUrl() + "/api/v3/myTrades").get().build(), completed)));
+        }
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertTrue(scheduler.queueDepth() > 0);
+
+        for (int i = 0; i < 3; i++) {
+            results.add(callers.submit(() -> call(scheduler, BinanceRequestClass.ORDER, 1,
+                    new Request.Builder().url(server.baseUrl() + "/api/v3/order")
+                            .post(RequestBody.create(new byte[0])).build(), completed)));
+        }
+
+        for (Future<Integer> result : results) {
+            assertEquals(200, result.get(30, TimeUnit.SECONDS));
+        }
+        callers.shutdown();
+
+        assertEquals(0, rejected.get());
+        List<String> order = new ArrayList<>(completed);
+        assertTrue(order.lastIndexOf("ORDER") < 12, "orders should overtake queued history reads: " + order);
+        assertEquals(20, registry.get("binance.scheduler.throttle").tag("class", "HISTORY").timer().count());
+    }
+
+    @Test
+    void pausesAfterRetryAfterAndFailsCallersPastTheirDeadline() throws Exception {
+        server.route("GET", "/api/v3/account", query ->
+                new Reply(429, "{\"code\":-1003}", Map.of("Retry-After", "5")));
+        BinanceRequestScheduler scheduler = new BinanceRequestScheduler(new OkHttpClient(), 6_000, 60_000, 100,
+                200_000, 300, new SimpleMeterRegistry());
+        Request account = new Request.Builder().url(server.baseUrl() + "/api/v3/account").get().build();
+
+        try (Response response = scheduler.execute(BinanceRequestClass.ACCOUNT, 20, account)) {
+            assertEquals(429, response.code());
+        }
+        assertThrows(RateLimitTimeoutException.class, () -> scheduler.execute(BinanceRequestClass.ACCOUNT, 20, account));
+        assertEquals(1, server.hits("/api/v3/account"));
+    }
+
+    private static int call(BinanceRequestScheduler scheduler, BinanceRequestClass requestClass, int weight,
+                            Request request, ConcurrentLinkedQueue<String> completed) throws Exception {
+        try (Response response = scheduler.execute(requestClass, weight, request)) {
+            completed.add(requestClass.name());
+            return response.code();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.investly.app.services;
+
+import com.investly.app.dto.AccountBalance;
+import com.investly.app.dto.OrderResult;
+import com.investly.app.dto.SymbolFilters;
+import com.investly.app.support.BinanceFixtures;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BinanceResponseDecoderTest {
+
+    @Test
+    void decodesFiltersFromExchangeInfo() throws IOException {
+        Map<String, SymbolFilters> filters = BinanceResponseDecoder.exchangeInfo(
+                new StringReader(BinanceFixtures.read("exchangeInfo.json")));
+
+        assertEquals(3, filters.size());
+        assertEquals(new SymbolFilters("ETHUSDT", FixedPoint.parse("0.0001"), FixedPoint.parse("0.0001"),
+                FixedPoint.parse("0.01"), FixedPoint.parse("5")), filters.get("ETHUSDT"));
+    }
+
+    @Test
+    void keepsOnlyNonZeroBalances() throws IOException {
+        List<AccountBalance> balances = BinanceResponseDecoder.nonZeroBalances(
+                new StringReader(BinanceFixtures.read("account.json")));
+
+        assertEquals(List.of(
+                new AccountBalance("BTC", 0.5, 0),
+                new AccountBalance("ETH", 2.25, 0.1),
+                new AccountBalance("SOL", 14.2, 0),
+                new AccountBalance("DOGE", 1200, 0),
+                new AccountBalance("USDT", 152.3721, 20),
+                new AccountBalance("EUR", 0, 35)), balances);
+    }
+
+    @Test
+    void streamsTickerPricesToTheListener() throws IOException {
+        Map<String, Double> prices = new HashMap<>();
+
+        int count = BinanceResponseDecoder.tickerPrices(
+                new StringReader(BinanceFixtures.tickerPrices(2_000)), prices::put);
+
+        assertEquals(2_000, count);
+        assertEquals(1.0, prices.get("BTCUSDT"));
+        assertEquals(2_000, prices.size());
+    }
+
+    @Test
+    void decodesOrdersAndSkipsFills() throws IOException {
+        OrderResult order = BinanceResponseDecoder.order(new StringReader("{\"symbol\":\"BTCUSDT\",\"orderId\":28,"
+                + "\"orderListId\":-1,\"clientOrderId\":\"6gCrw2kRUAF9CvJDGP16IP\",\"transactTime\":1507725176595,"
+                + "\"price\":\"0.00000000\",\"origQty\":\"0.00100000\",\"executedQty\":\"0.00100000\","
+                + "\"cummulativeQuoteQty\":\"60.00000000\",\"status\":\"FILLED\",\"timeInForce\":\"GTC\","
+                + "\"type\":\"MARKET\",\"side\":\"BUY\",\"fills\":[{\"price\":\"60000.00\",\"qty\":\"0.001\","
+                + "\"commission\":\"0.000001\",\"commissionAsset\":\"BTC\",\"tradeId\":56}]}"));
+
+        assertEquals(new OrderResult("BTCUSDT", 28, "6gCrw2kRUAF9CvJDGP16IP", "BUY", "MARKET", "FILLED",
+                0.001, 0.001, 60.0, 1507725176595L), order);
+    }
+
+    @Test
+    void rejectsMalformedPayloads() {
+        assertThrows(IOException.class, () ->
+                BinanceResponseDecoder.exchangeInfo(new StringReader("{\"symbols\":[{\"filters\":[]}]}")));
+        assertThrows(IllegalStateException.class, () ->
+                BinanceResponseDecoder.tickerPrices(new StringReader("{\"code\":-1121}"), (symbol, price) -> { }));
+    }
+}
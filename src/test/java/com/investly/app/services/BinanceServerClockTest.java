@@ -0,0 +1,59 @@
+package com.investly.app.services;
+
+import com.investly.app.support.FakeBinanceServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinanceServerClockTest {
+
+    @Test
+    void estimatesOffsetFromSamplesWithoutCallingTheServerOnRead() throws Exception {
+        try (FakeBinanceServer server = FakeBinanceServer.start()) {
+            server.latency(20).route("GET", "/api/v3/time", query ->
+                    FakeBinanceServer.Reply.ok("{\"serverTime\":" + (System.currentTimeMillis() + 1_500) + "}"));
+
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            BinanceRequestScheduler scheduler = new BinanceRequestScheduler(new OkHttpClient(), 6_000, 60_000, 100,
+                    200_000, 10_000, registry);
+            BinanceServerClock clock = new BinanceServerClock(server.baseUrl(), scheduler, registry);
+            for (int i = 0; i < 4; i++) {
+                assertTrue(clock.sample());
+            }
+
+            int samples = server.hits("/api/v3/time");
+            long offset = clock.currentOffsetMillis();
+
+            // The fake server reads its clock after the simulated latency, so allow for half an RTT
+            assertTrue(Math.abs(offset - 1_500) < 50, "offset was " + offset);
+            assertEquals(samples, server.hits("/api/v3/time"));
+            assertEquals(offset, registry.get("binance.clock.offset").gauge().value(), 5);
+            assertTrue(registry.get("binance.clock.sample.age").gauge().value() >= 0);
+        }
+    }
+
+    @Test
+    void offsetGaugeDoesNotSampleBeforeTheFirstSample() throws Exception {
+        try (FakeBinanceServer server = FakeBinanceServer.withDefaultRoutes(1)) {
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            BinanceRequestScheduler scheduler = new BinanceRequestScheduler(new OkHttpClient(), 6_000, 60_000, 100,
+                    200_000, 10_000, registry);
+            new BinanceServerClock(server.baseUrl(), scheduler, registry);
+
+            assertTrue(Double.isNaN(registry.get("binance.clock.offset").gauge().value()));
+            assertEquals(0, server.hits("/api/v3/time"));
+        }
+    }
+
+    @Test
+    void capsTheDriftCorrectionAtAFewJitters() {
+        assertEquals(1_510, BinanceServerClock.extrapolate(1_500, 0.001, 20, 10_000));
+        // An hour without samples would otherwise add 3.6 seconds
+        assertEquals(1_560, BinanceServerClock.extrapolate(1_500, 0.001, 20, 3_600_000));
+        assertEquals(1_440, BinanceServerClock.extrapolate(1_500, -0.001, 20, 3_600_000));
+        assertEquals(1_503, BinanceServerClock.extrapolate(1_500, 0.001, 0, 3_600_000));
+    }
+}
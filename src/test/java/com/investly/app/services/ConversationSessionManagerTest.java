@@ -0,0 +1,120 @@
+package com.investly.app.services;
+
+import com.investly.app.dao.MessageEntity;
+import com.investly.app.dao.MessageRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConversationSessionManagerTest {
+
+    private static final long RUN_MILLIS = 200;
+    private static final int CONVERSATIONS = 8;
+
+    private final MessageRepository messageRepository = mock(MessageRepository.class);
+    private final ConversationSessionManager sessions = new ConversationSessionManager(messageRepository, 100);
+
+    @Test
+    void runsOfDifferentConversationsDoNotWaitOnEachOther() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(CONVERSATIONS);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < CONVERSATIONS; i++) {
+                String key = "conversation-" + i;
+                results.add(pool.submit(() -> {
+                    String threadId = sessions.threadIdFor(key, () -> "thread_" + created.incrementAndGet());
+                    return sessions.withThreadLock(threadId, () -> {
+                        sleep(RUN_MILLIS);
+                        return threadId;
+                    });
+                }));
+            }
+
+            Set<String> threadIds = ConcurrentHashMap.newKeySet();
+            for (Future<String> result : results) {
+                threadIds.add(result.get(5, TimeUnit.SECONDS));
+            }
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            assertEquals(CONVERSATIONS, threadIds.size());
+            assertTrue(elapsedMillis < RUN_MILLIS * 3, "took " + elapsedMillis + " ms");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentFirstMessagesShareOneThreadAndNeverOverlapRuns() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        CountDownLatch ready = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(pool.submit(() -> {
+                    ready.await();
+                    String threadId = sessions.threadIdFor("tab-1", () -> {
+                        sleep(50);
+                        return "thread_" + created.incrementAndGet();
+                    });
+                    return sessions.withThreadLock(threadId, () -> {
+                        maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                        sleep(20);
+                        active.decrementAndGet();
+                        return threadId;
+                    });
+                }));
+            }
+            ready.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("thread_1", result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, created.get());
+            assertEquals(1, maxActive.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void resumesThePersistedThreadOfAConversation() throws Exception {
+        MessageEntity lastMessage = new MessageEntity();
+        lastMessage.setThreadId("thread_saved");
+        when(messageRepository.findFirstByConversationKeyAndThreadIdIsNotNullOrderByTimestampDesc("tab-2"))
+                .thenReturn(Optional.of(lastMessage));
+
+        String threadId = sessions.threadIdFor("tab-2", () -> {
+            throw new AssertionError("thread should not be created");
+        });
+
+        assertEquals("thread_saved", threadId);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
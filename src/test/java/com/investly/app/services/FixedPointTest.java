@@ -0,0 +1,70 @@
+package com.investly.app.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FixedPointTest {
+
+    @Test
+    void parsesExchangeDecimalsExactly() {
+        assertEquals(1_000L, FixedPoint.parse("0.00001000"));
+        assertEquals(6_000_012_345_678L, FixedPoint.parse("60000.12345678"));
+        assertEquals(500_000_000L, FixedPoint.parse("5"));
+        assertEquals(-150_000_000L, FixedPoint.parse("-1.5"));
+        assertThrows(NumberFormatException.class, () -> FixedPoint.parse("1.0E-4"));
+        assertThrows(NumberFormatException.class, () -> FixedPoint.parse("0.000000001"));
+        assertThrows(NumberFormatException.class, () -> FixedPoint.parse("."));
+    }
+
+    @Test
+    void convertsLedgerDecimalsWithoutRounding() {
+        // A double column would have stored this sum as 0.30000000000000004
+        assertEquals(FixedPoint.parse("0.30000000"), FixedPoint.of(new BigDecimal("0.1").add(new BigDecimal("0.2"))));
+        assertEquals(6_000_012_345_678L, FixedPoint.of(new BigDecimal("60000.12345678")));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.of(new BigDecimal("0.000000001")));
+    }
+
+    @Test
+    void roundsToTheStepAndWritesItsPrecision() {
+        long step = FixedPoint.parse("0.00001000");
+        long quantity = FixedPoint.floorToStep(FixedPoint.divide(FixedPoint.of(6.0), FixedPoint.of(60_000.0)), step);
+
+        // Double arithmetic renders this quantity as 1.0E-4
+        assertEquals(5, FixedPoint.decimals(step));
+        assertEquals("0.00010", FixedPoint.append(new StringBuilder(), quantity, 5).toString());
+        assertEquals("12", FixedPoint.append(new StringBuilder(), FixedPoint.parse("12.7"), 0).toString());
+        assertEquals(0, FixedPoint.decimals(FixedPoint.parse("1.00000000")));
+        assertEquals(8, FixedPoint.decimals(1));
+        assertEquals("-0.0100", FixedPoint.append(new StringBuilder(), FixedPoint.parse("-0.01"), 4).toString());
+    }
+
+    @Test
+    void keepsFullPrecisionWhereTheProductOverflowsALong() {
+        // 150 BTC at 60000.12345678 is 9e6 USDT, but the scaled product is about 9e22
+        assertEquals(900_001_851_851_700L,
+                FixedPoint.multiply(FixedPoint.of(150.0), FixedPoint.of(60_000.12345678)));
+        assertEquals(-FixedPoint.of(7.5), FixedPoint.mulDiv(FixedPoint.of(-15.0), FixedPoint.of(60_000.0),
+                FixedPoint.of(120_000.0)));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.multiply(Long.MAX_VALUE, Long.MAX_VALUE));
+
+        Random random = new Random(17);
+        for (int i = 0; i < 10_000; i++) {
+            long a = random.nextLong() >>> random.nextInt(64);
+            long b = random.nextLong() >>> random.nextInt(64);
+            long c = Math.max(1, random.nextLong() >>> random.nextInt(64));
+            BigInteger expected = BigInteger.valueOf(a).multiply(BigInteger.valueOf(b)).divide(BigInteger.valueOf(c));
+            if (expected.bitLength() < 64) {
+                assertEquals(expected.longValueExact(), FixedPoint.mulDiv(a, b, c), a + " * " + b + " / " + c);
+            } else {
+                assertThrows(ArithmeticException.class, () -> FixedPoint.mulDiv(a, b, c));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,182 @@
+package com.investly.app.services;
+
+import com.investly.app.dto.CandleSeries;
+import com.investly.app.services.KlineStore.Interval;
+import com.investly.app.support.FakeBinanceServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KlineStoreTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long START = TimeUnit.DAYS.toMillis(19_700);
+
+    private FakeBinanceServer server;
+    private BinanceRequestScheduler scheduler;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = FakeBinanceServer.withDefaultRoutes(3);
+        scheduler = new BinanceRequestScheduler(new OkHttpClient(), 6_000, 60_000, 100, 200_000, 10_000,
+                new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void fetchesOnlyTheCandlesItDoesNotHold() {
+        KlineStore store = store(100_000, 10_000, 0, null);
+        long now = START + 3_000 * MINUTE;
+
+        // 2500 candles take three pages
+        CandleSeries first = store.range("BTCUSDT", Interval.M1, START, START + 2_499 * MINUTE, 0, now);
+        assertEquals(2_500, first.size());
+        assertEquals(START, first.openTime()[0]);
+        assertEquals(100 + (START / MINUTE + 2_499) % 100, first.close()[2_499]);
+        assertEquals(3, server.hits("/api/v3/klines"));
+
+        // Inside the fetched range, then one page on each side
+        assertEquals(100, store.range("BTCUSDT", Interval.M1, START + 100 * MINUTE, START + 199 * MINUTE, 0, now).size());
+        assertEquals(3, server.hits("/api/v3/klines"));
+        CandleSeries wider = store.range("BTCUSDT", Interval.M1, START - 10 * MINUTE, START + 2_509 * MINUTE, 0, now);
+        assertEquals(2_520, wider.size());
+        assertEquals(5, server.hits("/api/v3/klines"));
+        for (int i = 1; i < wider.size(); i++) {
+            assertEquals(MINUTE, wider.openTime()[i] - wider.openTime()[i - 1]);
+        }
+        assertEquals(2_520, store.size());
+    }
+
+    @Test
+    void refetchesTheLatestCandleAtMostOncePerRefreshInterval() {
+        KlineStore store = store(100_000, 10_000, 15_000, null);
+        long now = START + 10 * MINUTE + 5_000;
+
+        assertEquals(11, store.range("ETHUSDT", Interval.M1, START, Long.MAX_VALUE, 0, now).size());
+        assertEquals(11, store.range("ETHUSDT", Interval.M1, START, Long.MAX_VALUE, 0, now + 10_000).size());
+        assertEquals(1, server.hits("/api/v3/klines"));
+
+        // A minute later the tail fetch starts at the previously open candle
+        assertEquals(12, store.range("ETHUSDT", Interval.M1, START, Long.MAX_VALUE, 0, now + MINUTE).size());
+        assertEquals(2, server.hits("/api/v3/klines"));
+    }
+
+    @Test
+    void extendsTheRangeWithinTheRefreshInterval() {
+        KlineStore store = store(100_000, 10_000, 15_000, null);
+        long now = START + 60 * MINUTE;
+
+        assertEquals(10, store.range("BTCUSDT", Interval.M1, START, START + 9 * MINUTE, 0, now).size());
+        // Newer candles than the ones held are fetched even though the tail was refreshed a moment ago
+        CandleSeries longer = store.range("BTCUSDT", Interval.M1, START, START + 19 * MINUTE, 0, now + 1_000);
+        assertEquals(20, longer.size());
+        assertEquals(START + 19 * MINUTE, longer.openTime()[19]);
+        CandleSeries longest = store.range("BTCUSDT", Interval.M1, START, START + 29 * MINUTE, 0, now + 2_000);
+        assertEquals(30, longest.size());
+        assertEquals(START + 29 * MINUTE, longest.openTime()[29]);
+        assertEquals(3, server.hits("/api/v3/klines"));
+    }
+
+    @Test
+    void downsamplesToThePointBudget() {
+        KlineStore store = store(100_000, 10_000, 0, null);
+
+        CandleSeries candles = store.range("BTCUSDT", Interval.M1, START, START + 9 * MINUTE, 4, START + MINUTE * 60);
+
+        // Groups of three: 0-2, 3-5, 6-8, 9
+        assertArrayEquals(new long[]{START, START + 3 * MINUTE, START + 6 * MINUTE, START + 9 * MINUTE}, candles.openTime());
+        double base = 100 + START / MINUTE % 100;
+        assertEquals(base - 1, candles.open()[0]);
+        assertEquals(base + 2 + 2, candles.high()[0]);
+        assertEquals(base - 2, candles.low()[0]);
+        assertEquals(base + 2, candles.close()[0]);
+        assertEquals(3.0, candles.volume()[0]);
+        assertEquals(1.0, candles.volume()[3]);
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedSeries() {
+        KlineStore store = store(250, 10_000, 0, null);
+        long now = START + 1_000 * MINUTE;
+
+        store.range("BTCUSDT", Interval.M1, START, START + 99 * MINUTE, 0, now);
+        store.range("ETHUSDT", Interval.M1, START, START + 99 * MINUTE, 0, now);
+        store.range("BTCUSDT", Interval.M1, START, START + 9 * MINUTE, 0, now); // BTC is now the most recent
+        store.range("SOLUSDT", Interval.M1, START, START + 99 * MINUTE, 0, now);
+        assertEquals(200, store.size());
+        assertEquals(3, server.hits("/api/v3/klines"));
+
+        store.range("BTCUSDT", Interval.M1, START, START + 99 * MINUTE, 0, now);
+        assertEquals(3, server.hits("/api/v3/klines"));
+        store.range("ETHUSDT", Interval.M1, START, START + 99 * MINUTE, 0, now);
+        assertEquals(4, server.hits("/api/v3/klines"));
+    }
+
+    @Test
+    void boundsTheSpanOfASingleSeries() {
+        KlineStore store = store(100_000, 500, 0, null);
+        long now = START + 10_000 * MINUTE;
+
+        assertEquals(400, store.range("BTCUSDT", Interval.M1, START, START + 399 * MINUTE, 0, now).size());
+        // Reaching further than the bound from the held candles starts the series over
+        CandleSeries later = store.range("BTCUSDT", Interval.M1, START + 1_000 * MINUTE, START + 1_399 * MINUTE, 0, now);
+        assertEquals(400, later.size());
+        assertEquals(START + 1_000 * MINUTE, later.openTime()[0]);
+        assertEquals(400, store.size());
+    }
+
+    @Test
+    void servesRangesLongerThanASeriesAtALongerInterval() {
+        KlineStore store = store(100_000, 500, 0, null);
+        long now = START + 10_000 * MINUTE;
+
+        // 10,000 minutes do not fit in 500 candles until the 30 minute interval
+        CandleSeries candles = store.range("BTCUSDT", Interval.M1, START, now, 0, now);
+        assertEquals("30m", candles.interval());
+        assertEquals(START, candles.openTime()[0]);
+        assertEquals(334, candles.size());
+
+        assertEquals(Interval.M1, Interval.M1.fitting(499 * MINUTE, 500));
+        assertEquals(Interval.W1, Interval.M1.fitting(Long.MAX_VALUE, 500));
+    }
+
+    @Test
+    void persistsToASnapshotFile(@TempDir Path directory) {
+        Path snapshot = directory.resolve("klines.bin");
+        KlineStore store = store(100_000, 10_000, 60_000, snapshot.toString());
+        long now = START + 300 * MINUTE;
+        CandleSeries candles = store.range("BTCUSDT", Interval.M1, START, START + 199 * MINUTE, 0, now);
+        store.range("ETHUSDT", Interval.H1, START, START + 3 * 60 * MINUTE, 0, now);
+        store.stop();
+
+        server.close();
+        KlineStore restarted = store(100_000, 10_000, 60_000, snapshot.toString());
+        restarted.loadSnapshot();
+        assertEquals(204, restarted.size());
+        CandleSeries reloaded = restarted.range("BTCUSDT", Interval.M1, START, START + 199 * MINUTE, 0, now);
+        assertArrayEquals(candles.openTime(), reloaded.openTime());
+        assertArrayEquals(candles.close(), reloaded.close());
+        // Nothing outside the snapshot can be fetched with the exchange gone
+        assertThrows(TradeException.class,
+                () -> restarted.range("BTCUSDT", Interval.M1, START - MINUTE, START, 0, now));
+    }
+
+    private KlineStore store(long maxCandles, int maxCandlesPerSeries, long refreshMillis, String snapshotPath) {
+        return new KlineStore(server.baseUrl(), maxCandles, maxCandlesPerSeries, refreshMillis,
+                snapshotPath == null ? "" : snapshotPath, scheduler);
+    }
+}
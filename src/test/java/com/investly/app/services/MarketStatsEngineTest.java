@@ -0,0 +1,109 @@
+package com.investly.app.services;
+
+import com.investly.app.dto.TopMovers;
+import com.investly.app.dto.TopMovers.Mover;
+import com.investly.app.services.MarketStatsEngine.Timeframe;
+import com.investly.app.support.FakeBinanceServer;
+import com.investly.app.support.FakeBinanceServer.Reply;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class MarketStatsEngineTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    // Aligned to a whole day so every timeframe's buckets start together
+    private static final long START = TimeUnit.DAYS.toMillis(19_700);
+
+    private final MarketStatsEngine engine = new MarketStatsEngine("http://127.0.0.1:1", 3, null, mock(PriceBook.class));
+
+    @Test
+    void measuresChangeOverTheRollingHour() {
+        for (String symbol : List.of("BTCUSDT", "ETHUSDT", "SOLUSDT", "DOGEUSDT")) {
+            engine.onPrice(symbol, 100.0, START);
+        }
+        engine.onPrice("ETHBTC", 0.05, START); // Not a USDT pair
+
+        engine.onPrice("BTCUSDT", 110.0, START + 30 * MINUTE);
+        engine.onPrice("ETHUSDT", 95.0, START + 30 * MINUTE);
+        TopMovers halfHour = engine.topMovers(Timeframe.H1, 5, START + 30 * MINUTE);
+        assertEquals(List.of(new Mover("BTCUSDT", 110.0, 10.0)), halfHour.gainers());
+        assertEquals(List.of(new Mover("ETHUSDT", 95.0, -5.0)), halfHour.losers());
+        assertEquals(4, halfHour.symbolsTracked());
+        assertFalse(halfHour.windowComplete());
+
+        engine.onPrice("SOLUSDT", 120.0, START + 61 * MINUTE);
+        TopMovers hour = engine.topMovers(Timeframe.H1, 5, START + 61 * MINUTE);
+        assertEquals(List.of("SOLUSDT", "BTCUSDT"), hour.gainers().stream().map(Mover::symbol).toList());
+        assertTrue(hour.windowComplete());
+
+        // By now the BTC and ETH moves are more than an hour old
+        TopMovers later = engine.topMovers(Timeframe.H1, 5, START + 95 * MINUTE);
+        assertEquals(List.of(new Mover("SOLUSDT", 120.0, 20.0)), later.gainers());
+        assertEquals(List.of(), later.losers());
+        // The 7 day window still covers everything since the start
+        assertEquals(List.of("SOLUSDT", "BTCUSDT"), engine.topMovers(Timeframe.D7, 5, START + 95 * MINUTE)
+                .gainers().stream().map(Mover::symbol).toList());
+    }
+
+    @Test
+    void keepsOnlyTheLargestMovesUpToTheLimit() {
+        for (int i = 1; i <= 20; i++) {
+            engine.onPrice("S" + i + "USDT", 100.0, START);
+            engine.onPrice("S" + i + "USDT", 100.0 + (i % 2 == 0 ? i : -i), START + MINUTE);
+        }
+
+        TopMovers movers = engine.topMovers(Timeframe.H1, 2, START + MINUTE);
+        assertEquals(List.of("S20USDT", "S18USDT"), movers.gainers().stream().map(Mover::symbol).toList());
+        assertEquals(List.of("S19USDT", "S17USDT"), movers.losers().stream().map(Mover::symbol).toList());
+        // The engine ranks at most 3 per side
+        assertEquals(3, engine.topMovers(Timeframe.H1, 10, START + MINUTE).gainers().size());
+    }
+
+    @Test
+    void growsPastTheInitialCapacity() {
+        for (int i = 0; i < 1_000; i++) {
+            engine.onPrice("S" + i + "USDT", 100.0, START);
+        }
+        engine.onPrice("S999USDT", 150.0, START + MINUTE);
+
+        TopMovers movers = engine.topMovers(Timeframe.H1, 5, START + MINUTE);
+        assertEquals(List.of(new Mover("S999USDT", 150.0, 50.0)), movers.gainers());
+        assertEquals(1_000, movers.symbolsTracked());
+    }
+
+    @Test
+    void rejectsAnEmptyRanking() {
+        assertThrows(IllegalStateException.class,
+                () -> new MarketStatsEngine("http://127.0.0.1:1", 0, null, mock(PriceBook.class)));
+    }
+
+    @Test
+    void usesTheExchangeDailyOpenFromTheTickerSnapshot() throws Exception {
+        try (FakeBinanceServer server = FakeBinanceServer.start().route("GET", "/api/v3/ticker/24hr", query -> Reply.ok(
+                "[{\"symbol\":\"XRPUSDT\",\"priceChange\":\"0.1\",\"openPrice\":\"0.50000000\",\"lastPrice\":\"0.60000000\"},"
+                        + "{\"symbol\":\"ADAUSDT\",\"openPrice\":\"0.40000000\",\"lastPrice\":\"0.30000000\"},"
+                        + "{\"symbol\":\"XRPBTC\",\"openPrice\":\"0.00001000\",\"lastPrice\":\"0.00002000\"}]"))) {
+            BinanceRequestScheduler scheduler = new BinanceRequestScheduler(new OkHttpClient(), 6_000, 60_000, 100,
+                    200_000, 10_000, new SimpleMeterRegistry());
+            MarketStatsEngine snapshotEngine = new MarketStatsEngine(server.baseUrl(), 5, scheduler, mock(PriceBook.class));
+            snapshotEngine.refreshSnapshot();
+
+            TopMovers daily = snapshotEngine.topMovers(Timeframe.H24, 5);
+            assertEquals(List.of(new Mover("XRPUSDT", 0.6, 20.0)), daily.gainers());
+            assertEquals(List.of(new Mover("ADAUSDT", 0.3, -25.0)), daily.losers());
+            assertTrue(daily.windowComplete());
+            // Shorter windows only start counting once prices are first seen
+            assertEquals(List.of(), snapshotEngine.topMovers(Timeframe.H1, 5).gainers());
+        }
+    }
+}
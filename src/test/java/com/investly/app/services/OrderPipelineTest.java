@@ -0,0 +1,148 @@
+package com.investly.app.services;
+
+import com.investly.app.dto.OrderEvent;
+import com.investly.app.dto.OrderResult;
+import com.investly.app.support.FakeBinanceServer;
+import com.investly.app.support.FakeBinanceServer.Reply;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class OrderPipelineTest {
+
+    private static final Pattern CLIENT_ORDER_ID = Pattern.compile("newClientOrderId=([^&]+)");
+    private static final String FILLED = "{\"symbol\":\"BTCUSDT\",\"orderId\":9,\"clientOrderId\":\"%s\","
+            + "\"status\":\"FILLED\",\"executedQty\":\"0.00100000\"}";
+
+    private final List<String> orderQueries = new CopyOnWriteArrayList<>();
+    private final List<OrderEvent> events = new CopyOnWriteArrayList<>();
+
+    private FakeBinanceServer server;
+    private OrderPipeline pipeline;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = FakeBinanceServer.withDefaultRoutes(3);
+        BinanceRequestScheduler scheduler = new BinanceRequestScheduler(new OkHttpClient(), 6_000, 60_000, 100,
+                200_000, 10_000, new SimpleMeterRegistry());
+        SymbolFilterCache symbolFilterCache = new SymbolFilterCache(server.baseUrl(), TimeUnit.HOURS.toMillis(1), scheduler);
+        symbolFilterCache.refresh();
+
+        SimpMessageSendingOperations messagingTemplate = mock(SimpMessageSendingOperations.class);
+        doAnswer(invocation -> events.add(invocation.getArgument(1)))
+                .when(messagingTemplate).convertAndSend(eq(OrderPipeline.ORDER_TOPIC), any(Object.class));
+
+        pipeline = new OrderPipeline(server.baseUrl(), "test-key", 3, 10, 4, scheduler, new RequestSigner("test-secret"),
+                new BinanceServerClock(server.baseUrl(), scheduler, new SimpleMeterRegistry()),
+                new PriceBook(server.baseUrl(), TimeUnit.MINUTES.toMillis(5), scheduler, symbolFilterCache, null),
+                symbolFilterCache, messagingTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+        server.close();
+    }
+
+    @Test
+    void retriesAnUnknownOutcomeWithTheSameClientOrderId() {
+        AtomicInteger attempts = new AtomicInteger();
+        server.route("POST", "/api/v3/order", query -> {
+            orderQueries.add(query);
+            return attempts.incrementAndGet() == 1
+                    ? new Reply(503, "{\"code\":-1007,\"msg\":\"Timeout waiting for response from backend server.\"}", Map.of())
+                    : Reply.ok(String.format(FILLED, clientOrderId(query)));
+        });
+
+        // 60 EUR at 1.08 USDT is 64.8 USDT, 0.00108 BTC at 60000
+        OrderResult order = pipeline.submit("BTCUSDT", "buy", 60, "EUR", "chat-42").join();
+
+        assertEquals(9, order.orderId());
+        assertEquals(2, orderQueries.size());
+        assertEquals(clientOrderId(orderQueries.get(0)), clientOrderId(orderQueries.get(1)));
+        assertEquals(clientOrderId(orderQueries.get(0)), order.clientOrderId());
+        assertEquals("symbol=BTCUSDT&side=BUY&type=MARKET&quantity=0.00108&newClientOrderId=" + order.clientOrderId(),
+                orderQueries.get(0).substring(0, orderQueries.get(0).indexOf("&newOrderRespType")));
+        assertEquals(List.of("SUBMITTED", "RETRYING", "FILLED"), events.stream().map(OrderEvent::status).toList());
+        // The keyed order was looked up before each send
+        assertEquals(2 + 2, server.hits("/api/v3/order"));
+    }
+
+    @Test
+    void looksUpAnUnclearOrderInsteadOfSendingItAgain() {
+        // The first send filled, but its answer was lost
+        server.route("POST", "/api/v3/order", query -> new Reply(504, "", Map.of()))
+                .route("GET", "/api/v3/order", query -> Reply.ok(String.format(FILLED,
+                        query.replaceAll(".*origClientOrderId=([^&]+).*", "$1"))));
+
+        OrderResult order = pipeline.submit("BTCUSDT", "BUY", 60, "USDT", null).join();
+
+        assertEquals(9, order.orderId());
+        // One POST and the GET that found it
+        assertEquals(2, server.hits("/api/v3/order"));
+    }
+
+    @Test
+    void looksUpTheOrderWhenTheFirstSendIsReportedAsDuplicate() {
+        server.route("POST", "/api/v3/order", query ->
+                        new Reply(400, "{\"code\":-2010,\"msg\":\"Duplicate order sent.\"}", Map.of()))
+                .route("GET", "/api/v3/order", query -> Reply.ok(String.format(FILLED,
+                        query.replaceAll(".*origClientOrderId=([^&]+).*", "$1"))));
+
+        assertEquals(9, pipeline.submit("BTCUSDT", "BUY", 60, "USDT", null).join().orderId());
+        assertEquals(2, server.hits("/api/v3/order"));
+    }
+
+    @Test
+    void failsRejectedOrdersWithoutRetryingAndStopsAfterTheLastAttempt() {
+        server.route("POST", "/api/v3/order", query ->
+                new Reply(400, "{\"code\":-2010,\"msg\":\"Account has insufficient balance.\"}", Map.of()));
+        CompletionException rejected = assertThrows(CompletionException.class,
+                () -> pipeline.submit("BTCUSDT", "BUY", 60, "USDT", null).join());
+        assertInstanceOf(TradeException.class, rejected.getCause());
+        assertEquals(1, server.hits("/api/v3/order"));
+
+        server.route("POST", "/api/v3/order", query -> new Reply(503, "", Map.of()));
+        assertThrows(CompletionException.class, () -> pipeline.submit("BTCUSDT", "BUY", 60, "USDT", null).join());
+        // Three POSTs, with a lookup before each resend
+        assertEquals(1 + 3 + 2, server.hits("/api/v3/order"));
+        assertEquals("FAILED", events.get(events.size() - 1).status());
+    }
+
+    @Test
+    void derivesClientOrderIdsFromTheRequestAndKey() {
+        String id = OrderPipeline.clientOrderId("BTCUSDT", "BUY", 6_000_000_000L, "EUR", "chat-42");
+        assertEquals(id, OrderPipeline.clientOrderId("BTCUSDT", "BUY", 6_000_000_000L, "EUR", "chat-42"));
+        assertNotEquals(id, OrderPipeline.clientOrderId("BTCUSDT", "BUY", 6_000_000_000L, "EUR", "chat-43"));
+        assertNotEquals(id, OrderPipeline.clientOrderId("BTCUSDT", "BUY", 6_000_000_000L, "USDT", "chat-42"));
+        assertEquals(36, id.length());
+        assertTrue(id.matches("[.A-Z:/a-z0-9_-]{1,36}"));
+    }
+
+    private static String clientOrderId(String query) {
+        Matcher matcher = CLIENT_ORDER_ID.matcher(query);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+}
@@ -0,0 +1,140 @@
+package com.investly.app.services;
+
+import com.investly.app.dao.PortfolioSnapshotEntity;
+import com.investly.app.dao.PortfolioSnapshotEntity.Resolution;
+import com.investly.app.dao.PortfolioSnapshotRepository;
+import com.investly.app.dto.Balance;
+import com.investly.app.dto.Portfolio;
+import com.investly.app.dto.PortfolioHistory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Rollups run in their own transactions
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PortfolioHistoryServiceTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    private static final long START = 19_700 * DAY;
+
+    @Autowired
+    private PortfolioSnapshotRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private PortfolioHistoryService history;
+
+    @BeforeEach
+    void setUp() {
+        history = new PortfolioHistoryService(60_000, 2 * DAY, 90 * DAY, repository, transactionManager);
+
+        history.record(portfolio(1_000.0, 500.0), START);
+        history.record(portfolio(1_100.0, 500.0), START + 30 * MINUTE);
+        history.record(portfolio(9_999.0, 500.0), START + 30 * MINUTE + 10_000); // Same minute, not stored
+        history.record(portfolio(1_200.0, 600.0), START + 59 * MINUTE);
+        history.record(portfolio(1_300.0, null), START + 61 * MINUTE); // ETH sold
+        history.record(portfolio(1_500.0, null), START + DAY + 5 * MINUTE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void servesShortRangesFromMinuteSnapshots() {
+        PortfolioHistory recent = history.history(START, START + 2 * HOUR, START + 3 * HOUR);
+
+        assertEquals("MINUTE", recent.resolution());
+        assertArrayEquals(new long[]{START, START + 30 * MINUTE, START + 59 * MINUTE, START + 61 * MINUTE}, recent.bucketTime());
+        assertArrayEquals(new double[]{1_500.0, 1_600.0, 1_800.0, 1_300.0}, recent.totalValueUsd());
+        assertArrayEquals(new double[]{500.0, 500.0, 600.0, 0.0}, recent.assetValuesUsd().get("ETH"));
+        assertEquals(-200.0, recent.changeUsd());
+        assertEquals(-13.33, recent.changePercent());
+        // One row per held asset plus the total, for five distinct minutes
+        assertEquals(13, repository.count());
+    }
+
+    @Test
+    void keepsTheStoredMinuteAfterARestart() {
+        PortfolioHistoryService restarted = new PortfolioHistoryService(60_000, 2 * DAY, 90 * DAY, repository,
+                transactionManager);
+
+        // Same minute as the last snapshot before the restart; inserting it again would violate the unique key
+        restarted.record(portfolio(9_999.0, null), START + DAY + 5 * MINUTE + 30_000);
+        restarted.record(portfolio(1_600.0, null), START + DAY + 6 * MINUTE);
+
+        assertEquals(List.of(1_500.0), values(Resolution.MINUTE, START + DAY + 5 * MINUTE));
+        assertEquals(List.of(1_600.0), values(Resolution.MINUTE, START + DAY + 6 * MINUTE));
+    }
+
+    @Test
+    void rollsMinutesUpToHoursAndDays() {
+        history.rollUp(START + DAY + 10 * MINUTE);
+
+        // The last snapshot of each hour and day stands for it
+        PortfolioHistory week = history.history(START, START + 2 * DAY, START + DAY + 10 * MINUTE);
+        assertEquals("HOUR", week.resolution());
+        assertArrayEquals(new long[]{START, START + HOUR, START + DAY}, week.bucketTime());
+        assertArrayEquals(new double[]{1_800.0, 1_300.0, 1_500.0}, week.totalValueUsd());
+        assertArrayEquals(new double[]{600.0, 0.0, 0.0}, week.assetValuesUsd().get("ETH"));
+
+        PortfolioHistory quarter = history.history(START - 60 * DAY, START + 2 * DAY, START + DAY + 10 * MINUTE);
+        assertEquals("DAY", quarter.resolution());
+        assertArrayEquals(new long[]{START, START + DAY}, quarter.bucketTime());
+        assertArrayEquals(new double[]{1_300.0, 1_500.0}, quarter.totalValueUsd());
+        assertEquals(15.38, quarter.changePercent());
+    }
+
+    @Test
+    void resumesFromTheLastBucketAndDropsExpiredRows() {
+        history.rollUp(START + DAY + 10 * MINUTE);
+        history.record(portfolio(1_700.0, null), START + DAY + 20 * MINUTE);
+        history.rollUp(START + 3 * DAY);
+
+        // The still open hour and day were rebuilt, not duplicated
+        assertEquals(List.of(1_700.0), values(Resolution.HOUR, START + DAY));
+        assertEquals(List.of(1_700.0), values(Resolution.DAY, START + DAY));
+        // Minutes older than two days are gone (only the two snapshots of the second day are left), hours
+        // and days stay
+        assertEquals(List.of(START + DAY + 5 * MINUTE, START + DAY + 20 * MINUTE),
+                repository.findByResolutionAndBucketTimeGreaterThanEqualOrderByBucketTimeAsc(Resolution.MINUTE, 0)
+                        .stream().map(PortfolioSnapshotEntity::getBucketTime).distinct().toList());
+        assertEquals(3, history.history(START, START + 2 * DAY, START + 3 * DAY).size());
+    }
+
+    // Total values of one bucket
+    private List<Double> values(Resolution resolution, long bucketTime) {
+        return repository.findByResolutionAndBucketTimeBetweenOrderByBucketTimeAsc(resolution, bucketTime, bucketTime)
+                .stream()
+                .filter(row -> PortfolioSnapshotEntity.TOTAL_ASSET.equals(row.getAsset()))
+                .map(PortfolioSnapshotEntity::getUsdValue)
+                .toList();
+    }
+
+    private static Portfolio portfolio(double btcValue, Double ethValue) {
+        Map<String, Balance> balances = new LinkedHashMap<>();
+        balances.put("BTC", new Balance("Bitcoin", btcValue / 60_000, btcValue));
+        if (ethValue != null) {
+            balances.put("ETH", new Balance("Ethereum", ethValue / 3_000, ethValue));
+        }
+        return new Portfolio(balances, btcValue + (ethValue != null ? ethValue : 0), List.of());
+    }
+}
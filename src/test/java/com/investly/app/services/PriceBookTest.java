@@ -0,0 +1,142 @@
+package com.investly.app.services;
+
+import com.investly.app.support.FakeBinanceServer;
+import com.investly.app.support.FakeBinanceServer.Reply;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriceBookTest {
+
+    /**
+     * Stand-in for the Binance ticker stream that the test pushes prices through.
+     */
+    static class LocalPriceFeed implements PriceStream {
+        private PriceListener listener;
+
+        @Override
+        public void start(PriceListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void stop() {
+            listener = null;
+        }
+
+        void publish(String symbol, double price) {
+            listener.onPrice(symbol, price);
+        }
+    }
+
+    private FakeBinanceServer server;
+    private LocalPriceFeed feed;
+    private SymbolFilterCache symbolFilterCache;
+    private PriceBook priceBook;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = FakeBinanceServer.withDefaultRoutes(3);
+        feed = new LocalPriceFeed();
+        BinanceRequestScheduler scheduler = new BinanceRequestScheduler(new OkHttpClient(), 6_000, 60_000, 100,
+                200_000, 10_000, new SimpleMeterRegistry());
+        symbolFilterCache = new SymbolFilterCache(server.baseUrl(), TimeUnit.HOURS.toMillis(1), scheduler);
+        priceBook = new PriceBook(server.baseUrl(), 200, scheduler, symbolFilterCache, feed);
+        priceBook.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        priceBook.stop();
+        server.close();
+    }
+
+    @Test
+    void streamedPricesAreServedWithoutRestCalls() {
+        feed.publish("BTCUSDT", 61_000.5);
+        feed.publish("BTCUSDT", 61_250.0);
+
+        assertEquals(61_250.0, priceBook.getPrice("BTCUSDT"));
+        assertEquals(0, server.hits("/api/v3/ticker/price"));
+    }
+
+    @Test
+    void stalePricesFallBackToOneBulkSnapshot() throws Exception {
+        feed.publish("BTCUSDT", 61_000.5);
+        TimeUnit.MILLISECONDS.sleep(300);
+
+        ExecutorService readers = Executors.newFixedThreadPool(8);
+        CountDownLatch done = new CountDownLatch(8);
+        for (int i = 0; i < 8; i++) {
+            readers.submit(() -> {
+                assertEquals(60_000.0, priceBook.getPrice("BTCUSDT"));
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        readers.shutdown();
+
+        assertEquals(3_000.0, priceBook.getPrice("ETHUSDT"));
+        assertEquals(1, server.hits("/api/v3/ticker/price"));
+    }
+
+    @Test
+    void fetchesOnlyStaleSymbolsInOneBatchedRequest() throws Exception {
+        feed.publish("BTCUSDT", 61_000.5);
+
+        Map<String, Double> prices = priceBook.getPrices(List.of("SOLUSDT", "BTCUSDT", "ETHUSDT"));
+
+        assertEquals(List.of("SOLUSDT", "BTCUSDT", "ETHUSDT"), List.copyOf(prices.keySet()));
+        assertEquals(60_000.0, prices.get("SOLUSDT"));
+        assertEquals(61_000.5, prices.get("BTCUSDT"));
+        assertEquals(3_000.0, prices.get("ETHUSDT"));
+        assertEquals(1, server.hits("/api/v3/ticker/price"));
+
+        // Within the staleness bound everything is served from the book
+        priceBook.getPrices(List.of("SOLUSDT", "ETHUSDT"));
+        assertEquals(1, server.hits("/api/v3/ticker/price"));
+    }
+
+    @Test
+    void leavesSymbolsTheExchangeDoesNotListOutOfTheBatch() {
+        symbolFilterCache.refresh();
+        server.route("GET", "/api/v3/ticker/price", query -> query != null && query.contains("MATICUSDT")
+                ? new Reply(400, "{\"code\":-1121,\"msg\":\"Invalid symbol.\"}", Map.of())
+                : Reply.ok(FakeBinanceServer.tickerPrice(query)));
+
+        Map<String, Double> prices = priceBook.getPrices(List.of("BTCUSDT", "MATICUSDT", "ETHUSDT"));
+
+        assertEquals(Map.of("BTCUSDT", 60_000.0, "ETHUSDT", 3_000.0), prices);
+        assertEquals(1, server.hits("/api/v3/ticker/price"));
+    }
+
+    @Test
+    void fallsBackToTheBulkSnapshotWhenTheBatchFails() {
+        server.route("GET", "/api/v3/ticker/price", query -> query != null && query.startsWith("symbols=")
+                ? new Reply(400, "{\"code\":-1121,\"msg\":\"Invalid symbol.\"}", Map.of())
+                : Reply.ok(FakeBinanceServer.tickerPrice(query)));
+
+        // The filter cache is not loaded yet, so the unlisted symbol goes into the batch and fails it
+        Map<String, Double> prices = priceBook.getPrices(List.of("BTCUSDT", "MATICUSDT"));
+
+        assertEquals(Map.of("BTCUSDT", 60_000.0), prices);
+        assertEquals(2, server.hits("/api/v3/ticker/price"));
+    }
+
+    @Test
+    void unknownSymbolsReturnZero() {
+        assertEquals(0, priceBook.getPrice("NOPEUSDT"));
+    }
+}
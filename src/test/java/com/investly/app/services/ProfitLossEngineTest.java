@@ -0,0 +1,88 @@
+package com.investly.app.services;
+
+import com.investly.app.dao.TradeEntity;
+import com.investly.app.dao.TradeRepository;
+import com.investly.app.dto.ProfitLoss;
+import com.investly.app.dto.Trade;
+import com.investly.app.services.ProfitLossEngine.CostMethod;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProfitLossEngineTest {
+
+    private final TradeRepository tradeRepository = mock(TradeRepository.class);
+    private final ProfitLossEngine engine = new ProfitLossEngine(tradeRepository);
+
+    @Test
+    void tracksFifoLotsAndAverageCostSideBySide() {
+        engine.apply("ETHUSDT", List.of(
+                buy(1, 1.0, 100.0),
+                buy(2, 1.0, 200.0),
+                sell(3, 1.0, 300.0)));
+
+        // FIFO sells the lot bought at 100, average cost sells at 150
+        ProfitLoss fifo = engine.profitLoss("ETHUSDT", CostMethod.FIFO, FixedPoint.of(250.0));
+        assertEquals(200.0, fifo.realizedPnl());
+        assertEquals(200.0, fifo.costBasis());
+        assertEquals(50.0, fifo.unrealizedPnl());
+
+        ProfitLoss average = engine.profitLoss("ETHUSDT", CostMethod.AVERAGE, FixedPoint.of(250.0));
+        assertEquals(150.0, average.realizedPnl());
+        assertEquals(150.0, average.averageCost());
+        assertEquals(100.0, average.unrealizedPnl());
+        assertEquals(1.0, average.quantity());
+    }
+
+    @Test
+    void splitsPartiallySoldLotsAndIgnoresReplayedFills() {
+        List<Trade> fills = List.of(
+                buy(1, 2.0, 100.0),
+                buy(2, 2.0, 300.0),
+                sell(3, 3.0, 400.0));
+        engine.apply("ETHUSDT", fills);
+        engine.apply("ETHUSDT", fills);
+
+        // 2 @ 100 and 1 of the 2 @ 300 are sold, one coin costing 300 remains
+        assertEquals(FixedPoint.of(3 * 400.0 - 200.0 - 300.0), engine.realized("ETHUSDT", CostMethod.FIFO));
+        assertEquals(FixedPoint.of(100.0), engine.unrealized("ETHUSDT", CostMethod.FIFO, FixedPoint.of(400.0)));
+        assertEquals(FixedPoint.of(3 * 400.0 - 3 * 200.0), engine.realized("ETHUSDT", CostMethod.AVERAGE));
+    }
+
+    @Test
+    void accountsForCommissionAndLoadsHistoryFromTheLedger() {
+        when(tradeRepository.findBySymbolOrderByTradeIdAsc("BTCUSDT")).thenReturn(List.of(
+                TradeEntity.from(new Trade("BTCUSDT", 7, 70, new BigDecimal("60000"), new BigDecimal("0.5"),
+                        new BigDecimal("30000"), new BigDecimal("0.0005"), "BTC", 1_000, true, false))));
+
+        engine.apply("BTCUSDT", List.of(
+                new Trade("BTCUSDT", 8, 80, new BigDecimal("64000"), new BigDecimal("0.4995"),
+                        new BigDecimal("31968"), new BigDecimal("31.968"), "USDT", 2_000, false, true)));
+
+        // The base commission shrank the position, the quote commission the proceeds
+        ProfitLoss profitLoss = engine.profitLoss("BTCUSDT", CostMethod.FIFO, FixedPoint.of(64_000.0));
+        assertEquals(0.0, profitLoss.quantity());
+        assertEquals(31_968.0 - 31.968 - 30_000.0, profitLoss.realizedPnl(), 1e-8);
+        assertEquals(0.0, profitLoss.unrealizedPnl());
+    }
+
+    private static Trade buy(long id, double qty, double price) {
+        return trade(id, qty, price, true);
+    }
+
+    private static Trade sell(long id, double qty, double price) {
+        return trade(id, qty, price, false);
+    }
+
+    private static Trade trade(long id, double qty, double price, boolean isBuyer) {
+        BigDecimal exactQty = BigDecimal.valueOf(qty);
+        BigDecimal exactPrice = BigDecimal.valueOf(price);
+        return new Trade("ETHUSDT", id, id, exactPrice, exactQty, exactQty.multiply(exactPrice),
+                new BigDecimal("0.001"), "BNB", id * 1_000, isBuyer, false);
+    }
+}
@@ -0,0 +1,60 @@
+package com.investly.app.services;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RequestSignerTest {
+
+    // Example from the Binance API documentation on signed endpoints
+    private static final String SECRET = "NhqPtmdSJYdKjVHjA7PZj4Mge3R5YNiP1e3UZjInClVN65XAbvqqM6A7H5fATj0j";
+    private static final String QUERY = "symbol=LTCBTC&side=BUY&type=LIMIT&timeInForce=GTC&quantity=1&price=0.1"
+            + "&recvWindow=5000&timestamp=1499827319559";
+
+    private final RequestSigner signer = new RequestSigner(SECRET);
+
+    @Test
+    void appendsTheDocumentedSignature() {
+        assertEquals(QUERY + "&signature=c8db56825ae71d6d79447849e617115f4a920fa2acdcab2b053c4b2838bd6b71",
+                signer.sign(new StringBuilder(QUERY)));
+    }
+
+    @Test
+    void signaturesMatchAFreshMacUnderParallelLoad() throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+        List<Future<?>> results = new ArrayList<>();
+        for (int thread = 0; thread < 16; thread++) {
+            int offset = thread;
+            results.add(callers.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    // Lengths vary across the input buffer size, and some values are non-ASCII
+                    String query = "symbol=BTCUSDT&note=" + (i % 50 == 0 ? "é" : "x").repeat(i % 300)
+                            + "&timestamp=" + (1_700_000_000_000L + offset * 1_000 + i);
+                    assertEquals(query + "&signature=" + reference(query), signer.sign(new StringBuilder(query)));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        callers.shutdown();
+    }
+
+    private static String reference(String query) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return HexFormat.of().formatHex(mac.doFinal(query.getBytes(StandardCharsets.UTF_8)));
+    }
+}
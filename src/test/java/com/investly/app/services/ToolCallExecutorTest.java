@@ -0,0 +1,155 @@
+package com.investly.app.services;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.investly.app.services.ToolCallExecutor.ToolCall;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ToolCallExecutorTest {
+
+    private static final long CALL_MILLIS = 200;
+
+    private final ToolDispatcher toolDispatcher = mock(ToolDispatcher.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ToolCallExecutor executor = new ToolCallExecutor(toolDispatcher, meterRegistry, 8, 1_000);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void runsReadOnlyCallsConcurrentlyAndKeepsOutputOrder() {
+        when(toolDispatcher.dispatch(anyString(), any())).thenAnswer(invocation -> {
+            Thread.sleep(CALL_MILLIS);
+            return "{\"tool\":\"" + invocation.getArgument(0) + "\"}";
+        });
+
+        long start = System.nanoTime();
+        List<JsonObject> outputs = executor.execute(List.of(
+                call("call_1", "getBalance"), call("call_2", "get_profit_loss"), call("call_3", "fetch_trade_history")));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis < CALL_MILLIS * 2, "took " + elapsedMillis + " ms");
+        assertEquals("call_1", outputs.get(0).get("tool_call_id").getAsString());
+        assertEquals("{\"tool\":\"getBalance\"}", outputs.get(0).get("output").getAsString());
+        assertEquals("{\"tool\":\"fetch_trade_history\"}", outputs.get(2).get("output").getAsString());
+        assertEquals(3, meterRegistry.get("assistant.tool.latency").timers().size());
+    }
+
+    @Test
+    void runsSideEffectingCallsOneAtATimeInCallOrder() {
+        List<String> executed = new CopyOnWriteArrayList<>();
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        when(toolDispatcher.dispatch(anyString(), any())).thenAnswer(invocation -> {
+            JsonObject arguments = JsonParser.parseString(invocation.<String>getArgument(1)).getAsJsonObject();
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            executed.add(arguments.get("symbol").getAsString());
+            active.decrementAndGet();
+            return "{}";
+        });
+
+        executor.execute(List.of(order("call_1", "BTC"), order("call_2", "ETH"), order("call_3", "SOL")));
+
+        assertEquals(List.of("BTC", "ETH", "SOL"), executed);
+        assertEquals(1, maxActive.get());
+    }
+
+    @Test
+    void runsAStepWithAnOrderEntirelyInCallOrder() {
+        List<String> executed = new CopyOnWriteArrayList<>();
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        when(toolDispatcher.dispatch(anyString(), any())).thenAnswer(invocation -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            executed.add(invocation.getArgument(0));
+            active.decrementAndGet();
+            return "{}";
+        });
+
+        executor.execute(List.of(call("call_1", "getBalance"), order("call_2", "BTC"), call("call_3", "getBalance")));
+
+        // The reads see the account before and after the order, not while it executes
+        assertEquals(List.of("getBalance", "place_order", "getBalance"), executed);
+        assertEquals(1, maxActive.get());
+    }
+
+    @Test
+    void reportsTimeoutsAndFailuresAsToolOutputs() {
+        when(toolDispatcher.dispatch(anyString(), any())).thenAnswer(invocation -> {
+            switch ((String) invocation.getArgument(0)) {
+                case "getBalance" -> Thread.sleep(2_000);
+                case "get_profit_loss" -> throw new IllegalStateException("no price");
+                default -> {
+                }
+            }
+            return "{}";
+        });
+
+        List<JsonObject> outputs = executor.execute(List.of(
+                call("call_1", "getBalance"), call("call_2", "get_profit_loss"), call("call_3", "fetch_trade_history")));
+
+        assertTrue(outputs.get(0).get("output").getAsString().contains("Timed out"));
+        assertEquals("{\"error\":\"no price\"}", outputs.get(1).get("output").getAsString());
+        assertEquals("{}", outputs.get(2).get("output").getAsString());
+    }
+
+    @Test
+    void keepsGoingAfterACallDiesWithAnError() {
+        when(toolDispatcher.dispatch(anyString(), any())).thenAnswer(invocation -> {
+            if (invocation.<String>getArgument(1).contains("BTC")) {
+                throw new AssertionError("boom");
+            }
+            return "{}";
+        });
+
+        List<JsonObject> outputs = executor.execute(List.of(order("call_1", "BTC"), order("call_2", "ETH")));
+
+        assertTrue(outputs.get(0).get("output").getAsString().contains("failed unexpectedly"));
+        assertEquals("{}", outputs.get(1).get("output").getAsString());
+    }
+
+    @Test
+    void countsTheTimeoutFromSubmissionAndSkipsExpiredQueuedCalls() throws InterruptedException {
+        List<String> executed = new CopyOnWriteArrayList<>();
+        when(toolDispatcher.dispatch(anyString(), any())).thenAnswer(invocation -> {
+            executed.add(invocation.getArgument(1));
+            Thread.sleep(1_500);
+            return "{}";
+        });
+
+        long start = System.nanoTime();
+        List<JsonObject> outputs = executor.execute(List.of(order("call_1", "BTC"), order("call_2", "ETH")));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Both outputs expire at the 1 s deadline although the second call never started
+        assertTrue(elapsedMillis < 1_400, "took " + elapsedMillis + " ms");
+        assertTrue(outputs.get(1).get("output").getAsString().contains("Timed out"));
+        Thread.sleep(700);
+        assertEquals(1, executed.size());
+    }
+
+    private static ToolCall call(String id, String name) {
+        return new ToolCall(id, name, "{}");
+    }
+
+    private static ToolCall order(String id, String symbol) {
+        return new ToolCall(id, "place_order", "{\"symbol\":\"" + symbol + "\"}");
+    }
+}
@@ -0,0 +1,99 @@
+package com.investly.app.services;
+
+import com.investly.app.dto.OrderResult;
+import com.investly.app.dto.ProfitLoss;
+import com.investly.app.dto.TopMovers;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ToolDispatcherTest {
+
+    private final TradeService tradeService = mock(TradeService.class);
+    private final MarketStatsEngine marketStats = mock(MarketStatsEngine.class);
+    private final ToolDispatcher dispatcher =
+            new ToolDispatcher(new ToolRegistry(List.of(tradeService, new FunctionService(marketStats))));
+
+    @Test
+    void bindsArgumentsToTypedParametersAndAppliesDefaults() {
+        when(tradeService.placeOrder("BTC", "BUY", 25.5, "USDT", null)).thenReturn(order(1L, "FILLED"));
+        when(tradeService.cancelOrder(42L, "BTCUSDT")).thenReturn(order(42L, "CANCELED"));
+
+        assertTrue(dispatcher.dispatch("place_order", "{\"symbol\":\"BTC\",\"side\":\"BUY\",\"amount\":25.5}")
+                .contains("\"orderId\":1,"));
+        // Quoted numbers are accepted, models produce them regularly
+        assertTrue(dispatcher.dispatch("cancel_order", "{\"orderId\":\"42\",\"symbol\":\"BTCUSDT\"}")
+                .contains("\"status\":\"CANCELED\""));
+
+        dispatcher.dispatch("fetch_trade_history", "{\"symbol\":null}");
+        verify(tradeService).fetchTradeHistory(null, 5);
+    }
+
+    @Test
+    void acceptsASingleValueForAListParameter() {
+        dispatcher.dispatch("create_widget", "{\"type\":\"QUICK_TRADE\",\"assets\":\"ETH\",\"isBuy\":\"false\"}");
+
+        verify(tradeService).createWidget("QUICK_TRADE", List.of("ETH"), null, null, null, false);
+    }
+
+    @Test
+    void serializesTypedResultsWithTheirWireNames() {
+        when(tradeService.getProfitLoss("BTCUSDT", "FIFO"))
+                .thenReturn(new ProfitLoss("BTCUSDT", "FIFO", 0.5, 30_000.0, 60_000.0, 62_000.0, 150.0, 1_000.0));
+
+        assertEquals("{\"symbol\":\"BTCUSDT\",\"cost_method\":\"FIFO\",\"quantity\":0.5,\"cost_basis\":30000.0,"
+                        + "\"average_cost\":60000.0,\"market_price\":62000.0,\"realized_pnl\":150.0,\"unrealized_pnl\":1000.0}",
+                dispatcher.dispatch("get_profit_loss", "{\"symbol\":\"BTCUSDT\"}"));
+    }
+
+    @Test
+    void handlesEveryDeclaredTool() {
+        assertTrue(dispatcher.dispatch("general_investment_advice", "{\"textPrompt\":\"Is DCA sensible?\"}")
+                .contains("Is DCA sensible?"));
+        when(marketStats.topMovers(MarketStatsEngine.Timeframe.H24, 5)).thenReturn(new TopMovers("24h",
+                List.of(new TopMovers.Mover("SOLUSDT", 150.0, 12.5)), List.of(), 2, true, 1_000));
+        assertEquals("{\"timeframe\":\"24h\",\"gainers\":[{\"symbol\":\"SOLUSDT\",\"price\":150.0,\"change_percent\":12.5}],"
+                        + "\"losers\":[],\"symbols_tracked\":2,\"window_complete\":true,\"as_of\":1000}",
+                dispatcher.dispatch("get_top_movers", "{}"));
+
+        dispatcher.dispatch("get_portfolio_history", "{}");
+        verify(tradeService).getPortfolioHistory("7d");
+    }
+
+    @Test
+    void rejectsArgumentsThatViolateTheSchema() {
+        assertThrows(ToolDispatcher.InvalidToolArgumentsException.class,
+                () -> dispatcher.dispatch("place_order", "{\"symbol\":\"BTC\",\"side\":\"HOLD\",\"amount\":1}"));
+        assertThrows(ToolDispatcher.InvalidToolArgumentsException.class,
+                () -> dispatcher.dispatch("place_order", "{\"symbol\":\"BTC\",\"side\":\"BUY\"}"));
+        assertThrows(ToolDispatcher.InvalidToolArgumentsException.class,
+                () -> dispatcher.dispatch("place_order", "{\"symbol\":\"BTC\",\"side\":\"BUY\",\"amount\":\"lots\"}"));
+        assertThrows(ToolDispatcher.InvalidToolArgumentsException.class,
+                () -> dispatcher.dispatch("get_profit_loss", "{\"symbol\":\"BTC\",\"extra\":1}"));
+        assertThrows(ToolDispatcher.InvalidToolArgumentsException.class,
+                () -> dispatcher.dispatch("get_profit_loss", "[\"BTC\"]"));
+        assertThrows(ToolDispatcher.InvalidToolArgumentsException.class,
+                () -> dispatcher.dispatch("withdraw", "{}"));
+    }
+
+    @Test
+    void failsAtStartupForToolsItCannotDispatch() {
+        assertThrows(IllegalStateException.class, () -> new ToolDispatcher(new ToolRegistry(List.of(new Object() {
+            @AssistantTool(name = "reset", description = "Returns nothing to report back")
+            public void reset(@ToolParam("limit") int limit) {
+            }
+        }))));
+    }
+
+    private static OrderResult order(long orderId, String status) {
+        return new OrderResult("BTCUSDT", orderId, "client-" + orderId, "BUY", "MARKET", status,
+                0.001, 0.001, 25.5, 1_700_000_000_000L);
+    }
+}
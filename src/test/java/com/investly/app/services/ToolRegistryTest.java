@@ -0,0 +1,72 @@
+package com.investly.app.services;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class ToolRegistryTest {
+
+    private final ToolRegistry registry = new ToolRegistry(List.of(mock(TradeService.class), mock(FunctionService.class)));
+
+    @Test
+    void derivesToolSchemasFromAnnotatedMethods() {
+        Map<String, JsonObject> functions = new HashMap<>();
+        for (JsonElement tool : JsonParser.parseString(registry.toolsJson().utf8()).getAsJsonArray()) {
+            JsonObject function = tool.getAsJsonObject().getAsJsonObject("function");
+            functions.put(function.get("name").getAsString(), function);
+        }
+
+        assertEquals(9, functions.size());
+        JsonObject placeOrder = functions.get("place_order").getAsJsonObject("parameters");
+        assertEquals("number", placeOrder.getAsJsonObject("properties").getAsJsonObject("amount").get("type").getAsString());
+        assertEquals(JsonParser.parseString("[\"BUY\",\"SELL\"]"),
+                placeOrder.getAsJsonObject("properties").getAsJsonObject("side").get("enum"));
+        assertEquals(JsonParser.parseString("[\"symbol\",\"side\",\"amount\"]"), placeOrder.get("required"));
+
+        JsonObject cancelOrder = functions.get("cancel_order").getAsJsonObject("parameters");
+        assertEquals("integer", cancelOrder.getAsJsonObject("properties").getAsJsonObject("orderId").get("type").getAsString());
+        assertEquals(JsonParser.parseString("[\"orderId\",\"symbol\"]"), cancelOrder.get("required"));
+
+        // Both arguments have defaults, so the model may call it without any
+        JsonObject topMovers = functions.get("get_top_movers").getAsJsonObject("parameters");
+        assertEquals(new JsonArray(), topMovers.get("required"));
+
+        JsonObject assets = functions.get("create_widget").getAsJsonObject("parameters")
+                .getAsJsonObject("properties").getAsJsonObject("assets");
+        assertEquals("array", assets.get("type").getAsString());
+    }
+
+    @Test
+    void buildsTheRunPayloadOnceAroundThePrecomputedTools() {
+        JsonObject payload = JsonParser.parseString(registry.runPayload("asst_\"1").utf8()).getAsJsonObject();
+
+        assertEquals("asst_\"1", payload.get("assistant_id").getAsString());
+        assertTrue(payload.get("stream").getAsBoolean());
+        assertTrue(payload.get("parallel_tool_calls").getAsBoolean());
+        JsonArray tools = payload.getAsJsonArray("tools");
+        assertEquals(JsonParser.parseString(registry.toolsJson().utf8()), tools);
+        assertSame(registry.runPayload("asst_\"1"), registry.runPayload("asst_\"1"));
+    }
+
+    @Test
+    void rejectsToolParametersWithoutAnnotation() {
+        assertThrows(IllegalStateException.class, () -> new ToolRegistry(List.of(new Object() {
+            @AssistantTool(name = "broken", description = "Parameter is not described")
+            public String broken(String value) {
+                return value;
+            }
+        })));
+    }
+}
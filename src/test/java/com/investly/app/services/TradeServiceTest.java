@@ -0,0 +1,327 @@
+package com.investly.app.services;
+
+import com.investly.app.dao.PortfolioSnapshotRepository;
+import com.investly.app.dao.TradeRepository;
+import com.investly.app.dto.CandleSeries;
+import com.investly.app.dto.OrderResult;
+import com.investly.app.dto.Portfolio;
+import com.investly.app.dto.PortfolioHistory;
+import com.investly.app.dto.ProfitLoss;
+import com.investly.app.dto.Trade;
+import com.investly.app.dto.Widget;
+import com.investly.app.support.BinanceFixtures;
+import com.investly.app.support.FakeBinanceServer;
+import com.investly.app.support.FakeBinanceServer.Reply;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+// Syncs run on fan-out threads, so writes must commit rather than roll back with a test transaction
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TradeServiceTest {
+
+    @Autowired
+    private TradeRepository tradeRepository;
+
+    @Autowired
+    private PortfolioSnapshotRepository portfolioSnapshotRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Trades the stub exchange holds per pair, oldest first
+    private final Map<String, List<String>> exchangeTrades = new ConcurrentHashMap<>();
+    private final List<String> tradeQueries = new CopyOnWriteArrayList<>();
+
+    private FakeBinanceServer server;
+    private PriceBook priceBook;
+    private SymbolFilterCache symbolFilterCache;
+    private PortfolioHistoryService portfolioHistory;
+    private TradeService tradeService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = FakeBinanceServer.withDefaultRoutes(3)
+                .route("GET", "/api/v3/account", query -> Reply.ok(BinanceFixtures.read("account.json")))
+                .route("GET", "/api/v3/myTrades", query -> Reply.ok(myTrades(query)));
+        BinanceRequestScheduler scheduler = new BinanceRequestScheduler(new OkHttpClient(), 6_000, 60_000, 100,
+                200_000, 10_000, new SimpleMeterRegistry());
+        symbolFilterCache = new SymbolFilterCache(server.baseUrl(), TimeUnit.HOURS.toMillis(1), scheduler);
+        priceBook = new PriceBook(server.baseUrl(), TimeUnit.MINUTES.toMillis(5), scheduler, symbolFilterCache, null);
+        BinanceServerClock serverClock = new BinanceServerClock(server.baseUrl(), scheduler, new SimpleMeterRegistry());
+        RequestSigner requestSigner = new RequestSigner("test-secret");
+        portfolioHistory = new PortfolioHistoryService(60_000, TimeUnit.DAYS.toMillis(2), TimeUnit.DAYS.toMillis(90),
+                portfolioSnapshotRepository, transactionManager);
+        OrderPipeline orderPipeline = new OrderPipeline(server.baseUrl(), "test-key", 3, 10, 4, scheduler, requestSigner,
+                serverClock, priceBook, symbolFilterCache, mock(SimpMessageSendingOperations.class));
+        tradeService = new TradeService("test-key", server.baseUrl(), orderPipeline, priceBook, serverClock,
+                new FanOutExecutor(4, 5_000), scheduler,
+                new AssetUniverse("BTC:Bitcoin,ETH:Ethereum,SOL:Solana,DOGE:Dogecoin"), tradeRepository,
+                new ProfitLossEngine(tradeRepository), requestSigner,
+                new KlineStore(server.baseUrl(), 10_000, 1_000, 0, "", scheduler), portfolioHistory);
+
+        // Two trades per pair; times interleave across pairs
+        addTrades("BTCUSDT", 1_000, 2);
+        addTrades("ETHUSDT", 1_500, 2);
+        addTrades("SOLUSDT", 2_000, 2);
+        addTrades("DOGEUSDT", 3_000, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        portfolioSnapshotRepository.deleteAll();
+        server.close();
+        tradeRepository.deleteAll();
+    }
+
+    @Test
+    void valuesHeldTopAssetsInUsd() {
+        priceBook.update("SOLUSDT", 150.0);
+        priceBook.update("DOGEUSDT", 0.2);
+
+        Portfolio portfolio = tradeService.getBalance();
+
+        // BTC and ETH have no cached price and are fetched in a single request
+        assertEquals(1, server.hits("/api/v3/ticker/price"));
+        // USDT and EUR are held but are not tracked assets
+        assertEquals(List.of("BTC", "ETH", "SOL", "DOGE"), List.copyOf(portfolio.balances().keySet()));
+        assertEquals("Bitcoin", portfolio.balances().get("BTC").asset());
+        assertEquals(6_750.0, portfolio.balances().get("ETH").usdValue(), 1e-9);
+        assertEquals(30_000.0 + 6_750.0 + 2_130.0 + 240.0, portfolio.totalValueUsd(), 1e-6);
+    }
+
+    @Test
+    void reportsHoldingsWithoutAPriceAsUnpriced() {
+        priceBook.update("SOLUSDT", 150.0);
+        priceBook.update("BTCUSDT", 60_000.0);
+        priceBook.update("ETHUSDT", 3_000.0);
+        // DOGE is not listed on the exchange
+        symbolFilterCache.refresh();
+
+        Portfolio portfolio = tradeService.getBalance();
+
+        assertEquals(List.of("DOGE"), portfolio.unpricedAssets());
+        assertEquals(List.of("BTC", "ETH", "SOL"), List.copyOf(portfolio.balances().keySet()));
+        assertEquals(30_000.0 + 6_750.0 + 2_130.0, portfolio.totalValueUsd(), 1e-6);
+        assertEquals(0, server.hits("/api/v3/ticker/price"));
+    }
+
+    @Test
+    void servesHistoryAcrossAllAssetsFromTheLedger() {
+        List<Trade> trades = tradeService.fetchTradeHistory(null, 3);
+
+        assertEquals(List.of(4_000L, 3_000L, 3_000L), trades.stream().map(Trade::time).toList());
+        assertEquals("DOGEUSDT", trades.get(0).symbol());
+        assertEquals(4, server.hits("/api/v3/myTrades"));
+
+        // Every pair is loaded now; later reads do not go to the exchange
+        tradeService.fetchTradeHistory(null, 3);
+        tradeService.fetchTradeHistory("BTC", 5);
+        assertEquals(4, server.hits("/api/v3/myTrades"));
+    }
+
+    @Test
+    void failsHistoryReadsWhenAPairCannotBeLoaded() {
+        server.route("GET", "/api/v3/myTrades", query -> query.contains("symbol=ETHUSDT")
+                ? new Reply(500, "", Map.of()) : Reply.ok(myTrades(query)));
+
+        assertThrows(TradeException.class, () -> tradeService.fetchTradeHistory(null, 3));
+        assertThrows(TradeException.class, () -> tradeService.fetchTradeHistory("ETH", 3));
+    }
+
+    @Test
+    void clampsTheHistoryLimit() {
+        assertEquals(1, tradeService.fetchTradeHistory("BTCUSDT", 0).size());
+        assertEquals(1, tradeService.fetchTradeHistory(null, -3).size());
+        assertEquals(2, tradeService.fetchTradeHistory("BTCUSDT", Integer.MAX_VALUE).size());
+    }
+
+    @Test
+    void syncsOnlyTradesAfterTheLastStoredOne() {
+        assertEquals(2, tradeService.fetchTradeHistory("BTCUSDT", 5).size());
+
+        addTrades("BTCUSDT", 10_000, 1);
+        tradeQueries.clear();
+        tradeService.syncTradeHistory();
+
+        assertTrue(tradeQueries.stream().anyMatch(query -> query.startsWith("symbol=BTCUSDT&fromId=3&")),
+                tradeQueries.toString());
+        assertEquals(List.of(2L, 3L), tradeService.fetchTradeHistory("BTCUSDT", 2).stream().map(Trade::id).toList());
+        assertEquals(9, tradeRepository.count());
+    }
+
+    @Test
+    void computesProfitLossOverTheWholeHistory() {
+        // More trades than one exchange page, so the sync has to page through them
+        exchangeTrades.remove("BTCUSDT");
+        addTrades("BTCUSDT", 1_000, 1_200);
+
+        addTrades("BTCUSDT", 1_000_000, 1);
+
+        ProfitLoss profitLoss = tradeService.getProfitLoss("BTC", "FIFO");
+
+        // 600 round trips bought at 60000 and sold at 70000, then one more coin bought at 60000
+        assertEquals("BTCUSDT", profitLoss.symbol());
+        assertEquals(600 * 10_000.0, profitLoss.realizedPnl(), 1e-6);
+        assertEquals(1.0, profitLoss.quantity(), 1e-9);
+        assertEquals(60_000.0, profitLoss.costBasis(), 1e-6);
+        assertEquals(60_000.0, profitLoss.marketPrice(), 1e-6);
+        assertEquals(0.0, profitLoss.unrealizedPnl(), 1e-6);
+        assertEquals(2, server.hits("/api/v3/myTrades"));
+
+        // Later fills are applied to the position incrementally
+        addTrades("BTCUSDT", 2_000_000, 1);
+        tradeService.syncTradeHistory();
+        assertEquals(600 * 10_000.0 + 10_000.0, tradeService.getProfitLoss("BTCUSDT", "AVERAGE").realizedPnl(), 1e-6);
+    }
+
+    @Test
+    void writesOrderQuantitiesWithTheSymbolsPrecision() {
+        List<String> orderQueries = new CopyOnWriteArrayList<>();
+        server.route("POST", "/api/v3/order", query -> {
+            orderQueries.add(query);
+            return Reply.ok("{\"symbol\":\"BTCUSDT\",\"orderId\":7,\"status\":\"FILLED\",\"executedQty\":\"0.00010000\"}");
+        });
+        symbolFilterCache.refresh();
+
+        OrderResult order = tradeService.placeOrder("BTC", "BUY", 6.0, "USDT", null);
+
+        // 6 / 60000 would be written as 1.0E-4 from a double; BTCUSDT steps in 0.00001
+        assertEquals(7, order.orderId());
+        assertTrue(orderQueries.get(0).startsWith("symbol=BTCUSDT&side=BUY&type=MARKET&quantity=0.00010&newClientOrderId=inv-"),
+                orderQueries.get(0));
+
+        // Below the 5 USDT minimum order value the exchange would reject it, so it is not sent
+        assertThrows(TradeException.class, () -> tradeService.placeOrder("BTC", "BUY", 4.0, "USDT", null));
+        assertEquals(1, orderQueries.size());
+    }
+
+    @Test
+    void placesAKeyedOrderOnceEvenIfThePriceMovesBetweenRetries() {
+        Map<String, String> placed = new ConcurrentHashMap<>();
+        server.route("POST", "/api/v3/order", query -> {
+            placed.put(query.replaceAll(".*newClientOrderId=([^&]+).*", "$1"), query);
+            return Reply.ok("{\"symbol\":\"BTCUSDT\",\"orderId\":7,\"status\":\"FILLED\",\"executedQty\":\"0.00010000\"}");
+        }).route("GET", "/api/v3/order", query -> placed.containsKey(
+                        query.replaceAll(".*origClientOrderId=([^&]+).*", "$1"))
+                ? Reply.ok("{\"symbol\":\"BTCUSDT\",\"orderId\":7,\"status\":\"FILLED\",\"executedQty\":\"0.00010000\"}")
+                : new Reply(400, FakeBinanceServer.UNKNOWN_ORDER, Map.of()));
+
+        symbolFilterCache.refresh();
+        priceBook.update("BTCUSDT", 60000.0);
+        tradeService.placeOrder("BTC", "BUY", 12.0, "USDT", "key-1");
+        // The same request repeated after the price moved maps to a different quantity
+        priceBook.update("BTCUSDT", 62000.0);
+        OrderResult order = tradeService.placeOrder("BTC", "BUY", 12.0, "USDT", "key-1");
+
+        assertEquals(7, order.orderId());
+        assertEquals(1, placed.size());
+    }
+
+    @Test
+    void portfolioWidgetReusesTheTypedBalances() {
+        priceBook.update("SOLUSDT", 150.0);
+        priceBook.update("DOGEUSDT", 0.2);
+
+        Widget widget = tradeService.createWidget("PORTFOLIO", List.of("BTC"), null, null, null, null);
+
+        assertEquals("success", widget.status());
+        assertEquals(List.of(), widget.assets());
+        assertEquals(4, widget.balances().size());
+    }
+
+    @Test
+    void portfolioWidgetsReadTheRecordedSnapshots() {
+        priceBook.update("SOLUSDT", 150.0);
+        priceBook.update("DOGEUSDT", 0.2);
+        tradeService.recordPortfolioSnapshot();
+        assertEquals(1, server.hits("/api/v3/account"));
+
+        Widget widget = tradeService.createWidget("PORTFOLIO", List.of(), null, null, null, null);
+
+        assertEquals(1, server.hits("/api/v3/account"));
+        assertEquals(4, widget.balances().size());
+        PortfolioHistory history = widget.portfolioHistory();
+        assertEquals("HOUR", history.resolution());
+        assertEquals(0, history.size()); // Not rolled up yet
+        PortfolioHistory lastDay = tradeService.getPortfolioHistory("1d");
+        assertEquals(1, lastDay.size());
+        assertEquals(widget.balances().keySet(), lastDay.assetValuesUsd().keySet());
+    }
+
+    @Test
+    void chartWidgetsEmbedACandleSeriesPerAsset() {
+        Widget widget = tradeService.createWidget("MARKET_OVERVIEW", List.of("BTC", "ETH"), "1d",
+                "2024-01-01", "2024-01-10", null);
+
+        assertEquals("success", widget.status());
+        assertEquals(List.of("BTCUSDT", "ETHUSDT"), widget.series().stream().map(CandleSeries::symbol).toList());
+        CandleSeries btc = widget.series().get(0);
+        assertEquals(10, btc.size());
+        assertEquals(LocalDate.of(2024, 1, 1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli(), btc.openTime()[0]);
+
+        // An unknown timeframe still charts daily candles; bad dates leave the chart out
+        assertEquals("1d", tradeService.createWidget("PROFIT_LOSS", List.of("BTC"), "1y", "2024-01-01",
+                "2024-01-10", null).series().get(0).interval());
+        assertEquals(List.of(), tradeService.createWidget("PROFIT_LOSS", List.of("BTC"), "1d", "last week",
+                null, null).series());
+    }
+
+    // Alternating buys and sells, one second apart
+    private void addTrades(String symbol, long startTime, int count) {
+        List<String> trades = exchangeTrades.computeIfAbsent(symbol, key -> new CopyOnWriteArrayList<>());
+        for (int i = 0; i < count; i++) {
+            long id = trades.size() + 1;
+            boolean isBuyer = id % 2 == 1;
+            trades.add(trade(symbol, id, startTime + i * 1_000L, isBuyer ? "60000.00" : "70000.00", isBuyer));
+        }
+    }
+
+    // Honours fromId and limit the way /api/v3/myTrades does; trade ids start at 1
+    private String myTrades(String query) {
+        tradeQueries.add(query);
+        Map<String, String> params = new HashMap<>();
+        for (String param : query.split("&")) {
+            int separator = param.indexOf('=');
+            params.put(param.substring(0, separator), param.substring(separator + 1));
+        }
+        List<String> trades = List.copyOf(exchangeTrades.getOrDefault(params.get("symbol"), List.of()));
+        int from = (int) Math.min(trades.size(), Math.max(0, Long.parseLong(params.getOrDefault("fromId", "1")) - 1));
+        int to = Math.min(trades.size(), from + Integer.parseInt(params.getOrDefault("limit", "500")));
+
+        StringJoiner page = new StringJoiner(",", "[", "]");
+        trades.subList(from, to).forEach(page::add);
+        return page.toString();
+    }
+
+    private static String trade(String symbol, long id, long time, String price, boolean isBuyer) {
+        return "{\"symbol\":\"" + symbol + "\",\"id\":" + id + ",\"orderId\":" + (100 + id) + ",\"orderListId\":-1,"
+                + "\"price\":\"" + price + "\",\"qty\":\"1.00000000\",\"quoteQty\":\"" + price + "\","
+                + "\"commission\":\"0.00100000\",\"commissionAsset\":\"BNB\",\"time\":" + time + ","
+                + "\"isBuyer\":" + isBuyer + ",\"isMaker\":false,\"isBestMatch\":true}";
+    }
+}
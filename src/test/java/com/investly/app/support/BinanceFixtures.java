@@ -0,0 +1,66 @@
+package com.investly.app.support;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binance response payloads under {@code src/test/resources/fixtures/binance}, in the exact shape the
+ * exchange returns them.
+ */
+public final class BinanceFixtures {
+
+    private BinanceFixtures() {
+    }
+
+    public static String read(String name) {
+        try (InputStream in = BinanceFixtures.class.getResourceAsStream("/fixtures/binance/" + name)) {
+            if (in == null) {
+                throw new IllegalArgumentException("No fixture " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The exchangeInfo fixture with its symbols repeated under new names until there are
+     * {@code symbolCount}, roughly the size of the live response for a full symbol list.
+     */
+    public static String exchangeInfo(int symbolCount) {
+        JsonObject exchangeInfo = JsonParser.parseString(read("exchangeInfo.json")).getAsJsonObject();
+        JsonArray templates = exchangeInfo.getAsJsonArray("symbols");
+        JsonArray symbols = new JsonArray();
+        for (int i = 0; i < symbolCount; i++) {
+            JsonObject symbol = templates.get(i % templates.size()).getAsJsonObject().deepCopy();
+            if (i >= templates.size()) {
+                symbol.addProperty("symbol", "SYM" + i + "USDT");
+                symbol.addProperty("baseAsset", "SYM" + i);
+            }
+            symbols.add(symbol);
+        }
+        exchangeInfo.add("symbols", symbols);
+        return exchangeInfo.toString();
+    }
+
+    /**
+     * A bulk /api/v3/ticker/price response with one entry per exchangeInfo symbol.
+     */
+    public static String tickerPrices(int symbolCount) {
+        JsonArray tickers = new JsonArray();
+        for (JsonElement symbol : JsonParser.parseString(exchangeInfo(symbolCount)).getAsJsonObject().getAsJsonArray("symbols")) {
+            JsonObject ticker = new JsonObject();
+            ticker.addProperty("symbol", symbol.getAsJsonObject().get("symbol").getAsString());
+            ticker.addProperty("price", String.format("%.8f", 1 + tickers.size() * 0.37));
+            tickers.add(ticker);
+        }
+        return tickers.toString();
+    }
+}
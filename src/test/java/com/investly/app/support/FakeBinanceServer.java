@@ -0,0 +1,204 @@
+package com.investly.app.support;
+
+import com.investly.app.services.KlineStore;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Local stand-in for the Binance REST API, backed by the JDK HTTP server.
+ * Routes are keyed by "METHOD path" and receive the raw query string.
+ */
+public class FakeBinanceServer implements AutoCloseable {
+
+    public record Reply(int status, String body, Map<String, String> headers) {
+        public static Reply ok(String body) {
+            return new Reply(200, body, Map.of());
+        }
+    }
+
+    public static final String UNKNOWN_ORDER = "{\"code\":-2013,\"msg\":\"Order does not exist.\"}";
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, Function<String, Reply>> routes = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+    private volatile long latencyMillis;
+
+    static {
+        // Without TCP_NODELAY, Nagle plus delayed ACKs add ~40 ms to every response
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private FakeBinanceServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public static FakeBinanceServer start() throws IOException {
+        return new FakeBinanceServer();
+    }
+
+    /**
+     * Starts a server answering the public endpoints the order path needs with fixed data.
+     */
+    public static FakeBinanceServer withDefaultRoutes(int exchangeInfoSymbols) throws IOException {
+        String exchangeInfo = exchangeInfo(exchangeInfoSymbols);
+        return start()
+                .route("GET", "/api/v3/time", query -> Reply.ok("{\"serverTime\":" + System.currentTimeMillis() + "}"))
+                .route("GET", "/api/v3/exchangeInfo", query -> Reply.ok(exchangeInfo))
+                .route("GET", "/api/v3/ticker/price", query -> Reply.ok(tickerPrice(query)))
+                .route("GET", "/api/v3/klines", query -> Reply.ok(klines(query)))
+                .route("POST", "/api/v3/order", query -> Reply.ok(
+                        "{\"symbol\":\"BTCUSDT\",\"orderId\":1,\"status\":\"FILLED\",\"executedQty\":\"0.00100000\"}"))
+                .route("GET", "/api/v3/order", query -> new Reply(400, UNKNOWN_ORDER, Map.of()));
+    }
+
+    public FakeBinanceServer route(String method, String path, Function<String, Reply> handler) {
+        routes.put(method + " " + path, handler);
+        return this;
+    }
+
+    public FakeBinanceServer latency(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+        return this;
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public int hits(String path) {
+        AtomicInteger count = hits.get(path);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * Builds an exchangeInfo document with the given number of symbols. BTCUSDT, ETHUSDT and EURUSDT
+     * are always present; the rest are synthetic pairs padded to a realistic size.
+     */
+    public static String exchangeInfo(int symbolCount) {
+        StringBuilder json = new StringBuilder("{\"timezone\":\"UTC\",\"serverTime\":0,\"rateLimits\":[],\"symbols\":[");
+        appendSymbol(json, "BTCUSDT", "0.00001000", "0.01000000");
+        json.append(',');
+        appendSymbol(json, "ETHUSDT", "0.00010000", "0.01000000");
+        json.append(',');
+        appendSymbol(json, "EURUSDT", "0.10000000", "0.00010000");
+        for (int i = 3; i < symbolCount; i++) {
+            json.append(',');
+            appendSymbol(json, "SYM" + i + "USDT", "1.00000000", "0.00001000");
+        }
+        return json.append("]}").toString();
+    }
+
+    private static void appendSymbol(StringBuilder json, String symbol, String stepSize, String tickSize) {
+        json.append("{\"symbol\":\"").append(symbol).append("\",\"status\":\"TRADING\",")
+                .append("\"baseAsset\":\"").append(symbol, 0, symbol.length() - 4).append("\",\"baseAssetPrecision\":8,")
+                .append("\"quoteAsset\":\"USDT\",\"quotePrecision\":8,\"quoteAssetPrecision\":8,")
+                .append("\"orderTypes\":[\"LIMIT\",\"LIMIT_MAKER\",\"MARKET\",\"STOP_LOSS_LIMIT\",\"TAKE_PROFIT_LIMIT\"],")
+                .append("\"icebergAllowed\":true,\"ocoAllowed\":true,\"isSpotTradingAllowed\":true,\"isMarginTradingAllowed\":false,")
+                .append("\"filters\":[")
+                .append("{\"filterType\":\"PRICE_FILTER\",\"minPrice\":\"0.01000000\",\"maxPrice\":\"1000000.00000000\",\"tickSize\":\"").append(tickSize).append("\"},")
+                .append("{\"filterType\":\"LOT_SIZE\",\"minQty\":\"").append(stepSize).append("\",\"maxQty\":\"9000.00000000\",\"stepSize\":\"").append(stepSize).append("\"},")
+                .append("{\"filterType\":\"ICEBERG_PARTS\",\"limit\":10},")
+                .append("{\"filterType\":\"MARKET_LOT_SIZE\",\"minQty\":\"0.00000000\",\"maxQty\":\"100.00000000\",\"stepSize\":\"0.00000000\"},")
+                .append("{\"filterType\":\"NOTIONAL\",\"minNotional\":\"5.00000000\",\"applyMinToMarket\":true,\"maxNotional\":\"9000000.00000000\",\"avgPriceMins\":5}")
+                .append("],\"permissions\":[\"SPOT\"]}");
+    }
+
+    /**
+     * Answers /api/v3/klines the way the exchange pages it, with synthetic candles for every interval
+     * since the epoch: the close of the candle opening at {@code t} is {@code 100 + (t / interval) % 100},
+     * open is one below, high and low two around it, and volume is 1.
+     */
+    public static String klines(String query) {
+        Map<String, String> params = new HashMap<>();
+        for (String param : query.split("&")) {
+            int separator = param.indexOf('=');
+            params.put(param.substring(0, separator), param.substring(separator + 1));
+        }
+        long interval = KlineStore.Interval.of(params.get("interval")).orElseThrow().millis();
+        long startTime = Long.parseLong(params.getOrDefault("startTime", "0"));
+        long endTime = Long.parseLong(params.getOrDefault("endTime", Long.toString(System.currentTimeMillis())));
+        int limit = Integer.parseInt(params.getOrDefault("limit", "500"));
+
+        StringJoiner candles = new StringJoiner(",", "[", "]");
+        long openTime = (startTime + interval - 1) / interval * interval;
+        for (int i = 0; i < limit && openTime <= endTime; i++, openTime += interval) {
+            double close = 100 + openTime / interval % 100;
+            candles.add("[" + openTime + ",\"" + (close - 1) + "\",\"" + (close + 2) + "\",\"" + (close - 2)
+                    + "\",\"" + close + "\",\"1.00000000\"," + (openTime + interval - 1) + ",\"0\",1,\"0\",\"0\",\"0\"]");
+        }
+        return candles.toString();
+    }
+
+    public static String tickerPrice(String query) {
+        if (query == null) {
+            return "[" + tickerPrice("symbol=BTCUSDT") + "," + tickerPrice("symbol=ETHUSDT") + ","
+                    + tickerPrice("symbol=EURUSDT") + "]";
+        }
+        if (query.startsWith("symbols=")) {
+            String symbols = URLDecoder.decode(query.substring("symbols=".length()), StandardCharsets.UTF_8);
+            StringJoiner prices = new StringJoiner(",", "[", "]");
+            for (String symbol : symbols.substring(1, symbols.length() - 1).split(",")) {
+                prices.add(tickerPrice("symbol=" + symbol.substring(1, symbol.length() - 1)));
+            }
+            return prices.toString();
+        }
+        String symbol = query.substring("symbol=".length());
+        String price = switch (symbol) {
+            case "EURUSDT" -> "1.08000000";
+            case "ETHUSDT" -> "3000.00000000";
+            default -> "60000.00000000";
+        };
+        return "{\"symbol\":\"" + symbol + "\",\"price\":\"" + price + "\"}";
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            hits.computeIfAbsent(path, key -> new AtomicInteger()).incrementAndGet();
+
+            if (latencyMillis > 0) {
+                TimeUnit.MILLISECONDS.sleep(latencyMillis);
+            }
+
+            Function<String, Reply> handler = routes.get(exchange.getRequestMethod() + " " + path);
+            Reply reply = handler != null
+                    ? handler.apply(exchange.getRequestURI().getRawQuery())
+                    : new Reply(404, "{\"code\":-1,\"msg\":\"Not found\"}", Map.of());
+
+            byte[] body = reply.body().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            reply.headers().forEach((name, value) -> exchange.getResponseHeaders().add(name, value));
+            exchange.sendResponseHeaders(reply.status(), body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,108 @@
+package com.investly.app.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Local stub of the OpenAI Assistants API. Routes are keyed by "METHOD path" and receive the request
+ * body; streaming routes answer with server-sent events built by {@link #sse}.
+ */
+public class FakeOpenAiServer implements AutoCloseable {
+
+    public record Reply(int status, String contentType, String body) {
+        public static Reply json(String body) {
+            return new Reply(200, "application/json", body);
+        }
+
+        public static Reply events(String body) {
+            return new Reply(200, "text/event-stream", body);
+        }
+    }
+
+    static {
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, Function<String, Reply>> routes = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+    private final List<String> requestBodies = new CopyOnWriteArrayList<>();
+
+    public FakeOpenAiServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public FakeOpenAiServer route(String method, String path, Function<String, Reply> handler) {
+        routes.put(method + " " + path, handler);
+        return this;
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1";
+    }
+
+    public int hits(String method, String path) {
+        AtomicInteger count = hits.get(method + " " + path);
+        return count == null ? 0 : count.get();
+    }
+
+    public List<String> requestBodies() {
+        return requestBodies;
+    }
+
+    /**
+     * Formats alternating event names and JSON payloads as an SSE body terminated by the done event.
+     */
+    public static String sse(String... eventsAndData) {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < eventsAndData.length; i += 2) {
+            body.append("event: ").append(eventsAndData[i]).append('\n')
+                    .append("data: ").append(eventsAndData[i + 1]).append("\n\n");
+        }
+        return body.append("event: done\ndata: [DONE]\n\n").toString();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String key = exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath().substring("/v1".length());
+            hits.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+
+            String requestBody = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            requestBodies.add(requestBody);
+
+            Function<String, Reply> handler = routes.get(key);
+            Reply reply = handler != null ? handler.apply(requestBody)
+                    : new Reply(404, "application/json", "{\"error\":{\"message\":\"no route " + key + "\"}}");
+
+            byte[] body = reply.body().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", reply.contentType());
+            exchange.sendResponseHeaders(reply.status(), body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}